@@ -0,0 +1,320 @@
+package com.mockanalyzer.benchmarks;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Writes synthetic Maven projects of Mockito tests, to reproduce scaling
+ * behaviour without real (customer) repositories.
+ *
+ * The tests mock JDK interfaces, which the reflection type solver resolves.
+ * Mockito itself goes into libs/: the Mockito jar on the classpath if there
+ * is one, otherwise a minimal Mockito/JUnit API compiled with the JDK's own
+ * compiler. Nothing is downloaded and no build is needed (analyze with --skip).
+ *
+ * Usage: CorpusGenerator <outputDir> [--classes N] [--tests N] [--mocks N]
+ * [--stubbings N] [--shared R] [--duplication R] [--packages N] [--seed N]
+ */
+public class CorpusGenerator {
+
+    /**
+     * Shape of a generated project.
+     */
+    public static class Spec {
+        public int testClasses = 50;
+        public int testsPerClass = 6;
+        // distinct mock variables per test class
+        public int mocksPerClass = 3;
+        // stubbings of each mock, per test (or per @BeforeEach for shared mocks)
+        public int stubbingsPerTest = 3;
+        // share of a class's mocks that are fields created and stubbed in @BeforeEach
+        public double sharedRatio = 0.3;
+        // chance that a stubbing repeats a common value instead of a unique one
+        public double duplication = 0.75;
+        public int packages = 4;
+        public long seed = 42;
+
+        /**
+         * Reads the options above from a command line; other arguments are left alone.
+         */
+        public static Spec parse(String[] args) {
+            Spec spec = new Spec();
+            for (int i = 0; i + 1 < args.length; i++) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--classes": spec.testClasses = Integer.parseInt(value); break;
+                    case "--tests": spec.testsPerClass = Integer.parseInt(value); break;
+                    case "--mocks": spec.mocksPerClass = Integer.parseInt(value); break;
+                    case "--stubbings": spec.stubbingsPerTest = Integer.parseInt(value); break;
+                    case "--shared": spec.sharedRatio = Double.parseDouble(value); break;
+                    case "--duplication": spec.duplication = Double.parseDouble(value); break;
+                    case "--packages": spec.packages = Integer.parseInt(value); break;
+                    case "--seed": spec.seed = Long.parseLong(value); break;
+                    default: continue;
+                }
+                i++;
+            }
+            return spec;
+        }
+    }
+
+    // ------ Mocked types: declaration, raw class, stubbing templates (%1$s = variable, %2$d = value) ------
+    private static final String[][] TYPES = {
+            { "Map<String, Integer>", "Map",
+                    "when(%1$s.get(\"k%2$d\")).thenReturn(%2$d);",
+                    "when(%1$s.containsKey(\"k%2$d\")).thenReturn(true);",
+                    "when(%1$s.size()).thenReturn(%2$d);" },
+            { "List<String>", "List",
+                    "when(%1$s.get(%2$d)).thenReturn(\"v%2$d\");",
+                    "when(%1$s.contains(\"v%2$d\")).thenReturn(true);",
+                    "when(%1$s.size()).thenReturn(%2$d);",
+                    "when(%1$s.isEmpty()).thenReturn(false);" },
+            { "Deque<String>", "Deque",
+                    "when(%1$s.peekFirst()).thenReturn(\"v%2$d\");",
+                    "when(%1$s.pollLast()).thenReturn(\"v%2$d\");",
+                    "when(%1$s.size()).thenReturn(%2$d);" },
+            { "Supplier<String>", "Supplier",
+                    "when(%1$s.get()).thenReturn(\"v%2$d\");" },
+            { "Iterator<String>", "Iterator",
+                    "when(%1$s.hasNext()).thenReturn(%2$d > 0);",
+                    "when(%1$s.next()).thenReturn(\"v%2$d\");" },
+            { "Callable<Integer>", "Callable",
+                    "when(%1$s.call()).thenReturn(%2$d);" },
+    };
+
+    // common values: repeated stubbings across tests, i.e. clones
+    private static final int COMMON_VALUES = 3;
+
+    private static final String[][] API = {
+            { "org/mockito/Mockito.java",
+                    "package org.mockito;\n"
+                            + "public class Mockito {\n"
+                            + "    public static <T> T mock(Class<T> type) { return null; }\n"
+                            + "    public static <T> T spy(T object) { return object; }\n"
+                            + "    public static <T> OngoingStubbing<T> when(T call) { return null; }\n"
+                            + "    public static <T> T verify(T mock) { return mock; }\n"
+                            + "    public static <T> T verify(T mock, VerificationMode mode) { return mock; }\n"
+                            + "    public static VerificationMode times(int count) { return null; }\n"
+                            + "    public static String anyString() { return null; }\n"
+                            + "    public static int anyInt() { return 0; }\n"
+                            + "}\n" },
+            { "org/mockito/OngoingStubbing.java",
+                    "package org.mockito;\n"
+                            + "public interface OngoingStubbing<T> {\n"
+                            + "    OngoingStubbing<T> thenReturn(T value);\n"
+                            + "    OngoingStubbing<T> thenThrow(Throwable... throwables);\n"
+                            + "}\n" },
+            { "org/mockito/VerificationMode.java",
+                    "package org.mockito;\n"
+                            + "public interface VerificationMode {\n"
+                            + "}\n" },
+            { "org/junit/jupiter/api/Test.java",
+                    "package org.junit.jupiter.api;\n"
+                            + "public @interface Test {\n"
+                            + "}\n" },
+            { "org/junit/jupiter/api/BeforeEach.java",
+                    "package org.junit.jupiter.api;\n"
+                            + "public @interface BeforeEach {\n"
+                            + "}\n" },
+    };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CorpusGenerator <outputDir> [--classes N] [--tests N] [--mocks N]"
+                    + " [--stubbings N] [--shared R] [--duplication R] [--packages N] [--seed N]");
+            return;
+        }
+        Spec spec = Spec.parse(args);
+        write(Paths.get(args[0]), spec);
+        System.out.println("Generated " + spec.testClasses + " test classes -> " + args[0]);
+    }
+
+    /**
+     * Writes a project with the default shape and the given size.
+     */
+    public static Path write(Path root, int testClasses, long seed) throws IOException {
+        Spec spec = new Spec();
+        spec.testClasses = testClasses;
+        spec.seed = seed;
+        return write(root, spec);
+    }
+
+    /**
+     * Writes the project and returns its root. Same spec, same project.
+     *
+     * @param root empty or missing folder
+     */
+    public static Path write(Path root, Spec spec) throws IOException {
+        Files.createDirectories(root);
+        Files.writeString(root.resolve("pom.xml"), "<project>\n"
+                + "  <modelVersion>4.0.0</modelVersion>\n"
+                + "  <groupId>bench</groupId>\n"
+                + "  <artifactId>fixture</artifactId>\n"
+                + "  <version>1</version>\n"
+                + "</project>\n", StandardCharsets.UTF_8);
+        writeMockitoJar(root.resolve("libs"));
+
+        Random random = new Random(spec.seed);
+        for (int i = 0; i < spec.testClasses; i++) {
+            String packageName = "gen.p" + (i % Math.max(1, spec.packages));
+            Path file = root.resolve("src/test/java").resolve(packageName.replace('.', '/'))
+                    .resolve("Gen" + i + "Test.java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, testClass(spec, packageName, "Gen" + i + "Test", random),
+                    StandardCharsets.UTF_8);
+        }
+        return root;
+    }
+
+    private static String testClass(Spec spec, String packageName, String className, Random random) {
+        StringBuilder code = new StringBuilder();
+        code.append("package ").append(packageName).append(";\n\n")
+                .append("import static org.mockito.Mockito.*;\n\n")
+                .append("import org.junit.jupiter.api.BeforeEach;\n")
+                .append("import org.junit.jupiter.api.Test;\n")
+                .append("import java.util.*;\n")
+                .append("import java.util.concurrent.Callable;\n")
+                .append("import java.util.function.Supplier;\n\n")
+                .append("public class ").append(className).append(" {\n");
+
+        List<String[]> sharedTypes = new ArrayList<>();
+        List<String[]> localTypes = new ArrayList<>();
+        for (int m = 0; m < spec.mocksPerClass; m++) {
+            String[] type = TYPES[random.nextInt(TYPES.length)];
+            (random.nextDouble() < spec.sharedRatio ? sharedTypes : localTypes).add(type);
+        }
+
+        // shared mocks: fields created and stubbed in @BeforeEach
+        if (!sharedTypes.isEmpty()) {
+            code.append('\n');
+            for (int m = 0; m < sharedTypes.size(); m++) {
+                code.append("    private ").append(sharedTypes.get(m)[0]).append(" shared").append(m).append(";\n");
+            }
+            code.append("\n    @BeforeEach\n")
+                    .append("    public void setUp() {\n");
+            for (int m = 0; m < sharedTypes.size(); m++) {
+                code.append("        shared").append(m).append(" = mock(").append(sharedTypes.get(m)[1])
+                        .append(".class);\n");
+                appendStubbings(code, spec, sharedTypes.get(m), "shared" + m, random);
+            }
+            code.append("    }\n");
+        }
+
+        for (int t = 0; t < spec.testsPerClass; t++) {
+            code.append("\n    @Test\n")
+                    .append("    public void test").append(t).append("() {\n");
+            for (int m = 0; m < localTypes.size(); m++) {
+                String[] type = localTypes.get(m);
+                code.append("        ").append(type[0]).append(" mock").append(m)
+                        .append(" = mock(").append(type[1]).append(".class);\n");
+                appendStubbings(code, spec, type, "mock" + m, random);
+            }
+            for (int m = 0; m < localTypes.size(); m++) {
+                code.append("        verify(mock").append(m).append(", times(1)).hashCode();\n");
+            }
+            for (int m = 0; m < sharedTypes.size(); m++) {
+                code.append("        verify(shared").append(m).append(").hashCode();\n");
+            }
+            code.append("    }\n");
+        }
+        return code.append("}\n").toString();
+    }
+
+    private static void appendStubbings(StringBuilder code, Spec spec, String[] type, String variable,
+            Random random) {
+        for (int s = 0; s < spec.stubbingsPerTest; s++) {
+            String template = type[2 + random.nextInt(type.length - 2)];
+            int value = random.nextDouble() < spec.duplication
+                    ? random.nextInt(COMMON_VALUES)
+                    : COMMON_VALUES + random.nextInt(1_000_000);
+            code.append("        ").append(String.format(template, variable, value)).append('\n');
+        }
+    }
+
+    /**
+     * Copies the Mockito jar of the classpath into libs/, or, when Mockito
+     * is not on the classpath as a jar of its own (e.g. inside the shaded
+     * benchmarks.jar), builds the minimal API jar instead.
+     */
+    private static void writeMockitoJar(Path libs) throws IOException {
+        Files.createDirectories(libs);
+        Path mockitoJar = classpathJar("org.mockito.Mockito");
+        if (mockitoJar != null && mockitoJar.getFileName().toString().startsWith("mockito")) {
+            Files.copy(mockitoJar, libs.resolve(mockitoJar.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        writeApiJar(libs.resolve("mockito-api.jar"));
+    }
+
+    private static Path classpathJar(String className) {
+        try {
+            CodeSource source = Class.forName(className, false, CorpusGenerator.class.getClassLoader())
+                    .getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) {
+                return null;
+            }
+            Path location = Paths.get(source.getLocation().toURI());
+            return Files.isRegularFile(location) ? location : null;
+        } catch (ClassNotFoundException | URISyntaxException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static void writeApiJar(Path jar) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("A JDK (not a JRE) is needed to build the corpus' Mockito API jar");
+        }
+        Path work = Files.createTempDirectory("corpus-api");
+        try {
+            List<String> arguments = new ArrayList<>(List.of("-d", work.resolve("classes").toString()));
+            for (String[] source : API) {
+                Path file = work.resolve("src").resolve(source[0]);
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, source[1], StandardCharsets.UTF_8);
+                arguments.add(file.toString());
+            }
+            if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+                throw new IOException("Failed to compile the corpus' Mockito API");
+            }
+
+            Path classes = work.resolve("classes");
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+                    Stream<Path> files = Files.walk(classes)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                    out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+                    Files.copy(file, out);
+                    out.closeEntry();
+                }
+            }
+        } finally {
+            deleteRecursively(work);
+        }
+    }
+
+    public static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
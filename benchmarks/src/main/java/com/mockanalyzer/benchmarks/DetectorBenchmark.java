@@ -0,0 +1,47 @@
+package com.mockanalyzer.benchmarks;
+
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clone detection over all sequences of a project (grouping, mining,
+ * no-stub clones), sequential and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectorBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int sequenceCount;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private List<MockSequence> sequences;
+    private MockCloneDetector detector;
+
+    @Setup
+    public void setUp() {
+        sequences = SequenceFixtures.sequences(7, sequenceCount);
+        detector = new MockCloneDetector();
+        detector.setParallel(parallel);
+    }
+
+    @Benchmark
+    public Map<String, List<MockCloneInstance>> detect() {
+        for (MockSequence sequence : sequences) {
+            sequence.overlapLines.clear();
+        }
+        return detector.detect(sequences);
+    }
+}
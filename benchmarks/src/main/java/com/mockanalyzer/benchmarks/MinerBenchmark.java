@@ -0,0 +1,50 @@
+package com.mockanalyzer.benchmarks;
+
+import com.mockanalyzer.cloneDetector.AprioriMiner;
+import com.mockanalyzer.cloneDetector.MockCloneMiner;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pattern mining of one (mockedClass, packageName) group.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MinerBenchmark {
+
+    @Param({ "50", "500" })
+    public int groupSize;
+
+    private List<MockSequence> group;
+    private List<List<String>> transactions;
+
+    @Setup
+    public void setUp() {
+        group = SequenceFixtures.sequences(42, groupSize);
+        transactions = SequenceFixtures.transactions(group);
+    }
+
+    @Benchmark
+    public Map<Set<String>, Set<Integer>> aprioriMine() {
+        return new AprioriMiner().mine(transactions, 2);
+    }
+
+    @Benchmark
+    public List<MockCloneInstance> runMutipStubbing() {
+        // assignment appends to overlapLines; reset so every call sees the same input
+        for (MockSequence sequence : group) {
+            sequence.overlapLines.clear();
+        }
+        return new MockCloneMiner().runMutipStubbing("bench.Service", "bench.p", group, transactions);
+    }
+}
@@ -0,0 +1,55 @@
+package com.mockanalyzer.benchmarks;
+
+import com.mockanalyzer.exporter.MockInfoExporter;
+import com.mockanalyzer.model.MockInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end over a generated {@link CorpusGenerator}: the whole
+ * analyzeProject (type solver, parsing, visitors), and building the mock
+ * sequences of its MockInfos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectBenchmark {
+
+    @Param({ "20", "200" })
+    public int testClasses;
+
+    private Path projectRoot;
+    private List<MockInfo> mockInfos;
+
+    @Setup
+    public void setUp() throws Exception {
+        projectRoot = CorpusGenerator.write(Files.createTempDirectory("bench-fixture"), testClasses, 42);
+        mockInfos = MockInfoExporter.analyzeProject(projectRoot, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        CorpusGenerator.deleteRecursively(projectRoot);
+    }
+
+    @Benchmark
+    public List<MockInfo> analyzeProject() throws Exception {
+        return MockInfoExporter.analyzeProject(projectRoot, false);
+    }
+
+    @Benchmark
+    public void toMockSequences(Blackhole blackhole) {
+        for (MockInfo mockInfo : mockInfos) {
+            blackhole.consume(mockInfo.toMockSequences());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.mockanalyzer.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.MockCloneExporter;
+import com.mockanalyzer.exporter.MockInfoExporter;
+import com.mockanalyzer.exporter.MockInfoReader;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the analyzer on generated corpora of increasing size and reports,
+ * per phase, the time, throughput and peak heap of every size, and how the
+ * time grows with the size (the exponent of a power-law fit: ~1 is linear,
+ * ~2 quadratic).
+ *
+ * Phases:
+ * - info: analyzeProject and writing the mockinfo file;
+ * - clone: the whole clone command (analysis and detection);
+ * - detect: clone --from the info output, i.e. detection only.
+ *
+ * The smallest size is run once more, unmeasured, before the others. At
+ * least two different sizes are needed for the fit.
+ *
+ * Usage: ScalingSuite [--sizes 50,100,200,400,800] [--work dir] [--output scaling.json]
+ * [corpus options, see {@link CorpusGenerator}]
+ */
+public class ScalingSuite {
+
+    public static class Measurement {
+        public String phase;
+        public int testClasses;
+        public int mockObjects;
+        public double seconds;
+        public double classesPerSecond;
+        // largest total heap use, sampled every SAMPLE_MILLIS from a gc before the phase to its end
+        public long peakHeapBytes;
+    }
+
+    public static class PhaseScaling {
+        public String phase;
+        // time ~ size^exponent; null if it cannot be fitted
+        public Double exponent;
+    }
+
+    public static class Report {
+        // corpus shape; testClasses takes each of the sizes in turn
+        public CorpusGenerator.Spec corpus;
+        public List<Integer> sizes;
+        public List<Measurement> measurements = new ArrayList<>();
+        public List<PhaseScaling> scaling = new ArrayList<>();
+    }
+
+    private static final String[] PHASES = { "info", "clone", "detect" };
+
+    private static final long SAMPLE_MILLIS = 10;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = new ArrayList<>(List.of(50, 100, 200, 400, 800));
+        Path work = Paths.get("scaling-work");
+        Path output = Paths.get("scaling.json");
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--sizes")) {
+                sizes.clear();
+                for (String size : args[++i].split(",")) {
+                    sizes.add(Integer.parseInt(size.trim()));
+                }
+            } else if (args[i].equals("--work")) {
+                work = Paths.get(args[++i]);
+            } else if (args[i].equals("--output")) {
+                output = Paths.get(args[++i]);
+            }
+        }
+
+        if (new TreeSet<>(sizes).size() < 2) {
+            System.err.println("[ERROR] --sizes needs at least two different sizes to fit the exponent");
+            System.exit(1);
+        }
+
+        Report report = new Report();
+        report.corpus = CorpusGenerator.Spec.parse(args);
+        report.sizes = sizes;
+        // unmeasured run of the smallest size, so the first size does not pay for class loading and JIT
+        report.corpus.testClasses = sizes.get(0);
+        Path warmup = work.resolve("corpus-warmup");
+        CorpusGenerator.deleteRecursively(warmup);
+        CorpusGenerator.write(warmup, report.corpus);
+        measure(warmup, sizes.get(0), work);
+        CorpusGenerator.deleteRecursively(warmup);
+
+        for (int size : sizes) {
+            report.corpus.testClasses = size;
+            Path root = work.resolve("corpus-" + size);
+            CorpusGenerator.deleteRecursively(root);
+            CorpusGenerator.write(root, report.corpus);
+            report.measurements.addAll(measure(root, size, work));
+            CorpusGenerator.deleteRecursively(root);
+        }
+
+        for (String phase : PHASES) {
+            PhaseScaling scaling = new PhaseScaling();
+            scaling.phase = phase;
+            scaling.exponent = fitExponent(report.measurements, phase);
+            report.scaling.add(scaling);
+        }
+
+        print(report);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Files.writeString(output, gson.toJson(report), StandardCharsets.UTF_8);
+        System.out.println("Scaling report -> " + output);
+    }
+
+    private static List<Measurement> measure(Path root, int size, Path work) throws Exception {
+        String info = work.resolve("info-" + size + ".json").toString();
+        String clone = work.resolve("clone-" + size + ".json").toString();
+        String detect = work.resolve("detect-" + size + ".json").toString();
+
+        List<Measurement> measurements = new ArrayList<>();
+        measurements.add(phase("info", size, () -> MockInfoExporter.export(root, info, false)));
+        measurements.add(phase("clone", size, () -> MockCloneExporter.exportClones(root, clone, false)));
+        measurements.add(phase("detect", size, () -> MockCloneExporter.exportClonesFrom(Paths.get(info), detect,
+                new MockCloneDetector())));
+
+        int mockObjects = countMockObjects(Paths.get(clone));
+        for (Measurement measurement : measurements) {
+            measurement.mockObjects = mockObjects;
+        }
+        Files.deleteIfExists(Paths.get(info));
+        Files.deleteIfExists(Paths.get(clone));
+        Files.deleteIfExists(Paths.get(detect));
+        return measurements;
+    }
+
+    private interface Phase {
+        void run() throws Exception;
+    }
+
+    private static Measurement phase(String name, int size, Phase phase) throws Exception {
+        System.gc();
+        // the pools' own peaks are reached at different times, so their sum overstates the heap;
+        // sample the total instead
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peak = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.nanoTime();
+        try {
+            phase.run();
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+
+        Measurement measurement = new Measurement();
+        measurement.phase = name;
+        measurement.testClasses = size;
+        measurement.seconds = seconds;
+        measurement.classesPerSecond = size / seconds;
+        measurement.peakHeapBytes = peak.get();
+        return measurement;
+    }
+
+    private static int countMockObjects(Path cloneReport) throws IOException {
+        int[] count = new int[1];
+        MockInfoReader.forEach(cloneReport, mockInfo -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Least-squares slope of log(seconds) over log(size), or null (JSON has
+     * no NaN) without two distinct sizes of measurable time.
+     */
+    static Double fitExponent(List<Measurement> measurements, String phase) {
+        double n = 0, sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (Measurement measurement : measurements) {
+            if (!measurement.phase.equals(phase) || measurement.seconds <= 0) {
+                continue;
+            }
+            double x = Math.log(measurement.testClasses);
+            double y = Math.log(measurement.seconds);
+            n++;
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        if (n < 2 || denominator == 0) {
+            return null;
+        }
+        return (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    private static void print(Report report) {
+        System.out.println();
+        System.out.printf("%-8s %8s %8s %10s %12s %12s%n", "phase", "classes", "mocks", "seconds", "classes/s",
+                "peak heap MB");
+        for (Measurement m : report.measurements) {
+            System.out.printf("%-8s %8d %8d %10.3f %12.1f %12.1f%n", m.phase, m.testClasses, m.mockObjects,
+                    m.seconds, m.classesPerSecond, m.peakHeapBytes / 1048576.0);
+        }
+        Map<String, Double> exponents = new LinkedHashMap<>();
+        for (PhaseScaling scaling : report.scaling) {
+            exponents.put(scaling.phase, scaling.exponent);
+        }
+        System.out.println("time ~ size^k: " + exponents);
+    }
+}
@@ -0,0 +1,60 @@
+package com.mockanalyzer.benchmarks;
+
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.StatementInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded synthetic mock sequences for the detection benchmarks, shaped like
+ * real ones: a few mocked classes and packages, a handful of stubbings per
+ * sequence, drawn from a small pool so that many of them repeat.
+ */
+public class SequenceFixtures {
+
+    private static final int MOCKED_CLASSES = 5;
+    private static final int PACKAGES = 4;
+    private static final int STATEMENT_POOL = 12;
+    private static final int MAX_STUBBINGS = 6;
+
+    public static List<MockSequence> sequences(long seed, int count) {
+        Random random = new Random(seed);
+        List<MockSequence> sequences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MockSequence sequence = new MockSequence();
+            sequence.mockObjectId = i;
+            sequence.mockedClass = "bench.Service" + random.nextInt(MOCKED_CLASSES);
+            sequence.packageName = "bench.p" + random.nextInt(PACKAGES);
+            sequence.filePath = "Test" + (i / 10) + ".java";
+            sequence.className = "Test" + (i / 10);
+            sequence.testMethodName = "test" + i;
+
+            int stubbings = 1 + random.nextInt(MAX_STUBBINGS);
+            for (int j = 0; j < stubbings; j++) {
+                StatementInfo statement = new StatementInfo();
+                statement.line = 3 * j + 1;
+                statement.type = StatementInfo.Kind.STUBBING;
+                statement.isMockRelated = true;
+                statement.abstractedStatement = "when(<mock>.call" + random.nextInt(STATEMENT_POOL)
+                        + "()).thenReturn(<value>)";
+                sequence.rawStatementInfo.put(statement.line, statement);
+                sequence.abstractedStatement.put(statement.line, statement.abstractedStatement);
+            }
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+
+    /**
+     * The abstracted statements of each sequence: the transactions the miners see.
+     */
+    public static List<List<String>> transactions(List<MockSequence> sequences) {
+        List<List<String>> transactions = new ArrayList<>();
+        for (MockSequence sequence : sequences) {
+            transactions.add(new ArrayList<>(sequence.abstractedStatement.values()));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mockanalyzer.benchmarks;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.sequencesParser.StubbingAnalyzer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abstraction of single stubbing statements, including the symbol
+ * resolution of the stubbed calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StubbingAnalyzerBenchmark {
+
+    private static final String SOURCE = "import static org.mockito.Mockito.*;\n"
+            + "import java.util.*;\n"
+            + "class StubbingTest {\n"
+            + "    void test() {\n"
+            + "        List<String> list = mock(List.class);\n"
+            + "        when(list.get(0)).thenReturn(\"a\");\n"
+            + "        when(list.size()).thenReturn(3);\n"
+            + "        when(list.contains(\"a\")).thenReturn(true).thenReturn(false);\n"
+            + "        when(list.subList(0, list.size())).thenReturn(new ArrayList<>());\n"
+            + "        when(list.indexOf(anyString())).thenThrow(new IllegalStateException());\n"
+            + "    }\n"
+            + "}\n";
+
+    private final List<Expression> stubbings = new ArrayList<>();
+    private MockInfo mock;
+
+    @Setup
+    public void setUp() {
+        ParserConfiguration configuration = new ParserConfiguration()
+                .setSymbolResolver(new JavaSymbolSolver(new ReflectionTypeSolver()));
+        StaticJavaParser.setConfiguration(configuration);
+        CompilationUnit unit = StaticJavaParser.parse(SOURCE);
+        for (ExpressionStmt statement : unit.findAll(ExpressionStmt.class)) {
+            if (statement.getExpression().toString().startsWith("when(")) {
+                stubbings.add(statement.getExpression());
+            }
+        }
+
+        mock = new MockInfo();
+        mock.variableName = "list";
+        mock.variableType = "List<String>";
+        mock.mockedClass = "java.util.List";
+    }
+
+    @Benchmark
+    public void abstractStubbingStatement(Blackhole blackhole) {
+        for (Expression stubbing : stubbings) {
+            blackhole.consume(StubbingAnalyzer.abstractStubbingStatement(stubbing, mock));
+        }
+    }
+}
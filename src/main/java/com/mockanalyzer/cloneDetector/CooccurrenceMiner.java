@@ -0,0 +1,109 @@
+package com.mockanalyzer.cloneDetector;
+
+import java.util.*;
+
+/**
+ * Mines the closed frequent itemsets of a group through an inverted index
+ * instead of enumerating every frequent subset.
+ *
+ * A closed itemset is the closure of its sequences: the statements all of
+ * them contain. The search starts from the posting list of each statement
+ * and extends a set of sequences only by a statement some of them contain,
+ * keeping the sequences that contain it too (a tidset extension), so every
+ * set of sequences reached is the support of some itemset. Each closed
+ * itemset is expanded once, with one pass over the statements of its
+ * sequences, which yields its closure and the tidsets of all its extensions
+ * together. Work is therefore linear in the number of closed itemsets times
+ * the size of their sequences; no pair of sequences is compared unless they
+ * share a frequent closed itemset.
+ *
+ * For the greedy assignment closed itemsets are enough: a non-closed pattern
+ * has the same sequences as its closure but a lower score, so it can never
+ * take a sequence its closure did not take first.
+ */
+public class CooccurrenceMiner {
+
+    /**
+     * @param transactions list of mock statement transactions
+     * @param minSupport   minimum number of transactions (≥2) an itemset must appear in
+     * @return closed frequent itemsets mapped to the transactions containing them, in discovery order
+     */
+    public Map<Set<String>, Set<Integer>> mine(List<List<String>> transactions, int minSupport) {
+        Search search = new Search(new StatementIndex(transactions), Math.max(minSupport, 2));
+        for (int statement = 0; statement < search.index.postings.length; statement++) {
+            if (search.index.postings[statement].length >= search.minSupport) {
+                search.expand(search.index.postings[statement]);
+            }
+        }
+        return search.result;
+    }
+
+    private static final class Search {
+        final StatementIndex index;
+        final int minSupport;
+        final Map<Set<String>, Set<Integer>> result = new LinkedHashMap<>();
+        final Set<ItemsKey> known = new HashSet<>();
+        // statement -> number of the current tidset's sequences that contain it; all zero between passes
+        final int[] counts;
+
+        Search(StatementIndex index, int minSupport) {
+            this.index = index;
+            this.minSupport = minSupport;
+            this.counts = new int[index.postings.length];
+        }
+
+        /**
+         * Records the closure of the tidset, if it is new, and expands each
+         * of its frequent extensions.
+         */
+        void expand(int[] tidSet) {
+            // one pass: how many of the sequences contain each statement
+            List<Integer> seen = new ArrayList<>();
+            for (int t : tidSet) {
+                for (int statement : index.sequences[t]) {
+                    if (counts[statement]++ == 0) {
+                        seen.add(statement);
+                    }
+                }
+            }
+            List<Integer> closure = new ArrayList<>();
+            Map<Integer, List<Integer>> extensions = new LinkedHashMap<>();
+            for (int statement : seen) {
+                if (counts[statement] == tidSet.length) {
+                    closure.add(statement);
+                } else if (counts[statement] >= minSupport) {
+                    extensions.put(statement, new ArrayList<>());
+                }
+            }
+            for (int statement : seen) {
+                counts[statement] = 0;
+            }
+
+            int[] items = closure.stream().mapToInt(Integer::intValue).sorted().toArray();
+            if (!known.add(new ItemsKey(items))) {
+                return;
+            }
+            Set<Integer> sequences = new HashSet<>();
+            for (int t : tidSet) {
+                sequences.add(t);
+            }
+            result.put(index.statementsOf(items), sequences);
+
+            if (extensions.isEmpty()) {
+                return;
+            }
+            // the extensions' tidsets, still ascending
+            for (int t : tidSet) {
+                for (int statement : index.sequences[t]) {
+                    List<Integer> extension = extensions.get(statement);
+                    if (extension != null) {
+                        extension.add(t);
+                    }
+                }
+            }
+            for (List<Integer> extension : extensions.values()) {
+                expand(extension.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.mockanalyzer.cloneDetector;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.StatementInfo;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent memo of per-group detection results, so that re-running clone
+ * detection after a small change only mines the groups that changed.
+ *
+ * A group is keyed by a SHA-256 fingerprint of the miner settings and of
+ * everything in its sequences that detection reads. Mock object ids are
+ * replaced by their order of first appearance in the group, because they
+ * are numbered project-wide and shift whenever an earlier file changes.
+ * Results are stored by sequence position in the group, together with the
+ * overlap lines detection added to each sequence, and are rebuilt against
+ * the current sequences on a hit.
+ */
+class DetectionMemo {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final Path file;
+    private final Map<String, GroupResult> previous;
+    // only entries used by this run are written back, so stale groups are dropped
+    private final Map<String, GroupResult> current = new ConcurrentHashMap<>();
+
+    int hits = 0;
+    int misses = 0;
+
+    private DetectionMemo(Path file, Map<String, GroupResult> previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    /**
+     * Stored result of one group.
+     */
+    static class GroupResult {
+        List<CachedInstance> instances = new ArrayList<>();
+        // sequence position -> lines appended to its overlapLines by detection
+        Map<Integer, List<Integer>> overlapLines = new HashMap<>();
+    }
+
+    static class CachedInstance {
+        List<Integer> sequences;
+        List<String> sharedStatements;
+        int testCaseCount;
+        int sequenceCount;
+        int sharedStatementLineCount;
+        int locReduced;
+        int mockObjectCount;
+    }
+
+    /**
+     * Loads the memo file, or starts an empty memo if it does not exist or cannot be read.
+     */
+    static DetectionMemo load(Path file) {
+        Map<String, GroupResult> entries = null;
+        if (Files.exists(file)) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(file.toFile()), StandardCharsets.UTF_8)) {
+                entries = GSON.fromJson(reader, new TypeToken<Map<String, GroupResult>>() {
+                }.getType());
+            } catch (Exception e) {
+                System.err.println("[WARN] Ignoring unreadable detection memo " + file + ": " + e.getMessage());
+            }
+        }
+        return new DetectionMemo(file, entries == null ? new HashMap<>() : entries);
+    }
+
+    void save() {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file.toFile()), StandardCharsets.UTF_8)) {
+            GSON.toJson(new TreeMap<>(current), writer);
+        } catch (Exception e) {
+            System.err.println("[WARN] Failed to write detection memo " + file + ": " + e.getMessage());
+        }
+        System.out.println("Detection memo: " + hits + " groups reused, " + misses + " groups mined -> " + file);
+    }
+
+    /**
+     * Returns the memoized clones of the group rebuilt on the given sequences
+     * (applying their overlap lines), or null if the group has to be mined.
+     */
+    synchronized List<MockCloneInstance> lookup(String fingerprint, String mockedClass, String packageName,
+            List<MockSequence> group) {
+        GroupResult cached = previous.get(fingerprint);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        current.put(fingerprint, cached);
+
+        for (Map.Entry<Integer, List<Integer>> entry : cached.overlapLines.entrySet()) {
+            group.get(entry.getKey()).overlapLines.addAll(entry.getValue());
+        }
+        List<MockCloneInstance> clones = new ArrayList<>();
+        for (CachedInstance c : cached.instances) {
+            MockCloneInstance instance = new MockCloneInstance();
+            instance.mockedClass = mockedClass;
+            instance.packageName = packageName;
+            instance.testCaseCount = c.testCaseCount;
+            instance.sequenceCount = c.sequenceCount;
+            instance.sharedStatementLineCount = c.sharedStatementLineCount;
+            instance.locReduced = c.locReduced;
+            instance.mockObjectCount = c.mockObjectCount;
+            instance.sharedStatements = new ArrayList<>(c.sharedStatements);
+            instance.sequences = new ArrayList<>();
+            for (int position : c.sequences) {
+                instance.sequences.add(group.get(position));
+            }
+            clones.add(instance);
+        }
+        return clones;
+    }
+
+    /**
+     * Records freshly mined clones of a group. overlapBefore holds each
+     * sequence's overlapLines size before detection ran.
+     */
+    void store(String fingerprint, List<MockSequence> group, int[] overlapBefore, List<MockCloneInstance> clones) {
+        Map<MockSequence, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < group.size(); i++) {
+            positions.put(group.get(i), i);
+        }
+
+        GroupResult result = new GroupResult();
+        for (int i = 0; i < group.size(); i++) {
+            List<Integer> lines = group.get(i).overlapLines;
+            if (lines.size() > overlapBefore[i]) {
+                result.overlapLines.put(i, new ArrayList<>(lines.subList(overlapBefore[i], lines.size())));
+            }
+        }
+        for (MockCloneInstance instance : clones) {
+            CachedInstance c = new CachedInstance();
+            c.sequences = new ArrayList<>();
+            for (MockSequence seq : instance.sequences) {
+                c.sequences.add(positions.get(seq));
+            }
+            c.sharedStatements = new ArrayList<>(instance.sharedStatements);
+            c.testCaseCount = instance.testCaseCount;
+            c.sequenceCount = instance.sequenceCount;
+            c.sharedStatementLineCount = instance.sharedStatementLineCount;
+            c.locReduced = instance.locReduced;
+            c.mockObjectCount = instance.mockObjectCount;
+            result.instances.add(c);
+        }
+        current.put(fingerprint, result);
+    }
+
+    /**
+     * Fingerprint of a group under the given miner settings. Sequence order
+     * is kept: the miner breaks score ties by first appearance, so a reordered
+     * group may legitimately produce different clones.
+     */
+    static String fingerprint(String settings, String mockedClass, String packageName, List<MockSequence> group) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(settings).append('\n').append(mockedClass).append('\n').append(packageName).append('\n');
+        Map<Integer, Integer> mockOrdinals = new HashMap<>();
+        for (MockSequence seq : group) {
+            int mockOrdinal = mockOrdinals.computeIfAbsent(seq.mockObjectId, k -> mockOrdinals.size());
+            sb.append("SEQ ").append(mockOrdinal)
+                    .append('|').append(seq.isReuseableMock)
+                    .append('|').append(seq.filePath)
+                    .append('|').append(seq.className)
+                    .append('|').append(seq.testMethodName)
+                    .append('|').append(seq.overlapLines)
+                    .append('\n');
+            for (String statement : seq.abstractedStatement.values()) {
+                sb.append("A ").append(statement).append('\n');
+            }
+            for (Map.Entry<Integer, StatementInfo> entry : seq.rawStatementInfo.entrySet()) {
+                StatementInfo stmt = entry.getValue();
+                sb.append("R ").append(entry.getKey())
+                        .append('|').append(stmt.type)
+                        .append('|').append(stmt.isMockRelated)
+                        .append('|').append(stmt.isShareable)
+                        .append('|').append(stmt.abstractedStatement)
+                        .append('\n');
+            }
+            digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            sb.setLength(0);
+        }
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mockanalyzer.cloneDetector;
+
+import java.util.Arrays;
+
+/**
+ * Hash key for an itemset encoded as a sorted int array of item ids.
+ */
+final class ItemsKey {
+    final int[] ids;
+    private final int hash;
+
+    ItemsKey(int[] ids) {
+        this.ids = ids;
+        this.hash = Arrays.hashCode(ids);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ItemsKey && Arrays.equals(ids, ((ItemsKey) o).ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -1,19 +1,181 @@
 package com.mockanalyzer.cloneDetector;
 
+import com.mockanalyzer.metrics.GroupDetectionEvent;
 import com.mockanalyzer.model.MockCloneInstance;
 import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.NearCloneInstance;
 import com.mockanalyzer.model.StatementInfo;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class MockCloneDetector {
 
+    // 0 = mine all frequent patterns; > 0 = mine only the top-k patterns per group
+    private int topK = 0;
+
+    // mine independent (mockedClass, packageName) groups on a fork-join pool
+    private boolean parallel = false;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    // groups with at least this many sequences are themselves mined on multiple cores; 0 = never
+    private int parallelMiningThreshold = 0;
+    // group by mockedClass only, so clones can span sibling packages
+    private boolean projectWide = false;
+    // minimum Jaccard similarity for near-clone detection; 0 = disabled
+    private double nearCloneThreshold = 0;
+    // persistent per-group results; null = always mine
+    private Path memoFile = null;
+    private DetectionMemo memo = null;
+    // exporters keep sequences in a SequenceStore and detection loads one group at a time
+    private boolean spill = false;
+    // exporters write the report as a NormalizedReport
+    private boolean normalizedReport = false;
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void setParallelMiningThreshold(int parallelMiningThreshold) {
+        this.parallelMiningThreshold = parallelMiningThreshold;
+    }
+
+    public void setProjectWide(boolean projectWide) {
+        this.projectWide = projectWide;
+    }
+
+    public boolean isProjectWide() {
+        return projectWide;
+    }
+
+    public void setNearCloneThreshold(double nearCloneThreshold) {
+        this.nearCloneThreshold = nearCloneThreshold;
+    }
+
+    public void setMemoFile(Path memoFile) {
+        this.memoFile = memoFile;
+    }
+
+    public void setSpill(boolean spill) {
+        this.spill = spill;
+    }
+
+    public boolean isSpill() {
+        return spill;
+    }
+
+    public void setNormalizedReport(boolean normalizedReport) {
+        this.normalizedReport = normalizedReport;
+    }
+
+    public boolean isNormalizedReport() {
+        return normalizedReport;
+    }
+
+    public boolean isNearCloneEnabled() {
+        return nearCloneThreshold > 0;
+    }
+
+    /**
+     * Fuzzy counterpart of {@link #detect(List)}: groups of sequences whose
+     * stubbing sets are similar but not identical. Returns an empty map when
+     * near-clone detection is disabled.
+     */
+    public Map<String, List<NearCloneInstance>> detectNearClones(List<MockSequence> allSequences) {
+        if (!isNearCloneEnabled()) {
+            return new HashMap<>();
+        }
+        return new NearCloneDetector(nearCloneThreshold).detect(allSequences);
+    }
+
+    /**
+     * Near clones of spilled sequences, one group in memory at a time.
+     */
+    public Map<String, List<NearCloneInstance>> detectNearClones(SequenceStore store) {
+        Map<String, List<NearCloneInstance>> result = new LinkedHashMap<>();
+        if (!isNearCloneEnabled()) {
+            return result;
+        }
+        NearCloneDetector nearDetector = new NearCloneDetector(nearCloneThreshold);
+        for (String key : store.groupKeys()) {
+            if (store.groupSize(key) < 2)
+                continue;
+            List<MockSequence> group = store.load(key);
+            group.removeIf(seq -> seq.abstractedStatement.isEmpty());
+            if (group.size() < 2)
+                continue;
+            String[] parts = key.split("#", 2);
+            List<NearCloneInstance> nearClones = nearDetector.detectInGroup(parts[0], parts[1], group);
+            if (!nearClones.isEmpty()) {
+                result.computeIfAbsent(parts[0], k -> new ArrayList<>()).addAll(nearClones);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #detect(List)} for spilled sequences. Groups are loaded
+     * from the store one at a time (one per worker with --parallel); only
+     * the sequences that end up in a clone stay in memory. Project-wide
+     * detection loads all groups of one mocked class at a time.
+     */
+    public Map<String, List<MockCloneInstance>> detect(SequenceStore store) {
+        if (projectWide) {
+            Map<String, List<String>> keysByClass = new LinkedHashMap<>();
+            for (String key : store.groupKeys()) {
+                keysByClass.computeIfAbsent(key.split("#", 2)[0], k -> new ArrayList<>()).add(key);
+            }
+            Map<String, List<MockCloneInstance>> result = new HashMap<>();
+            for (List<String> keys : keysByClass.values()) {
+                List<MockSequence> sequences = new ArrayList<>();
+                for (String key : keys) {
+                    sequences.addAll(store.load(key));
+                }
+                result.putAll(detectProjectWide(sequences));
+            }
+            return result;
+        }
+
+        List<GroupTask> work = new ArrayList<>();
+        for (String key : store.groupKeys()) {
+            if (store.groupSize(key) < 2)
+                continue;
+            String[] parts = key.split("#", 2);
+            work.add(new GroupTask(parts[0], parts[1], store.groupSize(key), () -> store.load(key)));
+        }
+        if (memoFile == null) {
+            return detectTasks(work);
+        }
+        memo = DetectionMemo.load(memoFile);
+        try {
+            return detectTasks(work);
+        } finally {
+            memo.save();
+            memo = null;
+        }
+    }
+
     /**
      * Entry point: run mock clone detection grouped by mockedClass + packageName,
      * but return results grouped by mockedClass.
      */
     public Map<String, List<MockCloneInstance>> detect(List<MockSequence> allSequences) {
+        if (projectWide) {
+            return detectProjectWide(allSequences);
+        }
+
         // Step 1: Group by (mockedClass + packageName)
         Map<String, List<MockSequence>> grouped = new HashMap<>();
         for (MockSequence seq : allSequences) {
@@ -24,6 +186,40 @@ public class MockCloneDetector {
             // }
             
         }
+        return detectGroups(grouped);
+    }
+
+    /**
+     * Steps 2+ of {@link #detect(List)} for sequences that are already grouped
+     * by mockedClass + "#" + packageName (e.g. accumulated while the project
+     * is still being analyzed). Not used for project-wide detection.
+     */
+    public Map<String, List<MockCloneInstance>> detectGroups(Map<String, List<MockSequence>> grouped) {
+        if (memoFile == null) {
+            return detectGroupsWithoutMemo(grouped);
+        }
+
+        memo = DetectionMemo.load(memoFile);
+        try {
+            return detectGroupsWithoutMemo(grouped);
+        } finally {
+            memo.save();
+            memo = null;
+        }
+    }
+
+    private Map<String, List<MockCloneInstance>> detectGroupsWithoutMemo(Map<String, List<MockSequence>> grouped) {
+        if (parallel) {
+            List<GroupTask> work = new ArrayList<>();
+            for (Map.Entry<String, List<MockSequence>> entry : grouped.entrySet()) {
+                if (entry.getValue().size() < 2)
+                    continue;
+                String[] parts = entry.getKey().split("#", 2);
+                List<MockSequence> group = entry.getValue();
+                work.add(new GroupTask(parts[0], parts[1], group.size(), () -> group));
+            }
+            return detectInParallel(work);
+        }
 
         // Step 2: Run detection per group, collect by mockedClass
         Map<String, List<MockCloneInstance>> result = new HashMap<>();
@@ -44,11 +240,188 @@ public class MockCloneDetector {
         return result;
     }
 
+    /**
+     * Parallel variant of Step 2. Groups are independent, so each one is mined
+     * on a fork-join pool, largest group first so that a single huge group does
+     * not start last. The merged result does not depend on scheduling: mocked
+     * classes are sorted, and within a mocked class the groups follow package
+     * order, each keeping the miner's own instance order.
+     */
+    private Map<String, List<MockCloneInstance>> detectInParallel(List<GroupTask> work) {
+        work.sort(Comparator.comparingInt((GroupTask t) -> t.size).reversed()
+                .thenComparing(GroupTask.ORDER));
+
+        // workers pull the next-largest group from a shared cursor
+        AtomicInteger cursor = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, Math.max(1, work.size())));
+        try {
+            List<ForkJoinTask<?>> workers = new ArrayList<>();
+            for (int w = 0; w < pool.getParallelism(); w++) {
+                workers.add(pool.submit(() -> {
+                    int i;
+                    while ((i = cursor.getAndIncrement()) < work.size()) {
+                        GroupTask task = work.get(i);
+                        task.clones = detectClonesInGroup(task.mockedClass, task.packageName, task.group.get());
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> worker : workers) {
+                worker.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        work.sort(GroupTask.ORDER);
+        Map<String, List<MockCloneInstance>> result = new TreeMap<>();
+        for (GroupTask task : work) {
+            if (!task.clones.isEmpty()) {
+                result.computeIfAbsent(task.mockedClass, k -> new ArrayList<>()).addAll(task.clones);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Project-wide variant: sequences are grouped by mockedClass only, so the
+     * same stubbing set-up of a shared interface in sibling packages forms one
+     * clone. Running Apriori on such a group explodes, so the patterns are the
+     * closed itemsets found through CooccurrenceMiner's inverted index.
+     * An instance's packageName lists every package it spans.
+     */
+    private Map<String, List<MockCloneInstance>> detectProjectWide(List<MockSequence> allSequences) {
+        Map<String, List<MockSequence>> byClass = new LinkedHashMap<>();
+        for (MockSequence seq : allSequences) {
+            byClass.computeIfAbsent(seq.mockedClass, k -> new ArrayList<>()).add(seq);
+        }
+
+        Map<String, List<MockCloneInstance>> result = new HashMap<>();
+        for (Map.Entry<String, List<MockSequence>> entry : byClass.entrySet()) {
+            String mockedClass = entry.getKey();
+            List<MockSequence> group = entry.getValue();
+            if (group.size() < 2)
+                continue;
+
+            GroupDetectionEvent event = new GroupDetectionEvent();
+            event.begin();
+            List<List<String>> abstractedSequences = new ArrayList<>();
+            for (MockSequence seq : group) {
+                abstractedSequences.add(new ArrayList<>(seq.abstractedStatement.values()));
+            }
+            Map<Set<String>, Set<Integer>> patterns = new CooccurrenceMiner()
+                    .mine(abstractedSequences, MockCloneMiner.MIN_SUPPORT);
+            List<MockCloneInstance> clones = new MockCloneMiner(topK, parallelMiningThreshold)
+                    .runWithPatterns(mockedClass, null, group, abstractedSequences, patterns);
+            for (MockCloneInstance clone : clones) {
+                clone.packageName = clone.sequences.stream()
+                        .map(seq -> String.valueOf(seq.packageName))
+                        .distinct().sorted()
+                        .collect(Collectors.joining(", "));
+            }
+
+            // no-stub clones are merged per file, so they stay within one package
+            Map<String, List<MockSequence>> byPackage = group.stream()
+                    .collect(Collectors.groupingBy(seq -> String.valueOf(seq.packageName),
+                            LinkedHashMap::new, Collectors.toList()));
+            for (Map.Entry<String, List<MockSequence>> pkg : byPackage.entrySet()) {
+                clones.addAll(detectNoStubClones(mockedClass, pkg.getKey(), pkg.getValue()));
+            }
+            commit(event, mockedClass, null, group, patterns.size(), clones, false);
+
+            if (!clones.isEmpty()) {
+                result.put(mockedClass, clones);
+            }
+        }
+        return result;
+    }
+
+    private static final class GroupTask {
+        static final Comparator<GroupTask> ORDER = Comparator
+                .comparing((GroupTask t) -> t.mockedClass)
+                .thenComparing(t -> t.packageName);
+
+        final String mockedClass;
+        final String packageName;
+        final int size;
+        // loaded when the group is mined
+        final Supplier<List<MockSequence>> group;
+        List<MockCloneInstance> clones;
+
+        GroupTask(String mockedClass, String packageName, int size, Supplier<List<MockSequence>> group) {
+            this.mockedClass = mockedClass;
+            this.packageName = packageName;
+            this.size = size;
+            this.group = group;
+        }
+    }
+
+    /**
+     * Mines the tasks' groups, in parallel if enabled, loading each one only
+     * when it is mined. Sequential results follow the task order.
+     */
+    private Map<String, List<MockCloneInstance>> detectTasks(List<GroupTask> work) {
+        if (parallel) {
+            return detectInParallel(work);
+        }
+        Map<String, List<MockCloneInstance>> result = new HashMap<>();
+        for (GroupTask task : work) {
+            List<MockCloneInstance> clones = detectClonesInGroup(task.mockedClass, task.packageName, task.group.get());
+            if (!clones.isEmpty()) {
+                result.computeIfAbsent(task.mockedClass, k -> new ArrayList<>()).addAll(clones);
+            }
+        }
+        return result;
+    }
+
     /**
      * Core detection logic for one (mockedClass, packageName) group.
      */
     private List<MockCloneInstance> detectClonesInGroup(String mockedClass, String packageName,
             List<MockSequence> group) {
+        GroupDetectionEvent event = new GroupDetectionEvent();
+        event.begin();
+        MockCloneMiner miner = new MockCloneMiner(topK, parallelMiningThreshold);
+        if (memo == null) {
+            List<MockCloneInstance> clones = mineGroup(miner, mockedClass, packageName, group);
+            commit(event, mockedClass, packageName, group, miner.patternCount(), clones, false);
+            return clones;
+        }
+
+        String fingerprint = DetectionMemo.fingerprint("topK=" + topK, mockedClass, packageName, group);
+        List<MockCloneInstance> cached = memo.lookup(fingerprint, mockedClass, packageName, group);
+        if (cached != null) {
+            commit(event, mockedClass, packageName, group, 0, cached, true);
+            return cached;
+        }
+        int[] overlapBefore = new int[group.size()];
+        for (int i = 0; i < group.size(); i++) {
+            overlapBefore[i] = group.get(i).overlapLines.size();
+        }
+        List<MockCloneInstance> clones = mineGroup(miner, mockedClass, packageName, group);
+        memo.store(fingerprint, group, overlapBefore, clones);
+        commit(event, mockedClass, packageName, group, miner.patternCount(), clones, false);
+        return clones;
+    }
+
+    /**
+     * Ends and, if JFR is recording it, commits the event of one group.
+     */
+    private static void commit(GroupDetectionEvent event, String mockedClass, String packageName,
+            List<MockSequence> group, int frequentItemsets, List<MockCloneInstance> clones, boolean memoHit) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.mockedClass = mockedClass;
+            event.packageName = packageName;
+            event.sequenceCount = group.size();
+            event.frequentItemsets = frequentItemsets;
+            event.cloneInstances = clones.size();
+            event.memoHit = memoHit;
+            event.commit();
+        }
+    }
+
+    private List<MockCloneInstance> mineGroup(MockCloneMiner miner, String mockedClass, String packageName,
+            List<MockSequence> group) {
         // Step 1: Extract all abstractedSequences (List of List<String>)
         List<List<String>> abstractedSequences = new ArrayList<>();
         Map<MockSequence, List<String>> sequenceMap = new HashMap<>();
@@ -60,7 +433,7 @@ public class MockCloneDetector {
         }
 
         // Step 2: Run frequent pattern mining and detection
-        List<MockCloneInstance> detectedClones = new MockCloneMiner().runMutipStubbing(mockedClass, packageName, group,
+        List<MockCloneInstance> detectedClones = miner.runMutipStubbing(mockedClass, packageName, group,
                 abstractedSequences);
 
         // === 新增 Step 3: 无 stub 处理 ===
@@ -125,8 +498,8 @@ public class MockCloneDetector {
                         instance.sequences.add(seq);
                         for (int k : seq.rawStatementInfo.keySet()) {
                             StatementInfo stmt = seq.rawStatementInfo.get(k);
-                            if (!stmt.type.equals("STUBBING") && !stmt.type.equals("VERIFICATION")
-                                    && stmt.isMockRelated) {
+                            if (stmt.type != StatementInfo.Kind.STUBBING
+                                    && stmt.type != StatementInfo.Kind.VERIFICATION && stmt.isMockRelated) {
                                 seq.overlapLines.add(k);
                                 break; // 只取第一个相关语句
                             }
@@ -9,7 +9,31 @@ import java.util.stream.Collectors;
 
 public class MockCloneMiner {
 
-    private static final int MIN_SUPPORT = 2;
+    static final int MIN_SUPPORT = 2;
+
+    // 0 = mine every frequent pattern with Apriori; > 0 = only the top-k patterns by score
+    private final int topK;
+    // groups with at least this many sequences are mined on multiple cores; 0 = never
+    private final int parallelMiningThreshold;
+    // frequent patterns mined by the last run; for top-k, the patterns it emitted
+    private int patternCount = 0;
+
+    public MockCloneMiner() {
+        this(0);
+    }
+
+    public MockCloneMiner(int topK) {
+        this(topK, 0);
+    }
+
+    public MockCloneMiner(int topK, int parallelMiningThreshold) {
+        this.topK = topK;
+        this.parallelMiningThreshold = parallelMiningThreshold;
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
 
     /**
      * Execute full detection pipeline for a single (mockedClass, packageName)
@@ -20,107 +44,115 @@ public class MockCloneMiner {
             List<MockSequence> group,
             List<List<String>> abstractedSequences) {
 
-        // Step 2: Run Apriori to mine frequent unordered itemsets
-        AprioriMiner miner = new AprioriMiner();
-        Map<Set<String>, Set<Integer>> frequentPatterns = miner.mine(abstractedSequences, MIN_SUPPORT);
+        // Step 2+3: patterns in descending priority score |Ej| * (|C(Ej)| - 1)
+        Iterator<Map.Entry<Set<String>, Set<Integer>>> rankedPatterns;
+        if (topK > 0) {
+            // the top-k miner already emits patterns in score order, while it is still mining
+            rankedPatterns = counted(new TopKPatternMiner().iterator(abstractedSequences, MIN_SUPPORT, topK));
+        } else if (parallelMiningThreshold > 0 && group.size() >= parallelMiningThreshold) {
+            // giant group: mine its prefix classes on all cores, same result as Apriori
+            Map<Set<String>, Set<Integer>> patterns = new ParallelPatternMiner().mine(abstractedSequences, MIN_SUPPORT);
+            patternCount = patterns.size();
+            rankedPatterns = rankByScore(patterns);
+        } else {
+            AprioriMiner miner = new AprioriMiner();
+            Map<Set<String>, Set<Integer>> patterns = miner.mine(abstractedSequences, MIN_SUPPORT);
+            patternCount = patterns.size();
+            rankedPatterns = rankByScore(patterns);
+        }
+
+        return assignAndBuild(mockedClass, packageName, group, abstractedSequences, rankedPatterns);
+    }
+
+    /**
+     * Runs Steps 3-6 on patterns mined elsewhere, e.g. the closed itemsets of
+     * {@link CooccurrenceMiner}. Score ties keep the map's iteration order.
+     */
+    public List<MockCloneInstance> runWithPatterns(String mockedClass,
+            String packageName,
+            List<MockSequence> group,
+            List<List<String>> abstractedSequences,
+            Map<Set<String>, Set<Integer>> frequentPatterns) {
+        patternCount = frequentPatterns.size();
+        return assignAndBuild(mockedClass, packageName, group, abstractedSequences, rankByScore(frequentPatterns));
+    }
 
-        // Step 3: Sort patterns by priority score: |Ej| * (|C(Ej)| - 1)
-        List<Map.Entry<Set<String>, Set<Integer>>> sortedPatterns = new ArrayList<>(frequentPatterns.entrySet());
-        sortedPatterns.sort((a, b) -> {
-            int scoreA = a.getKey().size() * (a.getValue().size() - 1);
-            int scoreB = b.getKey().size() * (b.getValue().size() - 1);
-            return Integer.compare(scoreB, scoreA); // descending
-        });
+    private List<MockCloneInstance> assignAndBuild(String mockedClass,
+            String packageName,
+            List<MockSequence> group,
+            List<List<String>> abstractedSequences,
+            Iterator<Map.Entry<Set<String>, Set<Integer>>> rankedPatterns) {
 
         // Step 4: Greedy assignment of sequences
-        Map<Integer, Set<String>> assigned = new HashMap<>(); // sequence index -> assigned pattern
-        Map<Set<String>, Set<Integer>> finalAssignments = new LinkedHashMap<>();
-
-        for (Map.Entry<Set<String>, Set<Integer>> entry : sortedPatterns) {
-            Set<String> pattern = entry.getKey();
-            Set<Integer> candidates = entry.getValue();
-
-            Set<Integer> accepted = new HashSet<>();
-            for (Integer idx : candidates) {
-                if (!assigned.containsKey(idx)) {
-                    assigned.put(idx, pattern);
-                    accepted.add(idx);
+        // Patterns are taken from the queue only while some coverable sequence is
+        // still unassigned; every later pattern would have a marginal gain of 0.
+        int[] owner = new int[group.size()]; // sequence index -> rank of its pattern, -1 if unassigned
+        Arrays.fill(owner, -1);
+        int unassigned = countCoverable(abstractedSequences);
+
+        List<RankedPattern> taken = new ArrayList<>(); // patterns in the order they left the queue
+        List<List<Integer>> patternsOfSequence = new ArrayList<>(); // sequence index -> ranks that contain it
+        for (int i = 0; i < group.size(); i++) {
+            patternsOfSequence.add(new ArrayList<>());
+        }
+
+        while (unassigned > 0 && rankedPatterns.hasNext()) {
+            Map.Entry<Set<String>, Set<Integer>> entry = rankedPatterns.next();
+            RankedPattern pattern = new RankedPattern(entry.getKey(), entry.getValue(), taken.size());
+            taken.add(pattern);
+
+            for (Integer idx : pattern.candidates) {
+                patternsOfSequence.get(idx).add(pattern.rank);
+                if (owner[idx] < 0) {
+                    owner[idx] = pattern.rank;
+                    pattern.accepted.add(idx);
+                    unassigned--;
                 }
             }
-            if (!accepted.isEmpty()) {
-                finalAssignments.put(pattern, accepted);
-            }
         }
+
         // Step 5: Cleanup of low-coverage patterns
-        // Step 5: Cleanup low-coverage patterns, reassign freed sequences, with max
-        // iteration limit
-        int maxIterations = group.size() * 2;
-        int iterationCount = 0;
-        boolean changed = true;
-
-        while (changed && iterationCount < maxIterations) {
-            iterationCount++;
-            changed = false;
-
-            // 5.1 找出覆盖数 < 2 的子序列模式
-            List<Set<String>> toRemove = new ArrayList<>();
-            for (Map.Entry<Set<String>, Set<Integer>> e : finalAssignments.entrySet()) {
-                if (e.getValue().size() < 2) {
-                    toRemove.add(e.getKey());
-                }
+        // A pattern covering < 2 sequences is dropped, and each sequence it releases
+        // goes to the best-ranked surviving pattern that contains it. Survivors only
+        // grow, so one round reaches the fixed point.
+        List<Integer> released = new ArrayList<>();
+        for (RankedPattern pattern : taken) {
+            if (!pattern.accepted.isEmpty() && pattern.accepted.size() < 2) {
+                released.addAll(pattern.accepted);
+                pattern.accepted.clear();
             }
+        }
 
-            // 如果有模式需要移除，就移除之，并释放它所覆盖的 sequence
-            if (!toRemove.isEmpty()) {
-                changed = true;
-                for (Set<String> pattern : toRemove) {
-                    Set<Integer> seqIdxs = finalAssignments.get(pattern);
-                    // 释放
-                    for (Integer idx : seqIdxs) {
-                        assigned.remove(idx);
-                    }
-                    finalAssignments.remove(pattern);
+        Set<RankedPattern> grown = new LinkedHashSet<>();
+        for (Integer idx : released) {
+            owner[idx] = -1;
+            for (int rank : patternsOfSequence.get(idx)) {
+                RankedPattern survivor = taken.get(rank);
+                if (!survivor.accepted.isEmpty()) {
+                    owner[idx] = rank;
+                    grown.add(survivor);
+                    break;
                 }
             }
-
-            // 5.2 尝试对 freed sequences 重新分配
-            // 只要 assigned 中不包含 idx，就可分给 sortedPatterns 的模式
-            boolean reassigned = false;
-            for (Map.Entry<Set<String>, Set<Integer>> entry : sortedPatterns) {
-                Set<String> pattern = entry.getKey();
-                // 如果这个 pattern 已经在 finalAssignments 中被清理掉，不再重新启用它
-                // 如果你想允许被移除的模式再次尝试，也可以删除下面的 if
-                if (!finalAssignments.containsKey(pattern)) {
-                    continue;
-                }
-
-                Set<Integer> candidates = entry.getValue();
-                Set<Integer> accepted = finalAssignments.getOrDefault(pattern, new HashSet<>());
-                boolean updated = false;
-                for (Integer idx : candidates) {
-                    if (!assigned.containsKey(idx)) {
-                        assigned.put(idx, pattern);
-                        accepted.add(idx);
-                        updated = true;
-                    }
-                }
-                if (updated) {
-                    finalAssignments.put(pattern, accepted);
-                    reassigned = true;
+        }
+        for (RankedPattern survivor : grown) {
+            // keep the candidates' iteration order when adding, as a full sweep would
+            for (Integer idx : survivor.candidates) {
+                if (owner[idx] == survivor.rank) {
+                    survivor.accepted.add(idx);
                 }
             }
-
-            if (reassigned) {
-                changed = true;
-            }
         }
 
         // Step 6: Build MockCloneInstance results
         List<MockCloneInstance> results = new ArrayList<>();
 
-        for (Map.Entry<Set<String>, Set<Integer>> entry : finalAssignments.entrySet()) {
-            Set<String> sharedStatements = entry.getKey();
-            Set<Integer> seqIndices = entry.getValue();
+        for (RankedPattern pattern : taken) {
+            if (pattern.accepted.isEmpty()) {
+                continue;
+            }
+            Set<String> sharedStatements = pattern.items;
+            Set<Integer> seqIndices = pattern.accepted;
 
             MockCloneInstance instance = new MockCloneInstance();
             instance.sequences = seqIndices.stream().map(group::get).collect(Collectors.toList());
@@ -165,4 +197,114 @@ public class MockCloneMiner {
 
         return results;
     }
+
+    /**
+     * Queues Apriori's patterns by descending score; ties keep the mining order.
+     * Building the heap is linear, and only the patterns actually polled pay
+     * for ordering.
+     */
+    private static Iterator<Map.Entry<Set<String>, Set<Integer>>> rankByScore(
+            Map<Set<String>, Set<Integer>> frequentPatterns) {
+        List<QueuedPattern> queued = new ArrayList<>(frequentPatterns.size());
+        int order = 0;
+        for (Map.Entry<Set<String>, Set<Integer>> entry : frequentPatterns.entrySet()) {
+            queued.add(new QueuedPattern(entry, order++));
+        }
+        PriorityQueue<QueuedPattern> queue = new PriorityQueue<>(queued);
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<Set<String>, Set<Integer>> next() {
+                if (queue.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                return queue.poll().entry;
+            }
+        };
+    }
+
+    /**
+     * Counts the patterns of a lazy miner as they are taken.
+     */
+    private Iterator<Map.Entry<Set<String>, Set<Integer>>> counted(
+            Iterator<Map.Entry<Set<String>, Set<Integer>>> patterns) {
+        patternCount = 0;
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return patterns.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Set<String>, Set<Integer>> next() {
+                patternCount++;
+                return patterns.next();
+            }
+        };
+    }
+
+    /**
+     * Number of sequences that can be covered by any pattern at all, i.e. that
+     * contain at least one statement shared with another sequence.
+     */
+    private static int countCoverable(List<List<String>> abstractedSequences) {
+        Map<String, Integer> support = new HashMap<>();
+        for (List<String> sequence : abstractedSequences) {
+            for (String item : new HashSet<>(sequence)) {
+                support.merge(item, 1, Integer::sum);
+            }
+        }
+        int coverable = 0;
+        for (List<String> sequence : abstractedSequences) {
+            for (String item : sequence) {
+                if (support.get(item) >= MIN_SUPPORT) {
+                    coverable++;
+                    break;
+                }
+            }
+        }
+        return coverable;
+    }
+
+    private static final class QueuedPattern implements Comparable<QueuedPattern> {
+        final Map.Entry<Set<String>, Set<Integer>> entry;
+        final int score;
+        final int order;
+
+        QueuedPattern(Map.Entry<Set<String>, Set<Integer>> entry, int order) {
+            this.entry = entry;
+            this.score = TopKPatternMiner.score(entry.getKey().size(), entry.getValue().size());
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(QueuedPattern other) {
+            if (score != other.score) {
+                return Integer.compare(other.score, score); // descending
+            }
+            return Integer.compare(order, other.order);
+        }
+    }
+
+    /**
+     * A pattern once it has left the queue, identified by its rank instead of
+     * hashing its statement set on every lookup.
+     */
+    private static final class RankedPattern {
+        final Set<String> items;
+        final Set<Integer> candidates;
+        final int rank;
+        final Set<Integer> accepted = new HashSet<>();
+
+        RankedPattern(Set<String> items, Set<Integer> candidates, int rank) {
+            this.items = items;
+            this.candidates = candidates;
+            this.rank = rank;
+        }
+    }
 }
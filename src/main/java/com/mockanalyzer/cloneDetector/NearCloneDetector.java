@@ -0,0 +1,276 @@
+package com.mockanalyzer.cloneDetector;
+
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.NearCloneInstance;
+
+import java.util.*;
+
+/**
+ * Fuzzy clone detection: finds sequences whose abstracted statement sets have
+ * a Jaccard similarity of at least the given threshold, without comparing
+ * every pair.
+ *
+ * Per (mockedClass, packageName) group:
+ * 1. sequences with exactly the same statement set are collapsed, so a bucket
+ *    of identical set-ups costs nothing extra;
+ * 2. every distinct set gets a MinHash signature;
+ * 3. signatures are split into bands (locality-sensitive hashing), and only
+ *    sets that share a band bucket are compared;
+ * 4. the most frequent set not yet grouped becomes a representative and takes
+ *    every ungrouped bucket-mate whose exact Jaccard similarity to it reaches
+ *    the threshold.
+ * Every member of a near-clone group is within the threshold of the
+ * representative, so groups do not chain (A~B and B~C does not put A and C
+ * together when A and C are too far apart). Two members can still be up to
+ * twice the distance apart. A bucket is compared with its representatives
+ * only, not pairwise, and grouped sets leave it; each distinct set lands in a
+ * constant number of buckets, so the run time stays close to linear in the
+ * number of sequences.
+ */
+public class NearCloneDetector {
+
+    private static final int NUM_HASHES = 64;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final double threshold;
+    private final int bands;
+    private final int rows;
+    private final long[] hashSeeds;
+
+    /**
+     * @param threshold minimum Jaccard similarity (0 < threshold ≤ 1) of a near-clone pair
+     */
+    public NearCloneDetector(double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Near-clone threshold must be in (0, 1]: " + threshold);
+        }
+        this.threshold = threshold;
+
+        // choose bands * rows = NUM_HASHES so the LSH threshold (1/b)^(1/r) is closest to ours
+        int bestRows = 1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int r = 1; r <= NUM_HASHES; r++) {
+            if (NUM_HASHES % r != 0)
+                continue;
+            double lshThreshold = Math.pow(1.0 / (NUM_HASHES / r), 1.0 / r);
+            // prefer a slightly lower LSH threshold: it only costs extra verification, not recall
+            double distance = Math.abs(lshThreshold - (threshold - 0.05));
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestRows = r;
+            }
+        }
+        this.rows = bestRows;
+        this.bands = NUM_HASHES / bestRows;
+
+        Random random = new Random(SEED);
+        this.hashSeeds = new long[NUM_HASHES];
+        for (int i = 0; i < NUM_HASHES; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Entry point: group by mockedClass + packageName, return near clones grouped by mockedClass.
+     */
+    public Map<String, List<NearCloneInstance>> detect(List<MockSequence> allSequences) {
+        Map<String, List<MockSequence>> grouped = new LinkedHashMap<>();
+        for (MockSequence seq : allSequences) {
+            if (seq.abstractedStatement.isEmpty())
+                continue;
+            grouped.computeIfAbsent(seq.mockedClass + "#" + seq.packageName, k -> new ArrayList<>()).add(seq);
+        }
+
+        Map<String, List<NearCloneInstance>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<MockSequence>> entry : grouped.entrySet()) {
+            if (entry.getValue().size() < 2)
+                continue;
+            String[] parts = entry.getKey().split("#", 2);
+            List<NearCloneInstance> nearClones = detectInGroup(parts[0], parts[1], entry.getValue());
+            if (!nearClones.isEmpty()) {
+                result.computeIfAbsent(parts[0], k -> new ArrayList<>()).addAll(nearClones);
+            }
+        }
+        return result;
+    }
+
+    List<NearCloneInstance> detectInGroup(String mockedClass, String packageName, List<MockSequence> group) {
+        List<List<String>> abstractedSequences = new ArrayList<>();
+        for (MockSequence seq : group) {
+            abstractedSequences.add(new ArrayList<>(seq.abstractedStatement.values()));
+        }
+        StatementIndex index = new StatementIndex(abstractedSequences);
+
+        // Step 1: collapse identical statement sets
+        Map<ItemsKey, Integer> distinctIds = new LinkedHashMap<>();
+        List<int[]> distinctSets = new ArrayList<>();
+        List<List<Integer>> members = new ArrayList<>();
+        for (int s = 0; s < group.size(); s++) {
+            int[] set = index.sequences[s];
+            Integer id = distinctIds.get(new ItemsKey(set));
+            if (id == null) {
+                id = distinctSets.size();
+                distinctIds.put(new ItemsKey(set), id);
+                distinctSets.add(set);
+                members.add(new ArrayList<>());
+            }
+            members.get(id).add(s);
+        }
+        int n = distinctSets.size();
+        if (n < 2) {
+            return Collections.emptyList();
+        }
+
+        // Step 2: MinHash signatures over interned statement ids
+        long[] statementHashes = new long[index.statements.size()];
+        for (int id = 0; id < statementHashes.length; id++) {
+            statementHashes[id] = mix(index.statements.get(id).hashCode());
+        }
+        long[][] signatures = new long[n][];
+        for (int d = 0; d < n; d++) {
+            signatures[d] = signature(distinctSets.get(d), statementHashes);
+        }
+
+        // Step 3: LSH buckets, one map per band
+        long[][] bandKeys = new long[n][bands];
+        List<Map<Long, List<Integer>>> buckets = new ArrayList<>();
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> bandBuckets = new HashMap<>();
+            for (int d = 0; d < n; d++) {
+                bandKeys[d][band] = bandKey(signatures[d], band);
+                bandBuckets.computeIfAbsent(bandKeys[d][band], k -> new ArrayList<>()).add(d);
+            }
+            buckets.add(bandBuckets);
+        }
+
+        // Step 4: representatives, most sequences first, take their bucket-mates within the threshold
+        List<Integer> order = new ArrayList<>();
+        for (int d = 0; d < n; d++) {
+            order.add(d);
+        }
+        order.sort((a, b) -> members.get(b).size() != members.get(a).size()
+                ? members.get(b).size() - members.get(a).size()
+                : a - b);
+        boolean[] grouped = new boolean[n];
+        int[] comparedWith = new int[n]; // last representative a set was compared with
+        Arrays.fill(comparedWith, -1);
+        List<List<Integer>> groups = new ArrayList<>();
+        List<Double> minSimilarities = new ArrayList<>();
+        for (int representative : order) {
+            if (grouped[representative])
+                continue;
+            grouped[representative] = true;
+            List<Integer> sets = new ArrayList<>();
+            sets.add(representative);
+            double minSimilarity = 1.0;
+            for (int band = 0; band < bands; band++) {
+                List<Integer> bucket = buckets.get(band).get(bandKeys[representative][band]);
+                int kept = 0;
+                for (int d : bucket) {
+                    if (!grouped[d] && comparedWith[d] != representative) {
+                        comparedWith[d] = representative;
+                        double similarity = jaccard(distinctSets.get(representative), distinctSets.get(d));
+                        if (similarity >= threshold) {
+                            grouped[d] = true;
+                            sets.add(d);
+                            minSimilarity = Math.min(minSimilarity, similarity);
+                        }
+                    }
+                    // grouped sets are never compared again
+                    if (!grouped[d]) {
+                        bucket.set(kept++, d);
+                    }
+                }
+                bucket.subList(kept, bucket.size()).clear();
+            }
+            if (sets.size() >= 2) {
+                Collections.sort(sets);
+                groups.add(sets);
+                minSimilarities.add(minSimilarity);
+            }
+        }
+
+        // Step 5: build near-clone groups, in the order of their first sequence
+        List<Integer> groupOrder = new ArrayList<>();
+        for (int g = 0; g < groups.size(); g++) {
+            groupOrder.add(g);
+        }
+        groupOrder.sort(Comparator.comparing(g -> groups.get(g).get(0)));
+
+        List<NearCloneInstance> results = new ArrayList<>();
+        for (int g : groupOrder) {
+            List<Integer> sets = groups.get(g);
+
+            NearCloneInstance instance = new NearCloneInstance();
+            instance.mockedClass = mockedClass;
+            instance.packageName = packageName;
+
+            int[] shared = distinctSets.get(sets.get(0));
+            Set<Integer> union = new TreeSet<>();
+            List<Integer> sequenceIndices = new ArrayList<>();
+            for (int d : sets) {
+                shared = StatementIndex.intersect(shared, distinctSets.get(d));
+                for (int id : distinctSets.get(d)) {
+                    union.add(id);
+                }
+                sequenceIndices.addAll(members.get(d));
+            }
+            Collections.sort(sequenceIndices);
+            for (int id : shared) {
+                union.remove(id);
+            }
+
+            instance.sharedStatements = new ArrayList<>(index.statementsOf(shared));
+            instance.differingStatements = new ArrayList<>(
+                    index.statementsOf(union.stream().mapToInt(Integer::intValue).toArray()));
+            instance.similarity = minSimilarities.get(g);
+            instance.sequences = new ArrayList<>();
+            for (int s : sequenceIndices) {
+                instance.sequences.add(group.get(s));
+            }
+            instance.sequenceCount = instance.sequences.size();
+            results.add(instance);
+        }
+        return results;
+    }
+
+    private long[] signature(int[] set, long[] statementHashes) {
+        long[] minima = new long[NUM_HASHES];
+        Arrays.fill(minima, Long.MAX_VALUE);
+        for (int id : set) {
+            long base = statementHashes[id];
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long h = mix(base ^ hashSeeds[i]);
+                if (h < minima[i]) {
+                    minima[i] = h;
+                }
+            }
+        }
+        return minima;
+    }
+
+    private long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            key = key * 31 + signature[r];
+        }
+        return mix(key);
+    }
+
+    private static double jaccard(int[] a, int[] b) {
+        int common = StatementIndex.intersect(a, b).length;
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,194 @@
+package com.mockanalyzer.cloneDetector;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multi-core replacement for {@link AprioriMiner} on a single large group.
+ *
+ * The search space is split into prefix equivalence classes: all itemsets
+ * whose smallest item is i form one class, and within it all itemsets starting
+ * with (i, j) form a sub-class, and so on. Classes share nothing but the
+ * read-only TID sets, so they are mined depth-first on a fork-join pool with
+ * BitSet intersections instead of transaction scans.
+ *
+ * The result is the same map AprioriMiner returns, including its iteration
+ * order, so the greedy assignment (which breaks score ties by that order)
+ * produces the same clones.
+ */
+public class ParallelPatternMiner {
+
+    // sub-classes at most this deep are forked; deeper ones are mined in the current task
+    private static final int FORK_DEPTH = 2;
+
+    /**
+     * Runs the miner. Inside a fork-join worker (e.g. the parallel group
+     * detection) the work is forked into that pool, otherwise into the common pool.
+     *
+     * @param transactions list of mock statement transactions
+     * @param minSupport   minimum number of transactions (≥2) an itemset must appear in
+     * @return map of frequent itemsets to set of transaction indices, in AprioriMiner order
+     */
+    public Map<Set<String>, Set<Integer>> mine(List<List<String>> transactions, int minSupport) {
+        TidsetIndex index = new TidsetIndex(transactions, minSupport);
+
+        PrefixClassTask root = new PrefixClassTask(index, minSupport, new int[0], null);
+        List<Pattern> found = ForkJoinTask.inForkJoinPool() ? root.invoke() : ForkJoinPool.commonPool().invoke(root);
+
+        return toAprioriOrder(index, transactions, found);
+    }
+
+    private static final class Pattern {
+        final int[] itemIds;
+        final BitSet tids;
+
+        Pattern(int[] itemIds, BitSet tids) {
+            this.itemIds = itemIds;
+            this.tids = tids;
+        }
+    }
+
+    /**
+     * Mines every frequent extension of one prefix, i.e. one equivalence class.
+     */
+    private static final class PrefixClassTask extends RecursiveTask<List<Pattern>> {
+        private final TidsetIndex index;
+        private final int minSupport;
+        private final int[] prefix;
+        private final BitSet prefixTids;
+
+        PrefixClassTask(TidsetIndex index, int minSupport, int[] prefix, BitSet prefixTids) {
+            this.index = index;
+            this.minSupport = minSupport;
+            this.prefix = prefix;
+            this.prefixTids = prefixTids;
+        }
+
+        @Override
+        protected List<Pattern> compute() {
+            List<Pattern> found = new ArrayList<>();
+            if (prefix.length < FORK_DEPTH) {
+                List<PrefixClassTask> subClasses = new ArrayList<>();
+                for (Pattern child : extensions(prefix, prefixTids)) {
+                    found.add(child);
+                    subClasses.add(new PrefixClassTask(index, minSupport, child.itemIds, child.tids));
+                }
+                for (PrefixClassTask sub : invokeAll(subClasses)) {
+                    found.addAll(sub.join());
+                }
+            } else {
+                mineSequentially(prefix, prefixTids, found);
+            }
+            return found;
+        }
+
+        private void mineSequentially(int[] itemIds, BitSet tids, List<Pattern> found) {
+            for (Pattern child : extensions(itemIds, tids)) {
+                found.add(child);
+                mineSequentially(child.itemIds, child.tids, found);
+            }
+        }
+
+        private List<Pattern> extensions(int[] itemIds, BitSet tids) {
+            List<Pattern> children = new ArrayList<>();
+            int last = itemIds.length == 0 ? -1 : itemIds[itemIds.length - 1];
+            for (int j = last + 1; j < index.size(); j++) {
+                BitSet childTids = (BitSet) index.tidsets[j].clone();
+                if (tids != null) {
+                    childTids.and(tids);
+                }
+                if (childTids.cardinality() >= minSupport) {
+                    int[] childIds = Arrays.copyOf(itemIds, itemIds.length + 1);
+                    childIds[itemIds.length] = j;
+                    children.add(new Pattern(childIds, childTids));
+                }
+            }
+            return children;
+        }
+    }
+
+    /**
+     * Rebuilds AprioriMiner's LinkedHashMap order. Level 1 follows the first
+     * appearance of each item in the transactions. A k-itemset is generated
+     * only by merging its two (k-1)-subsets that share the first k-2 items,
+     * and candidates are generated pair by pair (i < j) over the previous
+     * level. So level k is ordered by the level k-1 positions of those two
+     * subsets.
+     */
+    private static Map<Set<String>, Set<Integer>> toAprioriOrder(TidsetIndex index,
+            List<List<String>> transactions, List<Pattern> found) {
+        Map<String, Integer> itemIds = new HashMap<>();
+        for (int i = 0; i < index.size(); i++) {
+            itemIds.put(index.items[i], i);
+        }
+
+        List<List<Pattern>> levels = new ArrayList<>();
+        for (Pattern pattern : found) {
+            while (levels.size() < pattern.itemIds.length) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(pattern.itemIds.length - 1).add(pattern);
+        }
+
+        Map<Set<String>, Set<Integer>> result = new LinkedHashMap<>();
+        if (levels.isEmpty()) {
+            return result;
+        }
+
+        // level 1: first appearance order
+        Map<Integer, Pattern> singles = new HashMap<>();
+        for (Pattern pattern : levels.get(0)) {
+            singles.put(pattern.itemIds[0], pattern);
+        }
+        List<Pattern> previous = new ArrayList<>();
+        for (List<String> transaction : transactions) {
+            for (String item : transaction) {
+                Integer id = itemIds.get(item);
+                Pattern single = id == null ? null : singles.remove(id);
+                if (single != null) {
+                    previous.add(single);
+                    result.put(Collections.singleton(item), TidsetIndex.toTidSet(single.tids));
+                }
+            }
+        }
+
+        for (int level = 1; level < levels.size(); level++) {
+            Map<ItemsKey, Integer> positions = new HashMap<>();
+            for (int pos = 0; pos < previous.size(); pos++) {
+                positions.put(new ItemsKey(previous.get(pos).itemIds), pos);
+            }
+
+            List<Pattern> current = levels.get(level);
+            Map<Pattern, int[]> mergeKeys = new IdentityHashMap<>();
+            for (Pattern pattern : current) {
+                int k = pattern.itemIds.length;
+                int a = positions.get(new ItemsKey(withoutIndex(pattern.itemIds, k - 1)));
+                int b = positions.get(new ItemsKey(withoutIndex(pattern.itemIds, k - 2)));
+                mergeKeys.put(pattern, new int[] { Math.min(a, b), Math.max(a, b) });
+            }
+            current.sort((x, y) -> {
+                int[] kx = mergeKeys.get(x);
+                int[] ky = mergeKeys.get(y);
+                return kx[0] != ky[0] ? Integer.compare(kx[0], ky[0]) : Integer.compare(kx[1], ky[1]);
+            });
+
+            for (Pattern pattern : current) {
+                result.put(index.itemsOf(pattern.itemIds), TidsetIndex.toTidSet(pattern.tids));
+            }
+            previous = current;
+        }
+        return result;
+    }
+
+    private static int[] withoutIndex(int[] itemIds, int skip) {
+        int[] subset = new int[itemIds.length - 1];
+        for (int i = 0, j = 0; i < itemIds.length; i++) {
+            if (i != skip) {
+                subset[j++] = itemIds[i];
+            }
+        }
+        return subset;
+    }
+}
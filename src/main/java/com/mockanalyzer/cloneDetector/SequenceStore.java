@@ -0,0 +1,206 @@
+package com.mockanalyzer.cloneDetector;
+
+import com.google.gson.Gson;
+import com.mockanalyzer.model.MockSequence;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Disk-backed store of mock sequences, grouped by mockedClass + "#" + packageName.
+ *
+ * Sequences are appended to a file as JSON as they are produced; the heap
+ * only keeps the offset and length of each one, per group. Detection then
+ * loads one group at a time from a memory-mapping of the file, so the heap
+ * needed for sequences is bounded by the largest group (times the number of
+ * groups mined at once) instead of by the project.
+ *
+ * Loaded sequences are fresh copies: changes made by detection (overlap
+ * lines) are not written back, and loading a group twice gives two copies.
+ * The file is deleted on close.
+ */
+public class SequenceStore implements Closeable {
+
+    private static final Gson GSON = new Gson();
+    // largest region of the file mapped at once (a mapping is limited to 2GB)
+    private static final long MAP_CHUNK = 1L << 30;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final OutputStream out;
+    private long written = 0;
+    private int sequenceCount = 0;
+    // same map type as the pipeline's groups, so groups come out in the same order
+    private final Map<String, Extents> groups = new HashMap<>();
+
+    // mappings of the file as of mappedLength, one per MAP_CHUNK; rebuilt when the file has grown
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long mappedLength = -1;
+
+    /**
+     * Offsets and lengths of the sequences of one group, in insertion order.
+     */
+    private static final class Extents {
+        long[] offsets = new long[4];
+        int[] lengths = new int[4];
+        int size = 0;
+
+        void add(long offset, int length) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+    }
+
+    private SequenceStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+    }
+
+    /**
+     * Creates an empty store backed by the given file, which is overwritten.
+     */
+    public static SequenceStore create(Path file) throws IOException {
+        return new SequenceStore(file);
+    }
+
+    public synchronized void add(MockSequence seq) {
+        byte[] json = GSON.toJson(seq).getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill sequence to " + file, e);
+        }
+        groups.computeIfAbsent(seq.mockedClass + "#" + seq.packageName, k -> new Extents()).add(written, json.length);
+        written += json.length;
+        sequenceCount++;
+    }
+
+    public void addAll(Collection<MockSequence> sequences) {
+        for (MockSequence seq : sequences) {
+            add(seq);
+        }
+    }
+
+    public synchronized int size() {
+        return sequenceCount;
+    }
+
+    public synchronized long bytesWritten() {
+        return written;
+    }
+
+    /**
+     * The group keys (mockedClass + "#" + packageName).
+     */
+    public synchronized List<String> groupKeys() {
+        return new ArrayList<>(groups.keySet());
+    }
+
+    public synchronized int groupSize(String key) {
+        Extents extents = groups.get(key);
+        return extents == null ? 0 : extents.size;
+    }
+
+    /**
+     * Reads the sequences of one group, in the order they were added.
+     */
+    public List<MockSequence> load(String key) {
+        long[] offsets;
+        int[] lengths;
+        int size;
+        List<MappedByteBuffer> mapped;
+        synchronized (this) {
+            Extents extents = groups.get(key);
+            if (extents == null) {
+                return new ArrayList<>();
+            }
+            offsets = extents.offsets;
+            lengths = extents.lengths;
+            size = extents.size;
+            mapped = mapFile();
+        }
+
+        List<MockSequence> group = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            group.add(GSON.fromJson(StandardCharsets.UTF_8.decode(read(mapped, offsets[i], lengths[i])).toString(),
+                    MockSequence.class));
+        }
+        return group;
+    }
+
+    /**
+     * Flushes pending writes and maps the whole file, unless it is already
+     * mapped up to its current length. Caller holds the lock.
+     */
+    private List<MappedByteBuffer> mapFile() {
+        if (mappedLength == written) {
+            return new ArrayList<>(chunks);
+        }
+        try {
+            out.flush();
+            chunks.clear();
+            for (long start = 0; start < written; start += MAP_CHUNK) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_CHUNK, written - start)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map spilled sequences " + file, e);
+        }
+        mappedLength = written;
+        return new ArrayList<>(chunks);
+    }
+
+    private ByteBuffer read(List<MappedByteBuffer> mapped, long offset, int length) {
+        int chunk = (int) (offset / MAP_CHUNK);
+        int position = (int) (offset - chunk * MAP_CHUNK);
+        if (position + (long) length <= MAP_CHUNK) {
+            ByteBuffer view = mapped.get(chunk).duplicate();
+            view.position(position);
+            view.limit(position + length);
+            return view;
+        }
+        // spans two mappings: a plain positional read
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file at " + (offset + buffer.position()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled sequences " + file, e);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        chunks.clear();
+        out.close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // still mapped (Windows); gone once the mappings are collected
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.mockanalyzer.cloneDetector;
+
+import java.util.*;
+
+/**
+ * Inverted index over abstracted statements. Every distinct statement is
+ * interned to an int id; each sequence becomes a sorted array of distinct
+ * statement ids, and each statement id has the ascending list of sequences
+ * that contain it.
+ */
+class StatementIndex {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    final List<String> statements = new ArrayList<>();
+
+    final int[][] sequences;
+    final int[][] postings;
+
+    StatementIndex(List<List<String>> transactions) {
+        this.sequences = new int[transactions.size()][];
+        List<List<Integer>> postingLists = new ArrayList<>();
+
+        for (int s = 0; s < transactions.size(); s++) {
+            TreeSet<Integer> statementIds = new TreeSet<>();
+            for (String statement : transactions.get(s)) {
+                statementIds.add(intern(statement));
+            }
+            sequences[s] = statementIds.stream().mapToInt(Integer::intValue).toArray();
+            for (int id : sequences[s]) {
+                while (postingLists.size() <= id) {
+                    postingLists.add(new ArrayList<>());
+                }
+                postingLists.get(id).add(s);
+            }
+        }
+
+        this.postings = new int[postingLists.size()][];
+        for (int id = 0; id < postings.length; id++) {
+            postings[id] = postingLists.get(id).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private int intern(String statement) {
+        Integer id = ids.get(statement);
+        if (id == null) {
+            id = statements.size();
+            ids.put(statement, id);
+            statements.add(statement);
+        }
+        return id;
+    }
+
+    Set<String> statementsOf(int[] statementIds) {
+        Set<String> itemset = new TreeSet<>();
+        for (int id : statementIds) {
+            itemset.add(statements.get(id));
+        }
+        return itemset;
+    }
+
+    /**
+     * Sequences that contain every given statement, by intersecting postings
+     * starting from the shortest list.
+     */
+    int[] support(int[] statementIds) {
+        int[] order = statementIds.clone();
+        Arrays.sort(order);
+        int shortest = order[0];
+        for (int id : order) {
+            if (postings[id].length < postings[shortest].length) {
+                shortest = id;
+            }
+        }
+        int[] result = postings[shortest];
+        for (int id : order) {
+            if (id != shortest) {
+                result = intersect(result, postings[id]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Intersection of two ascending int arrays.
+     */
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
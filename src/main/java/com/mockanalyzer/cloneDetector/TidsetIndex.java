@@ -0,0 +1,51 @@
+package com.mockanalyzer.cloneDetector;
+
+import java.util.*;
+
+/**
+ * Vertical view of a transaction list: every frequent item with the BitSet of
+ * transaction indices it appears in. Items are numbered in ascending String
+ * order, so a pattern is always an increasing run of item ids.
+ */
+class TidsetIndex {
+
+    final String[] items;
+    final BitSet[] tidsets;
+
+    TidsetIndex(List<List<String>> transactions, int minSupport) {
+        Map<String, BitSet> byItem = new TreeMap<>();
+        for (int tIdx = 0; tIdx < transactions.size(); tIdx++) {
+            for (String item : transactions.get(tIdx)) {
+                byItem.computeIfAbsent(item, k -> new BitSet()).set(tIdx);
+            }
+        }
+        byItem.values().removeIf(tids -> tids.cardinality() < minSupport);
+
+        this.items = byItem.keySet().toArray(new String[0]);
+        this.tidsets = byItem.values().toArray(new BitSet[0]);
+    }
+
+    int size() {
+        return items.length;
+    }
+
+    Set<String> itemsOf(int[] itemIds) {
+        Set<String> itemset = new TreeSet<>();
+        for (int id : itemIds) {
+            itemset.add(items[id]);
+        }
+        return itemset;
+    }
+
+    /**
+     * Converts a BitSet into the same kind of TID set AprioriMiner produces
+     * (a HashSet filled in ascending order).
+     */
+    static Set<Integer> toTidSet(BitSet tids) {
+        Set<Integer> tidSet = new HashSet<>();
+        for (int t = tids.nextSetBit(0); t >= 0; t = tids.nextSetBit(t + 1)) {
+            tidSet.add(t);
+        }
+        return tidSet;
+    }
+}
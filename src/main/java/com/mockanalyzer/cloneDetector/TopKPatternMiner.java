@@ -0,0 +1,187 @@
+package com.mockanalyzer.cloneDetector;
+
+import java.util.*;
+
+/**
+ * Score-directed miner that returns the k frequent itemsets with the highest
+ * priority score |Ej| * (|C(Ej)| - 1), in descending score order.
+ *
+ * The search is best-first over the itemset tree (items in ascending order).
+ * A branch is expanded only while its upper bound
+ * (size + remaining items) * (support - 1) can still beat the current k-th
+ * best score, and a pattern is emitted as soon as no open branch can produce
+ * a better one. Because of that, callers can consume patterns through
+ * {@link #iterator} while the rest of the tree is still being mined.
+ */
+public class TopKPatternMiner {
+
+    /**
+     * Mines the top-k frequent itemsets.
+     *
+     * @param transactions list of mock statement transactions
+     * @param minSupport   minimum number of transactions (≥2) an itemset must appear in
+     * @param k            number of patterns to return (Integer.MAX_VALUE for all, score-ordered)
+     * @return map of frequent itemsets to transaction indices, in descending score order
+     */
+    public Map<Set<String>, Set<Integer>> mine(List<List<String>> transactions, int minSupport, int k) {
+        Map<Set<String>, Set<Integer>> result = new LinkedHashMap<>();
+        Iterator<Map.Entry<Set<String>, Set<Integer>>> it = iterator(transactions, minSupport, k);
+        while (it.hasNext()) {
+            Map.Entry<Set<String>, Set<Integer>> entry = it.next();
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Lazily mines the top-k frequent itemsets; each call to next() only
+     * explores as much of the search tree as needed to prove the next pattern.
+     */
+    public Iterator<Map.Entry<Set<String>, Set<Integer>>> iterator(List<List<String>> transactions,
+            int minSupport, int k) {
+        return new PatternIterator(new TidsetIndex(transactions, minSupport), minSupport, k);
+    }
+
+    /**
+     * Priority score used for greedy assignment: |Ej| * (|C(Ej)| - 1).
+     */
+    public static int score(int size, int support) {
+        return size * (support - 1);
+    }
+
+    /**
+     * A node of the search tree. A node is queued twice: once as a finished
+     * pattern (key = exact score) and once as an open branch (key = upper bound
+     * of every superset that extends it).
+     */
+    private static final class Node {
+        final int[] itemIds;
+        final BitSet tids;
+        final int support;
+        final int key;
+        final boolean branch;
+        final long order;
+
+        Node(int[] itemIds, BitSet tids, int support, int key, boolean branch, long order) {
+            this.itemIds = itemIds;
+            this.tids = tids;
+            this.support = support;
+            this.key = key;
+            this.branch = branch;
+            this.order = order;
+        }
+    }
+
+    private static final class PatternIterator implements Iterator<Map.Entry<Set<String>, Set<Integer>>> {
+        private final TidsetIndex index;
+        private final int minSupport;
+        private final int k;
+
+        // highest key first; on ties finished patterns go before open branches, then discovery order
+        private final PriorityQueue<Node> queue = new PriorityQueue<>((a, b) -> {
+            if (a.key != b.key) return Integer.compare(b.key, a.key);
+            if (a.branch != b.branch) return a.branch ? 1 : -1;
+            return Long.compare(a.order, b.order);
+        });
+        // the k best pattern scores found so far; its head is the pruning threshold
+        private final PriorityQueue<Integer> best = new PriorityQueue<>();
+
+        private long created = 0;
+        private int emitted = 0;
+        private Node pending;
+
+        PatternIterator(TidsetIndex index, int minSupport, int k) {
+            this.index = index;
+            this.minSupport = minSupport;
+            this.k = k;
+            if (k > 0) {
+                expand(new int[0], null);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending == null && emitted < k) {
+                pending = advance();
+            }
+            return pending != null;
+        }
+
+        @Override
+        public Map.Entry<Set<String>, Set<Integer>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node node = pending;
+            pending = null;
+            emitted++;
+            return new AbstractMap.SimpleImmutableEntry<>(index.itemsOf(node.itemIds),
+                    TidsetIndex.toTidSet(node.tids));
+        }
+
+        private Node advance() {
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                if (node.key < threshold()) {
+                    // nothing left in the queue can make it into the top-k
+                    queue.clear();
+                    return null;
+                }
+                if (!node.branch) {
+                    return node;
+                }
+                expand(node.itemIds, node.tids);
+            }
+            return null;
+        }
+
+        private int threshold() {
+            return best.size() < k ? Integer.MIN_VALUE : best.peek();
+        }
+
+        /**
+         * Queues every frequent one-item extension of the given itemset.
+         */
+        private void expand(int[] itemIds, BitSet tids) {
+            int last = itemIds.length == 0 ? -1 : itemIds[itemIds.length - 1];
+            int size = itemIds.length + 1;
+
+            for (int j = last + 1; j < index.size(); j++) {
+                BitSet childTids = (BitSet) index.tidsets[j].clone();
+                if (tids != null) {
+                    childTids.and(tids);
+                }
+                int support = childTids.cardinality();
+                if (support < minSupport) {
+                    continue;
+                }
+
+                int[] childIds = Arrays.copyOf(itemIds, size);
+                childIds[size - 1] = j;
+
+                int childScore = score(size, support);
+                if (childScore >= threshold()) {
+                    queue.add(new Node(childIds, childTids, support, childScore, false, created++));
+                    recordScore(childScore);
+                }
+
+                int remaining = index.size() - 1 - j;
+                if (remaining > 0) {
+                    int bound = score(size + remaining, support);
+                    if (bound >= threshold()) {
+                        queue.add(new Node(childIds, childTids, support, bound, true, created++));
+                    }
+                }
+            }
+        }
+
+        private void recordScore(int score) {
+            if (best.size() < k) {
+                best.add(score);
+            } else if (score > best.peek()) {
+                best.poll();
+                best.add(score);
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.mockanalyzer.entry;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.exporter.MockCloneExporter;
+import com.mockanalyzer.exporter.MockInfoExporter;
+import com.mockanalyzer.exporter.ProjectSession;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.visitor.SharedJarIndex;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running analyzer serving info/clone requests over HTTP on localhost,
+ * so that type solvers, jar indexes, per-file results and the JIT stay warm
+ * between requests. See {@link ProjectSession} for what is re-done per request.
+ *
+ * Endpoints (parameters URL-encoded, in the query or a form body):
+ * POST /info?project=<root>&output=<mockinfo.json>
+ * POST /clone?project=<root>&output=<clone.json>[&topk=5&parallel&near=0.8...]
+ * POST /status (includes the run metrics accumulated since the daemon started)
+ * POST /shutdown
+ * Any other parameter of /clone is passed on as the detection option of the
+ * same name (e.g. cross-package → --cross-package).
+ *
+ * Listening on loopback does not keep out web pages, which can send simple
+ * cross-site requests to localhost. So only POST is accepted, and every
+ * request must carry "Authorization: Bearer <token>", where the token is
+ * random per start and written to {@link #TOKEN_FILE} in the output
+ * directory, readable by the user only; a cross-site request cannot set
+ * that header without a preflight the daemon never answers. Output paths
+ * (output, memo) must be relative and are resolved under the output
+ * directory.
+ */
+public class AnalyzerDaemon {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    public static final String TOKEN_FILE = "daemon.token";
+
+    private final SharedJarIndex jarIndex = new SharedJarIndex();
+    private final Map<Path, ProjectSession> sessions = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final Path outputDir;
+    private final byte[] token;
+
+    /**
+     * @param outputDir directory that all output paths of requests are resolved under
+     */
+    public AnalyzerDaemon(Path outputDir) throws IOException {
+        this.outputDir = outputDir.toAbsolutePath().normalize();
+        Files.createDirectories(this.outputDir);
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        this.token = hex.toString().getBytes(StandardCharsets.US_ASCII);
+        writeToken(this.outputDir.resolve(TOKEN_FILE), this.token);
+    }
+
+    public void serve(int port) throws IOException, InterruptedException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/info", exchange -> handle(exchange, this::info));
+        server.createContext("/clone", exchange -> handle(exchange, this::cloneRequest));
+        server.createContext("/status", exchange -> handle(exchange, params -> status()));
+        server.createContext("/shutdown", exchange -> handle(exchange, params -> {
+            stopped.countDown();
+            return Collections.singletonMap("status", "stopping");
+        }));
+        server.start();
+        System.out.println("Mock analyzer daemon listening on http://localhost:" + server.getAddress().getPort());
+        System.out.println("Outputs go to " + outputDir + "; the access token is in " + outputDir.resolve(TOKEN_FILE));
+
+        stopped.await();
+        server.stop(1);
+        System.exit(0);
+    }
+
+    private interface Handler {
+        Object handle(Map<String, String> params) throws Exception;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        int code = 200;
+        Object body;
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                code = 405;
+                body = Collections.singletonMap("error", "Only POST is accepted");
+            } else if (!authorized(exchange)) {
+                code = 401;
+                body = Collections.singletonMap("error", "Missing or wrong bearer token (see " + TOKEN_FILE + ")");
+            } else {
+                Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+                try (InputStream in = exchange.getRequestBody()) {
+                    params.putAll(queryParams(new String(in.readAllBytes(), StandardCharsets.UTF_8).trim()));
+                }
+                body = handler.handle(params);
+            }
+        } catch (IllegalArgumentException e) {
+            code = 400;
+            body = Collections.singletonMap("error", e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            code = 500;
+            body = Collections.singletonMap("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        byte[] bytes = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Object info(Map<String, String> params) throws Exception {
+        ProjectSession session = session(params);
+        String output = resolveOutput(required(params, "output")).toString();
+        long start = System.nanoTime();
+        List<MockInfo> mockInfos = session.analyze();
+        MockInfoExporter.writeMockInfoToJson(mockInfos, output);
+        Map<String, Object> result = summary(session, output, start);
+        result.put("mockObjects", mockInfos.size());
+        return result;
+    }
+
+    private Object cloneRequest(Map<String, String> params) throws Exception {
+        ProjectSession session = session(params);
+        String output = resolveOutput(required(params, "output")).toString();
+
+        List<String> options = new ArrayList<>();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (param.getKey().equals("project") || param.getKey().equals("output")) {
+                continue;
+            }
+            options.add("--" + param.getKey());
+            String value = param.getValue();
+            if (param.getKey().equals("memo")) {
+                // a file path too
+                value = resolveOutput(required(params, "memo")).toString();
+            }
+            if (!value.isEmpty() && !value.equals("true")) {
+                options.add(value);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<MockInfo> mockInfos = session.analyze();
+        Map<String, List<MockCloneInstance>> clones = MockCloneExporter.exportClones(mockInfos, output,
+                MockAnalyzerCLI.createDetector(options.toArray(new String[0])));
+        Map<String, Object> result = summary(session, output, start);
+        result.put("cloneInstances", clones.values().stream().mapToInt(List::size).sum());
+        return result;
+    }
+
+    private Object status() {
+        List<Map<String, Object>> projects = new ArrayList<>();
+        for (ProjectSession session : sessions.values()) {
+            Map<String, Object> project = new LinkedHashMap<>();
+            project.put("project", session.projectRoot.toString());
+            project.put("files", session.fileCount);
+            projects.add(project);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("projects", projects);
+        result.put("jarsIndexed", jarIndex.indexedCount());
+        result.put("jarsReused", jarIndex.reusedCount());
+        result.put("metrics", RunMetrics.get().report("daemon"));
+        return result;
+    }
+
+    private ProjectSession session(Map<String, String> params) {
+        Path projectRoot = Paths.get(required(params, "project")).toAbsolutePath().normalize();
+        if (!Files.isDirectory(projectRoot)) {
+            throw new IllegalArgumentException("Project path does not exist: " + projectRoot);
+        }
+        return sessions.computeIfAbsent(projectRoot, root -> new ProjectSession(root, jarIndex));
+    }
+
+    private static Map<String, Object> summary(ProjectSession session, String output, long start) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "ok");
+        result.put("project", session.projectRoot.toString());
+        result.put("output", output);
+        result.put("files", session.fileCount);
+        result.put("reparsedFiles", session.reparsedFiles);
+        result.put("solverRebuilt", session.solverRebuilt);
+        result.put("seconds", (System.nanoTime() - start) / 1e9);
+        return result;
+    }
+
+    /**
+     * A relative output path resolved under the output directory; absolute
+     * paths and ".." segments are rejected.
+     */
+    Path resolveOutput(String output) throws IOException {
+        Path relative = Paths.get(output);
+        if (relative.isAbsolute() || relative.getRoot() != null) {
+            throw new IllegalArgumentException("Output paths must be relative to the output directory: " + output);
+        }
+        for (Path segment : relative) {
+            if (segment.toString().equals("..")) {
+                throw new IllegalArgumentException("Output paths must not contain '..': " + output);
+            }
+        }
+        Path resolved = outputDir.resolve(relative).normalize();
+        if (!resolved.startsWith(outputDir) || resolved.equals(outputDir)) {
+            throw new IllegalArgumentException("Output path is outside the output directory: " + output);
+        }
+        Files.createDirectories(resolved.getParent());
+        return resolved;
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        byte[] presented = header.substring("Bearer ".length()).trim().getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(presented, token);
+    }
+
+    /**
+     * Writes the token readable and writable by the user only (where the
+     * file system has POSIX permissions).
+     */
+    private static void writeToken(Path file, byte[] token) throws IOException {
+        Files.deleteIfExists(file);
+        try {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(file);
+        }
+        Files.write(file, token);
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+}
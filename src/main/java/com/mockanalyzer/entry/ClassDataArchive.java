@@ -0,0 +1,52 @@
+package com.mockanalyzer.entry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates an AppCDS archive of the analyzer from a training run.
+ *
+ * The training run is the given CLI command, run in a child JVM with
+ * -XX:ArchiveClassesAtExit, so every class it loads (JavaParser, the symbol
+ * solver, Gson and the analyzer itself) is stored in the archive already
+ * parsed and verified. Later runs started with -XX:SharedArchiveFile map
+ * the archive instead of loading those classes from the jar.
+ *
+ * The child uses this JVM's java binary and class path; the archive is only
+ * accepted by runs of the same JDK with the same jar.
+ */
+public class ClassDataArchive {
+
+    /**
+     * Runs the training command and writes the archive.
+     *
+     * @param archive      the archive to write (e.g. mock-analyzer.jsa)
+     * @param trainingArgs the CLI arguments of the training run, e.g. a clone of a small project
+     * @return the exit code of the training run
+     */
+    public static int create(Path archive, List<String> trainingArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MockAnalyzerCLI.class.getName());
+        command.addAll(trainingArgs);
+
+        System.out.println("[INFO] Training run: " + String.join(" ", trainingArgs));
+        long start = System.nanoTime();
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0 || !Files.exists(archive)) {
+            System.err.println("[ERROR] Training run failed (exit code " + exitCode + "), no archive written");
+            return exitCode != 0 ? exitCode : 1;
+        }
+        System.out.println("[INFO] CDS archive: " + archive + " (" + Files.size(archive) / 1024 + " KB, "
+                + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        System.out.println("[INFO] Use it with: java -XX:SharedArchiveFile=" + archive + " -jar <mock-analyzer.jar> ...");
+        return 0;
+    }
+}
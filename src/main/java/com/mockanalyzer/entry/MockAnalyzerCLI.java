@@ -3,10 +3,22 @@ package com.mockanalyzer.entry;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.AnalysisPipeline;
+import com.mockanalyzer.exporter.BatchExporter;
+import com.mockanalyzer.exporter.CloneIndex;
+import com.mockanalyzer.exporter.DiffExporter;
 import com.mockanalyzer.exporter.MockCloneExporter;
 import com.mockanalyzer.exporter.MockInfoExporter;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.visitor.IoExecutors;
 
 public class MockAnalyzerCLI {
 
@@ -17,20 +29,97 @@ public class MockAnalyzerCLI {
         }
 
         String mode = args[0];
-
+        // handled before anything else is loaded; analysis classes load with the command that uses them
         switch (mode) {
-            case "info":
-                handleInfo(args);
-                break;
-            case "sequence":
-                handleSequence(args);
-                break;
-            case "clone":
-                handleClone(args);
-                break;
-            default:
-                System.err.println("Unknown command: " + mode);
+            case "help":
+            case "--help":
+            case "-h":
                 printHelp();
+                return;
+            case "cds":
+                handleCds(args);
+                return;
+            case "query":
+                handleQuery(args);
+                return;
+        }
+        RunMetrics.start();
+
+        try {
+            switch (mode) {
+                case "info":
+                    handleInfo(args);
+                    break;
+                case "sequence":
+                    handleSequence(args);
+                    break;
+                case "clone":
+                    handleClone(args);
+                    break;
+                case "batch":
+                    handleBatch(args);
+                    break;
+                case "watch":
+                    handleWatch(args);
+                    break;
+                case "diff":
+                    handleDiff(args);
+                    break;
+                case "daemon":
+                    String port = optionValue(args, "--port");
+                    String outputDir = optionValue(args, "--output-dir");
+                    new AnalyzerDaemon(Paths.get(outputDir == null ? "." : outputDir))
+                            .serve(port == null ? 7878 : Integer.parseInt(port));
+                    break;
+                default:
+                    System.err.println("Unknown command: " + mode);
+                    printHelp();
+            }
+        } catch (IllegalArgumentException e) {
+            // invalid option values and combinations
+            System.err.println("[ERROR] " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void handleQuery(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: query <clone.json|clone.json.idx> [--class <name>] [--package <name>] [--file <path>] [--test <method>] [--statement <abstracted>] [--count]");
+            return;
+        }
+
+        Path report = Paths.get(args[1]);
+        Map<CloneIndex.Key, String> criteria = new LinkedHashMap<>();
+        for (CloneIndex.Key key : CloneIndex.Key.values()) {
+            String value = optionValue(args, "--" + key.option);
+            if (value != null) {
+                criteria.put(key, value);
+            }
+        }
+
+        CloneIndex index;
+        try {
+            index = CloneIndex.open(report);
+        } catch (NoSuchFileException e) {
+            System.err.println("[ERROR] No clone index for " + report + " (written by clone as <clone.json>.idx)");
+            return;
+        }
+        List<CloneIndex.Hit> hits = index.lookup(criteria);
+        if (Arrays.asList(args).contains("--count")) {
+            System.out.println(hits.size());
+        } else {
+            System.out.println(new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(hits));
+        }
+    }
+
+    private static void handleCds(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: cds <archive.jsa> <training command> [args...]");
+            return;
+        }
+        int exitCode = ClassDataArchive.create(Paths.get(args[1]), Arrays.asList(args).subList(2, args.length));
+        if (exitCode != 0) {
+            System.exit(exitCode);
         }
     }
 
@@ -50,10 +139,16 @@ public class MockAnalyzerCLI {
 
         if (!Files.exists(projectRoot)) {
             System.err.println("[ERROR] Project path does not exist: " + projectRoot);
-            return;
+            System.exit(1);
         }
 
-        MockInfoExporter.export(projectRoot, outputPath, runCommand);
+        IoExecutors.setVirtualIo(Arrays.asList(args).contains("--virtual-io"));
+        boolean exported = MockInfoExporter.export(projectRoot, outputPath, runCommand,
+                Arrays.asList(args).contains("--resume"), Arrays.asList(args).contains("--journal"));
+        RunMetrics.get().write("info", outputPath);
+        if (!exported) {
+            System.exit(1);
+        }
     }
 
     private static void handleSequence(String[] args) throws Exception {
@@ -68,15 +163,25 @@ public class MockAnalyzerCLI {
 
         if (!Files.exists(projectRoot)) {
             System.err.println("[ERROR] Project path does not exist: " + projectRoot);
-            return;
+            System.exit(1);
         }
 
-        MockInfoExporter.export(projectRoot, outputPath, runCommand);
+        IoExecutors.setVirtualIo(Arrays.asList(args).contains("--virtual-io"));
+        boolean exported = MockInfoExporter.export(projectRoot, outputPath, runCommand,
+                Arrays.asList(args).contains("--resume"), Arrays.asList(args).contains("--journal"));
+        RunMetrics.get().write("sequence", outputPath);
+        if (!exported) {
+            System.exit(1);
+        }
     }
 
     private static void handleClone(String[] args) throws Exception {
+        if (args.length >= 2 && args[1].equals("--from")) {
+            handleCloneFrom(args);
+            return;
+        }
         if (args.length < 3) {
-            System.err.println("Usage: clone <projectRoot> <clone.json> [--skip]");
+            System.err.println("Usage: clone <projectRoot> <clone.json> [--skip] [detection options]");
             return;
         }
 
@@ -86,17 +191,245 @@ public class MockAnalyzerCLI {
 
         if (!Files.exists(projectRoot)) {
             System.err.println("[ERROR] Project path does not exist: " + projectRoot);
+            System.exit(1);
+        }
+
+        try {
+            MockCloneExporter.exportClones(projectRoot, outputPath, runCommand, createDetector(args),
+                    createPipeline(args));
+        } finally {
+            RunMetrics.get().write("clone", outputPath);
+        }
+    }
+
+    private static void handleCloneFrom(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: clone --from <mockinfo.json|clone.json> <clone.json> [detection options]");
+            return;
+        }
+
+        Path input = Paths.get(args[2]);
+        String outputPath = args[3];
+
+        if (!Files.exists(input)) {
+            System.err.println("[ERROR] Input file does not exist: " + input);
+            System.exit(1);
+        }
+
+        try {
+            MockCloneExporter.exportClonesFrom(input, outputPath, createDetector(args));
+        } finally {
+            RunMetrics.get().write("clone-from", outputPath);
+        }
+    }
+
+    private static void handleWatch(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: watch <projectRoot> [<clone.json>] [detection options]");
             return;
         }
 
-        MockCloneExporter.exportClones(projectRoot, outputPath, runCommand);
+        Path projectRoot = Paths.get(args[1]);
+        String outputPath = args.length > 2 && !args[2].startsWith("--") ? args[2] : null;
+
+        if (!Files.exists(projectRoot)) {
+            System.err.println("[ERROR] Project path does not exist: " + projectRoot);
+            System.exit(1);
+        }
+
+        MockCloneDetector detector = createDetector(args);
+        if (detector.isProjectWide()) {
+            System.err.println("[ERROR] watch does not support --cross-package");
+            return;
+        }
+        if (detector.isNearCloneEnabled()) {
+            System.err.println("[ERROR] watch does not support --near");
+            return;
+        }
+        new ProjectWatcher(projectRoot, detector, outputPath).run();
+    }
+
+    private static void handleDiff(String[] args) throws Exception {
+        if (args.length < 6) {
+            System.err.println("Usage: diff <projectRoot> <baseRev> <headRev> <baseline.json> <diff.json> [--skip] [--fail-on-new] [detection options]");
+            return;
+        }
+
+        Path projectRoot = Paths.get(args[1]);
+        Path baseline = Paths.get(args[4]);
+        String outputPath = args[5];
+        boolean runCommand = !Arrays.asList(args).contains("--skip");
+
+        if (!Files.exists(projectRoot)) {
+            System.err.println("[ERROR] Project path does not exist: " + projectRoot);
+            System.exit(1);
+        }
+        if (!Files.exists(baseline)) {
+            System.err.println("[ERROR] Baseline does not exist: " + baseline);
+            System.exit(1);
+        }
+
+        MockCloneDetector detector = createDetector(args);
+        if (detector.isProjectWide()) {
+            System.err.println("[ERROR] diff does not support --cross-package");
+            System.exit(1);
+        }
+        DiffExporter.DiffResult result;
+        try {
+            result = DiffExporter.exportDiff(projectRoot, args[2], args[3], baseline, outputPath, runCommand, detector);
+        } finally {
+            RunMetrics.get().write("diff", outputPath);
+        }
+        if (Arrays.asList(args).contains("--fail-on-new") && result.hasNewOrChangedClones()) {
+            System.exit(2);
+        }
+    }
+
+    private static void handleBatch(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: batch <manifest.txt> <outputDir> [--skip] [--concurrency <n>] [analysis/detection options]");
+            return;
+        }
+
+        Path manifest = Paths.get(args[1]);
+        Path outputDir = Paths.get(args[2]);
+        boolean runCommand = !Arrays.asList(args).contains("--skip");
+
+        if (!Files.exists(manifest)) {
+            System.err.println("[ERROR] Manifest does not exist: " + manifest);
+            System.exit(1);
+        }
+
+        if (Arrays.asList(args).contains("--memo")) {
+            // one memo file cannot hold the groups of several projects
+            System.err.println("[ERROR] batch keeps one memo per project; use --memo-per-project instead of --memo");
+            return;
+        }
+
+        // bad detection options fail here, not once per project
+        createDetector(args);
+        String concurrency = optionValue(args, "--concurrency");
+        boolean memo = Arrays.asList(args).contains("--memo-per-project");
+        try {
+            BatchExporter.exportCorpus(manifest, outputDir, runCommand,
+                    concurrency == null ? 2 : Integer.parseInt(concurrency),
+                    output -> {
+                        MockCloneDetector detector = createDetector(args);
+                        // one memo per project, next to its result
+                        detector.setMemoFile(memo ? Paths.get(output + ".memo") : null);
+                        return detector;
+                    },
+                    () -> createPipeline(args));
+        } finally {
+            // one report for the whole corpus
+            RunMetrics.get().write("batch", outputDir.resolve("corpus").toString());
+        }
+    }
+
+    private static AnalysisPipeline createPipeline(String[] args) {
+        AnalysisPipeline pipeline = new AnalysisPipeline();
+        if (Arrays.asList(args).contains("--virtual-io")) {
+            IoExecutors.setVirtualIo(true);
+        }
+        pipeline.setResume(Arrays.asList(args).contains("--resume"));
+        pipeline.setJournaling(Arrays.asList(args).contains("--journal"));
+        String parseThreads = optionValue(args, "--parse-threads");
+        if (parseThreads != null) {
+            pipeline.setParseThreads(Integer.parseInt(parseThreads));
+        }
+        return pipeline;
+    }
+
+    static MockCloneDetector createDetector(String[] args) {
+        MockCloneDetector detector = new MockCloneDetector();
+        String topK = optionValue(args, "--topk");
+        if (topK != null) {
+            detector.setTopK(Integer.parseInt(topK));
+        }
+        if (Arrays.asList(args).contains("--parallel")) {
+            detector.setParallel(true);
+        }
+        String threads = optionValue(args, "--threads");
+        if (threads != null) {
+            detector.setParallelism(Integer.parseInt(threads));
+        }
+        if (Arrays.asList(args).contains("--cross-package")) {
+            if (topK != null) {
+                // project-wide mining uses the closed patterns of CooccurrenceMiner, not a top-k miner
+                throw new IllegalArgumentException("--topk is not supported with --cross-package");
+            }
+            detector.setProjectWide(true);
+        }
+        String parallelMining = optionValue(args, "--parallel-mining");
+        if (parallelMining != null) {
+            detector.setParallelMiningThreshold(Integer.parseInt(parallelMining));
+        }
+        String memo = optionValue(args, "--memo");
+        if (memo != null) {
+            detector.setMemoFile(Paths.get(memo));
+        }
+        String near = optionValue(args, "--near");
+        if (near != null) {
+            double threshold = Double.parseDouble(near);
+            if (!(threshold > 0 && threshold <= 1)) {
+                throw new IllegalArgumentException("--near needs a Jaccard similarity in (0, 1], got " + near);
+            }
+            detector.setNearCloneThreshold(threshold);
+        }
+        if (Arrays.asList(args).contains("--spill")) {
+            detector.setSpill(true);
+        }
+        if (Arrays.asList(args).contains("--normalized")) {
+            detector.setNormalizedReport(true);
+        }
+        return detector;
+    }
+
+    /**
+     * Returns the argument following the given option, or null if the option is absent.
+     */
+    private static String optionValue(String[] args, String option) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(option)) {
+                return args[i + 1];
+            }
+        }
+        return null;
     }
 
     private static void printHelp() {
         System.out.println("Usage:");
         System.out.println("  java -jar mock-analyzer.jar info <projectRoot> <mockinfo.json> [--skip]");
         System.out.println("  java -jar mock-analyzer.jar sequence <projectRoot> <sequences.json> [--skip]");
-        System.out.println("  java -jar mock-analyzer.jar clone <projectRoot> <clone.json> [--skip]");
+        System.out.println("  java -jar mock-analyzer.jar clone <projectRoot> <clone.json> [--skip] [detection options]");
+        System.out.println("  java -jar mock-analyzer.jar clone --from <mockinfo.json|clone.json> <clone.json> [detection options]");
+        System.out.println("  java -jar mock-analyzer.jar batch <manifest.txt> <outputDir> [--skip] [--concurrency <n>] [--memo-per-project] [options]");
+        System.out.println("  java -jar mock-analyzer.jar watch <projectRoot> [<clone.json>] [detection options]");
+        System.out.println("  java -jar mock-analyzer.jar diff <projectRoot> <baseRev> <headRev> <baseline.json> <diff.json> [--skip] [--fail-on-new] [detection options]");
+        System.out.println("  java -jar mock-analyzer.jar daemon [--port <n>] [--output-dir <dir>]");
+        System.out.println("  java -jar mock-analyzer.jar query <clone.json> [--class|--package|--file|--test|--statement <key>]... [--count]");
+        System.out.println("  java -jar mock-analyzer.jar cds <archive.jsa> <training command> [args...]");
+        System.out.println();
+        System.out.println("Analysis options:");
+        System.out.println("  --journal                         record completed files in <output>.journal, so an interrupted run can be resumed");
+        System.out.println("  --resume                          skip files completed by an interrupted run (from <output>.journal; implies --journal)");
+        System.out.println("  --virtual-io                      read sources and jars on virtual threads (JDK 21+; small pool on 17)");
+        System.out.println("  --parse-threads <n>               (clone) parse files on a pool of n platform threads");
+        System.out.println();
+        System.out.println("Every run writes <output>.metrics.json and <output>.metrics.prom (batch: <outputDir>/corpus.metrics.*).");
+        System.out.println();
+        System.out.println("cds runs the training command and archives the classes it loaded; start later runs with");
+        System.out.println("  java -XX:SharedArchiveFile=<archive.jsa> -jar mock-analyzer.jar ...");
+        System.out.println();
+        System.out.println("Detection options:");
+        System.out.println("  --topk <n>                        mine only the n highest-scoring patterns per group");
+        System.out.println("  --parallel [--threads <n>]        mine groups concurrently");
+        System.out.println("  --parallel-mining <minGroupSize>  mine each large group on multiple cores");
+        System.out.println("  --cross-package                   detect clones across packages of the same mocked class");
+        System.out.println("  --memo <memo.json>                reuse results of unchanged groups from a previous run");
+        System.out.println("  --near <minJaccard>               also report near clones, e.g. --near 0.8");
+        System.out.println("  --spill                           keep sequences in <output>.sequences, mine one group in memory at a time");
+        System.out.println("  --normalized                      write the report as id-referenced tables (files, methods, statements, mocks, sequences)");
     }
 
 }
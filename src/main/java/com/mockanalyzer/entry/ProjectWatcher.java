@@ -0,0 +1,215 @@
+package com.mockanalyzer.entry;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.CloneIndex;
+import com.mockanalyzer.exporter.IncrementalCloneSession;
+import com.mockanalyzer.exporter.MockCloneExporter;
+import com.mockanalyzer.exporter.ProjectSession;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.visitor.SharedJarIndex;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch mode: analyzes a project once, then re-analyzes test files as they
+ * are saved and pushes the clone groups that changed.
+ *
+ * The test source roots (every src/test/java, or the whole project if there
+ * is none) are watched with a {@link WatchService}. Events are collected
+ * until the file system has been quiet for {@link #QUIET_MILLIS}, since one
+ * save is often several events, then the changed files are handed to an
+ * {@link IncrementalCloneSession} in one update.
+ *
+ * Each update is pushed to stdout as one JSON line (lines starting with
+ * '{'; log lines start with '['). With an output path, the full report and
+ * its index are rewritten after the line is pushed.
+ */
+public class ProjectWatcher {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    // one save (temp file, rename, touch) is a burst of events a few ms apart
+    private static final long QUIET_MILLIS = 50;
+    private static final Set<String> SKIPPED_DIRS = new HashSet<>(Arrays.asList(
+            ".git", ".idea", ".gradle", "target", "build", "node_modules", "out"));
+
+    private final Path projectRoot;
+    private final MockCloneDetector detector;
+    private final String outputPath;
+    private final IncrementalCloneSession session;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+
+    /**
+     * One pushed update: the groups whose clones changed, as index hits.
+     */
+    private static class Push {
+        String event;
+        int changedFiles;
+        int reparsedFiles;
+        int failedFiles;
+        long millis;
+        // mockedClass#packageName -> its clones now (empty if it has none left)
+        Map<String, List<CloneIndex.Hit>> groups = new TreeMap<>();
+    }
+
+    /**
+     * @param outputPath the report to keep up to date, or null to only push updates
+     */
+    public ProjectWatcher(Path projectRoot, MockCloneDetector detector, String outputPath) throws IOException {
+        this.projectRoot = projectRoot.toAbsolutePath().normalize();
+        this.detector = detector;
+        this.outputPath = outputPath;
+        this.session = new IncrementalCloneSession(new ProjectSession(this.projectRoot, new SharedJarIndex()), detector);
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Runs until the process is stopped.
+     */
+    public void run() throws IOException, InterruptedException {
+        List<Path> roots = testSourceRoots();
+        for (Path root : roots) {
+            register(root, null);
+        }
+        System.out.println("[INFO] Watching " + roots.size() + " test source root(s) under " + projectRoot);
+
+        publish("initial", session.analyzeAll());
+
+        while (true) {
+            WatchKey key = watchService.take();
+            Set<Path> changed = new LinkedHashSet<>();
+            boolean overflow = false;
+            do {
+                overflow |= collect(key, changed);
+                key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+            } while (key != null);
+
+            if (overflow) {
+                // events were lost: compare every file with its cached size and modification time
+                publish("full", session.analyzeAll());
+            } else if (!changed.isEmpty()) {
+                publish("update", session.update(changed));
+            }
+        }
+    }
+
+    /**
+     * Adds the java files of the key's events, and the known files of deleted
+     * directories, to changed and registers new directories. Returns true if
+     * events were lost.
+     */
+    private boolean collect(WatchKey key, Set<Path> changed) throws IOException {
+        Path dir = watchedDirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // files may have been created before the directory was registered
+                register(path, changed);
+            } else if (path.toString().endsWith(".java")) {
+                changed.add(path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // a directory deleted or moved away: no events for the files in it
+                changed.addAll(session.filesUnder(path));
+            }
+        }
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+        return overflow;
+    }
+
+    private void publish(String event, IncrementalCloneSession.Update update) throws IOException {
+        Map<String, List<MockCloneInstance>> cloneMap = session.clones();
+
+        Push push = new Push();
+        push.event = event;
+        push.changedFiles = update.changedFiles;
+        push.reparsedFiles = update.reparsedFiles;
+        push.failedFiles = update.failedFiles;
+        push.millis = update.millis;
+        for (Map.Entry<String, List<MockCloneInstance>> group : update.groups.entrySet()) {
+            List<CloneIndex.Hit> hits = new ArrayList<>();
+            for (MockCloneInstance instance : group.getValue()) {
+                // positions as in the written report
+                List<MockCloneInstance> reportGroup = cloneMap.get(instance.mockedClass);
+                int index = 0;
+                while (reportGroup.get(index) != instance) {
+                    index++;
+                }
+                hits.add(CloneIndex.Hit.of(instance.mockedClass, index, instance));
+            }
+            push.groups.put(group.getKey(), hits);
+        }
+        System.out.println(GSON.toJson(push));
+        System.out.flush();
+
+        if (outputPath != null) {
+            MockCloneExporter.writeReport(session.mockInfos(), cloneMap, null, outputPath,
+                    detector.isNormalizedReport());
+        }
+    }
+
+    /**
+     * Every src/test/java under the project, or the project itself if there is none.
+     */
+    private List<Path> testSourceRoots() throws IOException {
+        List<Path> roots = new ArrayList<>();
+        Files.walkFileTree(projectRoot, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(projectRoot) && SKIPPED_DIRS.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (dir.endsWith(Paths.get("src", "test", "java"))) {
+                    roots.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (roots.isEmpty()) {
+            roots.add(projectRoot);
+        }
+        return roots;
+    }
+
+    /**
+     * Watches the directory and its subdirectories. With changed, the java
+     * files found are added to it (for directories created while watching).
+     */
+    private void register(Path root, Set<Path> changed) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && SKIPPED_DIRS.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                watchedDirs.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (changed != null && file.toString().endsWith(".java")) {
+                    changed.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
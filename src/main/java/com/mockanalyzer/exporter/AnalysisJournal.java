@@ -0,0 +1,176 @@
+package com.mockanalyzer.exporter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.mockanalyzer.model.MockInfo;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-ahead journal of analyzed files, so that a crashed or killed run
+ * can be resumed instead of starting again from the first file.
+ *
+ * The journal sits next to the output (`<output>.journal`) and holds one
+ * JSON line per completed file: its path, size, modification time and the
+ * MockInfos found in it. Each line is written as soon as the file is done.
+ * Lines are forced to disk at most once every FORCE_MILLIS, and when a
+ * failed run closes the journal; a crash of the machine (not just of the
+ * JVM) loses only the files completed since the last force. It is only
+ * kept when asked for (--journal or --resume).
+ *
+ * On resume, a file whose size and modification time still match its entry
+ * is not read or parsed again; its stored MockInfos are used instead. A
+ * line cut off by the crash is ignored, and that file is analyzed again.
+ */
+public class AnalysisJournal {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    // an fsync per file would dominate the time of small files
+    private static final long FORCE_MILLIS = 1000;
+
+    private final Path journalPath;
+    private final Map<String, Entry> completed = new HashMap<>();
+    private final Writer writer;
+    private final FileChannel channel;
+    private long lastForce = System.nanoTime();
+
+    private int resumedFiles = 0;
+
+    private static class Entry {
+        String file;
+        long size;
+        long modified;
+        List<MockInfo> mockInfos;
+    }
+
+    /**
+     * Opens the journal of an output file.
+     *
+     * @param outputPath the result file the journal belongs to
+     * @param resume     keep and reuse existing entries; otherwise the journal starts empty
+     */
+    public static AnalysisJournal open(String outputPath, boolean resume) throws IOException {
+        return new AnalysisJournal(Paths.get(outputPath + ".journal"), resume);
+    }
+
+    private AnalysisJournal(Path journalPath, boolean resume) throws IOException {
+        this.journalPath = journalPath;
+        if (resume && Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        Entry entry = GSON.fromJson(line, Entry.class);
+                        if (entry != null && entry.file != null && entry.mockInfos != null) {
+                            completed.put(entry.file, entry);
+                        }
+                    } catch (JsonParseException e) {
+                        // torn last line of a crashed run
+                    }
+                }
+            }
+            System.out.println("[INFO] Resuming from journal " + journalPath + " (" + completed.size() + " files)");
+        }
+        // rewrite the kept entries (atomically), so a torn line never sits in the middle of the journal
+        Path rewritten = Paths.get(journalPath + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(rewritten.toFile());
+                Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+            for (Entry entry : completed.values()) {
+                out.write(GSON.toJson(entry));
+                out.write('\n');
+            }
+            out.flush();
+            stream.getChannel().force(false);
+        }
+        Files.move(rewritten, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileOutputStream stream = new FileOutputStream(journalPath.toFile(), true);
+        this.channel = stream.getChannel();
+        this.writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The journaled MockInfos of a file, or null if it has to be analyzed
+     * (not journaled, or changed since).
+     */
+    public synchronized List<MockInfo> lookup(Path javaFile) {
+        Entry entry = completed.get(javaFile.toString());
+        if (entry == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(javaFile, BasicFileAttributes.class);
+            if (attributes.size() != entry.size || attributes.lastModifiedTime().toMillis() != entry.modified) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        resumedFiles++;
+        return entry.mockInfos;
+    }
+
+    /**
+     * Appends a completed file. Must be called before the MockInfos are modified
+     * (e.g. by id assignment), so that the journal holds the analysis result.
+     */
+    public synchronized void record(Path javaFile, List<MockInfo> mockInfos) {
+        // a re-analyzed file appends a newer line; the last line of a file wins on resume
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(javaFile, BasicFileAttributes.class);
+            Entry entry = new Entry();
+            entry.file = javaFile.toString();
+            entry.size = attributes.size();
+            entry.modified = attributes.lastModifiedTime().toMillis();
+            entry.mockInfos = mockInfos;
+            writer.write(GSON.toJson(entry));
+            writer.write('\n');
+            writer.flush();
+            if (System.nanoTime() - lastForce >= FORCE_MILLIS * 1_000_000) {
+                channel.force(false);
+                lastForce = System.nanoTime();
+            }
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to journal " + javaFile + ": " + e.getMessage());
+        }
+    }
+
+    public int resumedFiles() {
+        return resumedFiles;
+    }
+
+    /**
+     * Closes the journal; after a successful run it is deleted, because the
+     * output now holds everything.
+     */
+    public synchronized void close(boolean completedRun) {
+        try {
+            if (!completedRun) {
+                // the entries are all a later --resume has
+                writer.flush();
+                channel.force(false);
+            }
+            writer.close();
+            if (completedRun) {
+                Files.deleteIfExists(journalPath);
+            }
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to close journal " + journalPath + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.mockanalyzer.exporter;
+
+import com.github.javaparser.JavaParser;
+import com.mockanalyzer.cloneDetector.SequenceStore;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.visitor.ConcurrentTypeSolver;
+import com.mockanalyzer.visitor.EnhancedProjectResolver;
+import com.mockanalyzer.visitor.IoExecutors;
+import com.mockanalyzer.visitor.SharedJarIndex;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Staged version of analyze → flatten → group used by clone detection.
+ *
+ * walk → pre-filter → parse/visit → sequence building → group accumulation
+ *
+ * Each stage runs on its own thread and hands its output to the next one
+ * through a bounded queue, so parsing starts while the walk is still running
+ * and a slow stage throttles the stages before it instead of letting work
+ * pile up in memory. Every stage is a single thread and the queues are FIFO,
+ * so files, mock ids and sequences come out in the same order as the
+ * sequential path.
+ *
+ * The pre-filter reads each file once and drops files that never mention
+ * "org.mockito"; those files cannot have a mockito import and were only
+ * parsed to be discarded.
+ *
+ * With virtual I/O ({@link IoExecutors}) the reads are issued on I/O threads,
+ * a bounded window of them in flight, and the parse stage can hand files to
+ * a fixed pool of platform threads. Both windows are drained in submission
+ * order, so the output order does not change. Pool threads each have their
+ * own parser on the project's one {@link ConcurrentTypeSolver}.
+ */
+public class AnalysisPipeline {
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+    // reads in flight at once with virtual I/O
+    private static final int READ_WINDOW = 64;
+
+    // end-of-stream markers, compared by identity
+    private static final Path END_OF_FILES = Paths.get("");
+    private static final SourceFile END_OF_SOURCES = new SourceFile(null, null, null);
+    private static final List<MockInfo> END_OF_MOCKS = new ArrayList<>();
+    private static final List<MockSequence> END_OF_SEQUENCES = new ArrayList<>();
+
+    private final Stage<Path> files = new Stage<>("files");
+    private final Stage<SourceFile> sources = new Stage<>("sources");
+    private final Stage<List<MockInfo>> mocks = new Stage<>("mocks");
+    private final Stage<List<MockSequence>> sequences = new Stage<>("sequences");
+
+    // platform threads for parsing/visiting; 1 = parse on the stage thread
+    private int parseThreads = 1;
+    // jar indexes shared with other projects (batch mode); null = per-project JarTypeSolvers
+    private SharedJarIndex jarIndex = null;
+    // completed files are journaled here; with resume, journaled files are skipped
+    private AnalysisJournal journal = null;
+    private boolean journaling = false;
+    private boolean resume = false;
+    // sequences are spilled here instead of being kept in allSequences/groups
+    private SequenceStore sequenceStore = null;
+
+    // ------ Results ------
+    public final List<MockInfo> mockInfos = new ArrayList<>();
+    public final List<MockSequence> allSequences = new ArrayList<>();
+    public final Map<String, List<MockSequence>> groups = new HashMap<>();
+
+    private static final class SourceFile {
+        final Path path;
+        final String code;
+        // MockInfos restored from the journal; the file is not parsed again
+        final List<MockInfo> journaled;
+
+        SourceFile(Path path, String code, List<MockInfo> journaled) {
+            this.path = path;
+            this.code = code;
+            this.journaled = journaled;
+        }
+    }
+
+    /**
+     * A bounded queue between two stages, with its high-water mark.
+     */
+    public static final class Stage<T> {
+        public final String name;
+        private final BlockingQueue<T> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile int highWater = 0;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void put(T item) throws InterruptedException {
+            queue.put(item);
+            int depth = queue.size();
+            if (depth > highWater) {
+                highWater = depth;
+            }
+        }
+
+        T take() throws InterruptedException {
+            return queue.take();
+        }
+
+        public int depth() {
+            return queue.size();
+        }
+
+        public int highWater() {
+            return highWater;
+        }
+
+        public int capacity() {
+            return QUEUE_CAPACITY;
+        }
+    }
+
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = Math.max(1, parseThreads);
+    }
+
+    public void setJarIndex(SharedJarIndex jarIndex) {
+        this.jarIndex = jarIndex;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setJournaling(boolean journaling) {
+        this.journaling = journaling;
+    }
+
+    /**
+     * Whether completed files should be journaled; resuming implies it, so a
+     * resumed run can be resumed again.
+     */
+    public boolean isJournaling() {
+        return journaling || resume;
+    }
+
+    public void setJournal(AnalysisJournal journal) {
+        this.journal = journal;
+    }
+
+    public void setSequenceStore(SequenceStore sequenceStore) {
+        this.sequenceStore = sequenceStore;
+    }
+
+    /**
+     * Number of sequences produced, whether kept in {@link #allSequences} or spilled.
+     */
+    public int sequenceCount() {
+        return sequenceStore != null ? sequenceStore.size() : allSequences.size();
+    }
+
+    /**
+     * The queues between the stages, in pipeline order.
+     */
+    public List<Stage<?>> stages() {
+        return Arrays.asList(files, sources, mocks, sequences);
+    }
+
+    /**
+     * Analyzes the project and fills {@link #mockInfos} (ids assigned, spies
+     * and global finals dropped), {@link #allSequences} and {@link #groups}
+     * (keyed by mockedClass + "#" + packageName). With a sequence store, the
+     * sequences go to the store and both stay empty.
+     */
+    public void run(Path projectRoot, boolean runCommand) throws IOException, InterruptedException {
+        ConcurrentTypeSolver typeSolver = EnhancedProjectResolver.createTypeSolver(projectRoot, runCommand, jarIndex);
+        JavaParser parser = MockInfoExporter.createParser(typeSolver);
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pipeline-report");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> System.out.println("[Pipeline] " + depthSummary(false)),
+                REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        ExecutorService io = IoExecutors.isVirtualIo() ? IoExecutors.newIoExecutor() : null;
+        ExecutorService parsePool = parseThreads > 1 ? Executors.newFixedThreadPool(parseThreads) : null;
+
+        CompletionService<Void> running = new ExecutorCompletionService<>(executor);
+        try {
+            running.submit(() -> walk(projectRoot));
+            running.submit(() -> preFilter(io));
+            running.submit(() -> parse(parser, typeSolver, parsePool));
+            running.submit(this::buildSequences);
+            running.submit(this::accumulateGroups);
+            // wait in completion order, so a failed stage is noticed even if its neighbours are blocked
+            for (int i = 0; i < 5; i++) {
+                running.take().get();
+            }
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Analysis pipeline failed", cause);
+        } finally {
+            reporter.shutdownNow();
+            executor.shutdownNow();
+            if (io != null) {
+                io.shutdownNow();
+            }
+            if (parsePool != null) {
+                parsePool.shutdownNow();
+            }
+        }
+        System.out.println("[Pipeline] queue high-water marks: " + depthSummary(true));
+        if (parsePool != null && typeSolver != null) {
+            System.out.println("[Pipeline] shared type solver: " + typeSolver.summary());
+        }
+    }
+
+    private String depthSummary(boolean highWater) {
+        StringBuilder sb = new StringBuilder();
+        for (Stage<?> stage : stages()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(stage.name).append(' ')
+                    .append(highWater ? stage.highWater() : stage.depth())
+                    .append('/').append(stage.capacity());
+        }
+        return sb.toString();
+    }
+
+    // ------ Stages ------
+
+    private Void walk(Path projectRoot) throws IOException, InterruptedException {
+        // includes time blocked on a full queue; its CPU time does not
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.WALK);
+                Stream<Path> paths = Files.walk(projectRoot)) {
+            Iterator<Path> it = paths.filter(p -> p.toString().endsWith(".java")).iterator();
+            while (it.hasNext()) {
+                files.put(it.next());
+            }
+        } finally {
+            files.put(END_OF_FILES);
+        }
+        return null;
+    }
+
+    private Void preFilter(ExecutorService io) throws InterruptedException, ExecutionException {
+        try {
+            // files are read on the I/O executor if there is one, but forwarded in walk order
+            Deque<Future<SourceFile>> inFlight = new ArrayDeque<>();
+            Path javaFile;
+            while ((javaFile = files.take()) != END_OF_FILES) {
+                List<MockInfo> journaled = journal == null ? null : journal.lookup(javaFile);
+                if (journaled != null) {
+                    SourceFile restored = new SourceFile(javaFile, null, journaled);
+                    if (io == null) {
+                        forward(restored);
+                    } else {
+                        inFlight.add(CompletableFuture.completedFuture(restored));
+                    }
+                } else if (io == null) {
+                    forward(read(javaFile));
+                    continue;
+                } else {
+                    Path file = javaFile;
+                    inFlight.add(io.submit(() -> read(file)));
+                }
+                if (inFlight.size() >= READ_WINDOW) {
+                    forward(inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                forward(inFlight.poll().get());
+            }
+        } finally {
+            sources.put(END_OF_SOURCES);
+        }
+        return null;
+    }
+
+    /**
+     * Reads a file; null if it cannot be read or does not mention mockito.
+     */
+    private static SourceFile read(Path javaFile) {
+        try {
+            String code = new String(Files.readAllBytes(javaFile), StandardCharsets.UTF_8);
+            return code.contains("org.mockito") ? new SourceFile(javaFile, code, null) : null;
+        } catch (IOException e) {
+            System.err.println("[WARN] Skipping file due to exception: " + javaFile + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void forward(SourceFile source) throws InterruptedException {
+        if (source != null) {
+            sources.put(source);
+        }
+    }
+
+    private Void parse(JavaParser parser, ConcurrentTypeSolver typeSolver, ExecutorService parsePool)
+            throws InterruptedException, ExecutionException {
+        // JavaParser instances and symbol solver caches are not thread-safe; pool threads share only the type solver
+        ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> MockInfoExporter.createParser(typeSolver));
+        try {
+            Deque<Future<List<MockInfo>>> inFlight = new ArrayDeque<>();
+            Deque<SourceFile> inFlightSources = new ArrayDeque<>();
+            SourceFile source;
+            while ((source = sources.take()) != END_OF_SOURCES) {
+                if (source.journaled != null) {
+                    inFlight.add(CompletableFuture.completedFuture(source.journaled));
+                } else if (parsePool == null) {
+                    inFlight.add(CompletableFuture.completedFuture(analyze(parser, source)));
+                } else {
+                    SourceFile file = source;
+                    inFlight.add(parsePool.submit(() -> analyze(parsers.get(), file)));
+                }
+                inFlightSources.add(source);
+                if (inFlight.size() >= 2 * parseThreads) {
+                    complete(inFlightSources.poll(), inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                complete(inFlightSources.poll(), inFlight.poll().get());
+            }
+        } finally {
+            mocks.put(END_OF_MOCKS);
+        }
+        return null;
+    }
+
+    /**
+     * Parses and visits a file; null if it had to be skipped.
+     */
+    private static List<MockInfo> analyze(JavaParser parser, SourceFile source) {
+        return MockInfoExporter.analyzeCode(source.path, parser, source.code);
+    }
+
+    /**
+     * Journals a newly analyzed file (before ids are assigned downstream) and forwards its MockInfos.
+     */
+    private void complete(SourceFile source, List<MockInfo> mockList) throws InterruptedException {
+        if (mockList == null) {
+            return;
+        }
+        if (journal != null && source.journaled == null) {
+            journal.record(source.path, mockList);
+        }
+        if (!mockList.isEmpty()) {
+            mocks.put(mockList);
+        }
+    }
+
+    private Void buildSequences() throws InterruptedException {
+        try {
+            int mockId = 0;
+            List<MockInfo> mockList;
+            while ((mockList = mocks.take()) != END_OF_MOCKS) {
+                List<MockSequence> built = new ArrayList<>();
+                try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SEQUENCES)) {
+                    for (MockInfo mockInfo : mockList) {
+                        if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                            mockInfo.rawMockObjectId = mockId++;
+                            mockInfo.mockRole = "mock";
+                            mockInfos.add(mockInfo);
+                            built.addAll(mockInfo.toMockSequences());
+                        }
+                    }
+                }
+                if (!built.isEmpty()) {
+                    sequences.put(built);
+                }
+            }
+        } finally {
+            sequences.put(END_OF_SEQUENCES);
+        }
+        return null;
+    }
+
+    private Void accumulateGroups() throws InterruptedException {
+        List<MockSequence> batch;
+        while ((batch = sequences.take()) != END_OF_SEQUENCES) {
+            if (sequenceStore != null) {
+                sequenceStore.addAll(batch);
+                continue;
+            }
+            for (MockSequence seq : batch) {
+                allSequences.add(seq);
+                groups.computeIfAbsent(seq.mockedClass + "#" + seq.packageName, k -> new ArrayList<>()).add(seq);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.mockanalyzer.exporter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.visitor.SharedJarIndex;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs clone detection over a corpus of projects in one JVM.
+ *
+ * The manifest lists one project root per line (blank lines and lines
+ * starting with '#' are ignored; relative paths are resolved against the
+ * manifest's folder). Up to `concurrency` projects are analyzed at the same
+ * time, all sharing one {@link SharedJarIndex}, so a dependency used by many
+ * projects is indexed once. Every project gets `<name>.clone.json` in the
+ * output folder; a failing project is recorded in `corpus-summary.json`
+ * instead of stopping the run.
+ */
+public class BatchExporter {
+
+    public static class ProjectSummary {
+        public String projectRoot;
+        public String output;
+        public String status; // "ok" or "failed"
+        public String error;
+        public int mockObjects;
+        public int sequences;
+        public int cloneInstances;
+        public double seconds;
+    }
+
+    public static class CorpusSummary {
+        public int projectCount;
+        public int succeeded;
+        public int failed;
+        public int totalMockObjects;
+        public int totalSequences;
+        public int totalCloneInstances;
+        public int jarsIndexed;
+        public int jarsReused;
+        public double seconds;
+        public List<ProjectSummary> projects = new ArrayList<>();
+    }
+
+    /**
+     * @param manifest    file listing the project roots
+     * @param outputDir   folder for per-project results and corpus-summary.json
+     * @param runCommand  whether to re-run maven/gradle build in each project
+     * @param concurrency number of projects analyzed at the same time
+     * @param detectors   creates the detector of a project, given its output path
+     * @param pipelines   creates the analysis pipeline of a project
+     */
+    public static CorpusSummary exportCorpus(Path manifest, Path outputDir, boolean runCommand, int concurrency,
+            Function<String, MockCloneDetector> detectors, Supplier<AnalysisPipeline> pipelines)
+            throws IOException, InterruptedException {
+        List<Path> projectRoots = readManifest(manifest);
+        Files.createDirectories(outputDir);
+
+        SharedJarIndex jarIndex = new SharedJarIndex();
+        long start = System.nanoTime();
+
+        // output names are fixed up front, so they do not depend on scheduling
+        Set<String> usedNames = new HashSet<>();
+        List<ProjectSummary> projects = new ArrayList<>();
+        for (Path projectRoot : projectRoots) {
+            ProjectSummary project = new ProjectSummary();
+            project.projectRoot = projectRoot.toString();
+            project.output = outputDir.resolve(uniqueName(projectRoot, usedNames) + ".clone.json").toString();
+            projects.add(project);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (ProjectSummary project : projects) {
+                running.add(executor.submit(() -> exportProject(project, runCommand, jarIndex, detectors, pipelines)));
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // exportProject records its own failures; anything else is a bug worth seeing
+                    e.getCause().printStackTrace();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CorpusSummary summary = new CorpusSummary();
+        summary.projects = projects;
+        summary.projectCount = projects.size();
+        for (ProjectSummary project : projects) {
+            if ("ok".equals(project.status)) {
+                summary.succeeded++;
+            } else {
+                summary.failed++;
+            }
+            summary.totalMockObjects += project.mockObjects;
+            summary.totalSequences += project.sequences;
+            summary.totalCloneInstances += project.cloneInstances;
+        }
+        summary.jarsIndexed = jarIndex.indexedCount();
+        summary.jarsReused = jarIndex.reusedCount();
+        summary.seconds = (System.nanoTime() - start) / 1e9;
+
+        Path summaryPath = outputDir.resolve("corpus-summary.json");
+        Gson gson = new GsonBuilder()
+                .setPrettyPrinting()
+                .disableHtmlEscaping()
+                .create();
+        try (OutputStreamWriter writer = new OutputStreamWriter(
+                new FileOutputStream(summaryPath.toFile()), StandardCharsets.UTF_8)) {
+            gson.toJson(summary, writer);
+        }
+        System.out.println("Batch completed: " + summary.succeeded + "/" + summary.projectCount
+                + " projects, " + summary.jarsReused + " jar loads served from the shared index. Summary -> "
+                + summaryPath);
+        return summary;
+    }
+
+    private static void exportProject(ProjectSummary project, boolean runCommand, SharedJarIndex jarIndex,
+            Function<String, MockCloneDetector> detectors, Supplier<AnalysisPipeline> pipelines) {
+        long start = System.nanoTime();
+        Path projectRoot = Path.of(project.projectRoot);
+        try {
+            if (!Files.isDirectory(projectRoot)) {
+                throw new IOException("Invalid project root -> " + projectRoot);
+            }
+            AnalysisPipeline pipeline = pipelines.get();
+            pipeline.setJarIndex(jarIndex);
+            Map<String, List<MockCloneInstance>> clones = MockCloneExporter.exportClones(projectRoot,
+                    project.output, runCommand, detectors.apply(project.output), pipeline);
+
+            project.mockObjects = pipeline.mockInfos.size();
+            project.sequences = pipeline.sequenceCount();
+            for (List<MockCloneInstance> instances : clones.values()) {
+                project.cloneInstances += instances.size();
+            }
+            project.status = "ok";
+        } catch (Exception e) {
+            project.status = "failed";
+            project.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            System.err.println("[ERROR] Batch project failed: " + projectRoot + " - " + project.error);
+        }
+        project.seconds = (System.nanoTime() - start) / 1e9;
+    }
+
+    private static List<Path> readManifest(Path manifest) throws IOException {
+        Path base = manifest.toAbsolutePath().getParent();
+        List<Path> projectRoots = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            projectRoots.add(base.resolve(entry).normalize());
+        }
+        return projectRoots;
+    }
+
+    private static String uniqueName(Path projectRoot, Set<String> usedNames) {
+        Path fileName = projectRoot.getFileName();
+        String name = (fileName == null ? "project" : fileName.toString()).replaceAll("[^A-Za-z0-9._-]", "_");
+        String unique = name;
+        for (int i = 2; !usedNames.add(unique); i++) {
+            unique = name + "-" + i;
+        }
+        return unique;
+    }
+}
@@ -0,0 +1,424 @@
+package com.mockanalyzer.exporter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.NearCloneInstance;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * On-disk index of the clone instances of a report, written next to it as
+ * <report>.idx, so that lookups such as "which clones involve HttpRequest"
+ * or "which clones touch this test file" need neither the report nor a parse
+ * of it.
+ *
+ * The file holds one {@link Hit} per clone instance (exact clones first, then
+ * near clones) and, per {@link Key}, a table of keys sorted by their UTF-8
+ * bytes, each with the ids of the instances it occurs in. A lookup maps the
+ * file, binary-searches the table and decodes only the matching hits.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * int magic, int version, int hitCount, long[Key.count] table offsets
+ * hits:  long[hitCount] offsets, then per hit: int length, UTF-8 JSON
+ * table: int keyCount, int[keyCount] entry offsets (from the table start),
+ *        then per entry: int length, UTF-8 key, int count, int[count] hit ids
+ * </pre>
+ */
+public class CloneIndex {
+
+    private static final int MAGIC = 0x4D434958; // "MCIX"
+    private static final int VERSION = 1;
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * What clone instances can be looked up by.
+     */
+    public enum Key {
+        /** the mocked class, fully qualified or by simple name */
+        CLASS("class"),
+        /** a package of one of the instance's sequences */
+        PACKAGE("package"),
+        /** a test file, by path or by file name */
+        FILE("file"),
+        /** a test method, by name or as ClassName.method */
+        TEST("test"),
+        /** a shared abstracted statement */
+        STATEMENT("statement");
+
+        public final String option;
+
+        Key(String option) {
+            this.option = option;
+        }
+
+        public static Key of(String option) {
+            for (Key key : values()) {
+                if (key.option.equals(option)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Unknown index key: " + option);
+        }
+    }
+
+    /**
+     * A clone instance as stored in the index: its stats and where its
+     * sequences are, without the sequences themselves.
+     */
+    public static class Hit {
+        public String group; // key of the instance's list in the report
+        public int index; // position in that list
+        public boolean near; // from nearMockClones
+        public String mockedClass;
+        public String packageName;
+        public int sequenceCount;
+        public int testCaseCount;
+        public int locReduced;
+        public double similarity;
+        public List<String> sharedStatements;
+        public List<String> tests = new ArrayList<>(); // filePath#testMethodName
+
+        public static Hit of(String group, int index, MockCloneInstance instance) {
+            Hit hit = new Hit();
+            hit.group = group;
+            hit.index = index;
+            hit.mockedClass = instance.mockedClass;
+            hit.packageName = instance.packageName;
+            hit.sequenceCount = instance.sequenceCount;
+            hit.testCaseCount = instance.testCaseCount;
+            hit.locReduced = instance.locReduced;
+            hit.sharedStatements = instance.sharedStatements;
+            hit.addTests(instance.sequences);
+            return hit;
+        }
+
+        public static Hit of(String group, int index, NearCloneInstance instance) {
+            Hit hit = new Hit();
+            hit.group = group;
+            hit.index = index;
+            hit.near = true;
+            hit.mockedClass = instance.mockedClass;
+            hit.packageName = instance.packageName;
+            hit.sequenceCount = instance.sequenceCount;
+            hit.similarity = instance.similarity;
+            hit.sharedStatements = instance.sharedStatements;
+            hit.addTests(instance.sequences);
+            return hit;
+        }
+
+        private void addTests(List<MockSequence> sequences) {
+            Set<String> distinct = new LinkedHashSet<>();
+            for (MockSequence seq : sequences) {
+                distinct.add(seq.filePath + "#" + seq.testMethodName);
+            }
+            tests.addAll(distinct);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int hitCount;
+    private final long[] tables = new long[Key.values().length];
+
+    private CloneIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < 12 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a clone index");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported clone index version " + buffer.getInt(4));
+        }
+        this.hitCount = buffer.getInt(8);
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = buffer.getLong(12 + 8 * i);
+        }
+    }
+
+    /**
+     * The index file of a report.
+     */
+    public static Path indexFileOf(String reportPath) {
+        return Paths.get(reportPath + ".idx");
+    }
+
+    /**
+     * Maps an index file, or the index next to a report.
+     */
+    public static CloneIndex open(Path path) throws IOException {
+        Path file = path.toString().endsWith(".idx") ? path : indexFileOf(path.toString());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Clone index too large to map: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CloneIndex(mapped);
+        }
+    }
+
+    public int size() {
+        return hitCount;
+    }
+
+    /**
+     * The instances with the given key, in report order.
+     */
+    public List<Hit> lookup(Key key, String value) {
+        return hits(ids(key, value));
+    }
+
+    /**
+     * The instances that match every given key (an AND of lookups), in report order.
+     */
+    public List<Hit> lookup(Map<Key, String> criteria) {
+        int[] ids = null;
+        for (Map.Entry<Key, String> criterion : criteria.entrySet()) {
+            int[] matching = ids(criterion.getKey(), criterion.getValue());
+            ids = ids == null ? matching : intersect(ids, matching);
+        }
+        if (ids == null) {
+            ids = new int[hitCount];
+            for (int i = 0; i < hitCount; i++) {
+                ids[i] = i;
+            }
+        }
+        return hits(ids);
+    }
+
+    /**
+     * The number of instances with the given key, without decoding them.
+     */
+    public int count(Key key, String value) {
+        return ids(key, value).length;
+    }
+
+    private int[] ids(Key key, String value) {
+        byte[] wanted = value.getBytes(StandardCharsets.UTF_8);
+        int table = (int) tables[key.ordinal()];
+        int keyCount = buffer.getInt(table);
+        int low = 0;
+        int high = keyCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = table + buffer.getInt(table + 4 + 4 * mid);
+            int cmp = compare(entry, wanted);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                int postings = entry + 4 + buffer.getInt(entry);
+                int[] ids = new int[buffer.getInt(postings)];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = buffer.getInt(postings + 4 + 4 * i);
+                }
+                return ids;
+            }
+        }
+        return new int[0];
+    }
+
+    // unsigned byte order, as the keys were sorted
+    private int compare(int entry, byte[] wanted) {
+        int length = buffer.getInt(entry);
+        int common = Math.min(length, wanted.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.toUnsignedInt(buffer.get(entry + 4 + i)) - Byte.toUnsignedInt(wanted[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - wanted.length;
+    }
+
+    private List<Hit> hits(int[] ids) {
+        List<Hit> hits = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            int offset = (int) buffer.getLong(12 + 8 * tables.length + 8 * id);
+            byte[] json = new byte[buffer.getInt(offset)];
+            buffer.slice(offset + 4, json.length).get(json);
+            hits.add(GSON.fromJson(new String(json, StandardCharsets.UTF_8), Hit.class));
+        }
+        return hits;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Writes the index of a report's clones.
+     *
+     * @param nearClones the near clones, or null without --near
+     */
+    public static void write(Path file, Map<String, List<MockCloneInstance>> cloneMap,
+            Map<String, List<NearCloneInstance>> nearClones) throws IOException {
+        List<Hit> hits = new ArrayList<>();
+        List<Map<String, List<Integer>>> keys = new ArrayList<>();
+        for (int i = 0; i < Key.values().length; i++) {
+            keys.add(new HashMap<>());
+        }
+
+        for (Map.Entry<String, List<MockCloneInstance>> entry : cloneMap.entrySet()) {
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                MockCloneInstance instance = entry.getValue().get(i);
+                add(hits, keys, Hit.of(entry.getKey(), i, instance), instance.sequences);
+            }
+        }
+        if (nearClones != null) {
+            for (Map.Entry<String, List<NearCloneInstance>> entry : nearClones.entrySet()) {
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    NearCloneInstance instance = entry.getValue().get(i);
+                    add(hits, keys, Hit.of(entry.getKey(), i, instance), instance.sequences);
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            long position = 12 + 8L * keys.size();
+            List<byte[]> encodedHits = new ArrayList<>(hits.size());
+            long hitsSize = 8L * hits.size();
+            for (Hit hit : hits) {
+                byte[] json = GSON.toJson(hit).getBytes(StandardCharsets.UTF_8);
+                encodedHits.add(json);
+                hitsSize += 4 + json.length;
+            }
+            List<byte[]> encodedTables = new ArrayList<>();
+            long[] tableOffsets = new long[keys.size()];
+            long tablePosition = position + hitsSize;
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] table = encodeTable(keys.get(i));
+                encodedTables.add(table);
+                tableOffsets[i] = tablePosition;
+                tablePosition += table.length;
+            }
+            if (tablePosition > Integer.MAX_VALUE) {
+                throw new IOException("Clone index too large: " + tablePosition + " bytes");
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hits.size());
+            for (long offset : tableOffsets) {
+                out.writeLong(offset);
+            }
+            long hitPosition = position + 8L * hits.size();
+            for (byte[] json : encodedHits) {
+                out.writeLong(hitPosition);
+                hitPosition += 4 + json.length;
+            }
+            for (byte[] json : encodedHits) {
+                out.writeInt(json.length);
+                out.write(json);
+            }
+            for (byte[] table : encodedTables) {
+                out.write(table);
+            }
+        }
+    }
+
+    private static void add(List<Hit> hits, List<Map<String, List<Integer>>> keys, Hit hit,
+            List<MockSequence> sequences) {
+        int id = hits.size();
+        hits.add(hit);
+        put(keys, Key.CLASS, hit.mockedClass, id);
+        put(keys, Key.CLASS, simpleName(hit.mockedClass), id);
+        for (MockSequence seq : sequences) {
+            put(keys, Key.PACKAGE, seq.packageName, id);
+            put(keys, Key.FILE, seq.filePath, id);
+            if (seq.filePath != null) {
+                // reports may come from another OS, so both separators are accepted
+                put(keys, Key.FILE, seq.filePath.substring(
+                        Math.max(seq.filePath.lastIndexOf('/'), seq.filePath.lastIndexOf('\\')) + 1), id);
+            }
+            put(keys, Key.TEST, seq.testMethodName, id);
+            put(keys, Key.TEST, seq.className + "." + seq.testMethodName, id);
+        }
+        if (hit.sharedStatements != null) {
+            for (String statement : hit.sharedStatements) {
+                put(keys, Key.STATEMENT, statement, id);
+            }
+        }
+    }
+
+    // ids are added in increasing order, so a posting list stays sorted
+    private static void put(List<Map<String, List<Integer>>> keys, Key key, String value, int id) {
+        if (value == null) {
+            return;
+        }
+        List<Integer> ids = keys.get(key.ordinal()).computeIfAbsent(value, k -> new ArrayList<>());
+        if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+            ids.add(id);
+        }
+    }
+
+    /**
+     * "com.example.HttpRequest<T>" -> "HttpRequest"
+     */
+    static String simpleName(String className) {
+        if (className == null) {
+            return null;
+        }
+        int generic = className.indexOf('<');
+        String raw = generic >= 0 ? className.substring(0, generic) : className;
+        return raw.substring(raw.lastIndexOf('.') + 1);
+    }
+
+    private static byte[] encodeTable(Map<String, List<Integer>> postings) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        Map<byte[], List<Integer>> byKey = new IdentityHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            keys.add(key);
+            byKey.put(key, entry.getValue());
+        }
+        keys.sort(Arrays::compareUnsigned);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int entryOffset = 4 + 4 * keys.size();
+        out.writeInt(keys.size());
+        for (byte[] key : keys) {
+            out.writeInt(entryOffset);
+            entryOffset += 4 + key.length + 4 + 4 * byKey.get(key).size();
+        }
+        for (byte[] key : keys) {
+            out.writeInt(key.length);
+            out.write(key);
+            List<Integer> ids = byKey.get(key);
+            out.writeInt(ids.size());
+            for (int id : ids) {
+                out.writeInt(id);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,342 @@
+package com.mockanalyzer.exporter;
+
+import com.github.javaparser.JavaParser;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Clone detection scoped to the test files changed between two git
+ * revisions, for pull-request checks.
+ *
+ * Only the changed test files are parsed, as they are at the head revision
+ * (read with git show, so the working tree may be on another revision or
+ * dirty; symbols are still resolved against the working tree and its
+ * dependencies). Everything else comes from a baseline report of a
+ * full run at the base revision (a clone report or mockinfo file, in any
+ * layout {@link MockInfoReader} accepts): a mockedClass#packageName group is
+ * affected if a changed file has, or had, sequences in it, and only the
+ * sequences of affected groups are kept from the baseline. Each affected
+ * group is mined twice, as it was at the base revision and as it is at the
+ * head, and the two results are compared by their shared statements.
+ */
+public class DiffExporter {
+
+    public static class CloneChange {
+        public MockCloneInstance before;
+        public MockCloneInstance after;
+    }
+
+    public static class DiffResult {
+        public String base;
+        public String head;
+        public List<String> changedFiles = new ArrayList<>();
+        public int analyzedFiles;
+        public int contextSequences; // taken from the baseline
+        public int affectedGroups;
+        public List<MockCloneInstance> newClones = new ArrayList<>();
+        public List<CloneChange> changedClones = new ArrayList<>(); // same shared statements, other tests
+        public List<MockCloneInstance> resolvedClones = new ArrayList<>();
+        public double seconds;
+
+        public boolean hasNewOrChangedClones() {
+            return !newClones.isEmpty() || !changedClones.isEmpty();
+        }
+    }
+
+    /**
+     * @param projectRoot the project, inside the git repository
+     * @param base        the base revision, e.g. origin/main
+     * @param head        the head revision, e.g. HEAD
+     * @param baseline    report of a full run at the base revision
+     * @param outputPath  path to the output JSON file
+     * @param runCommand  whether to re-run maven/gradle build for the type solver
+     */
+    public static DiffResult exportDiff(Path projectRoot, String base, String head, Path baseline, String outputPath,
+            boolean runCommand, MockCloneDetector detector) throws IOException, InterruptedException {
+        if (detector.isProjectWide()) {
+            throw new IllegalArgumentException("Diff detection groups by package; --cross-package is not supported");
+        }
+        long start = System.nanoTime();
+        projectRoot = projectRoot.toAbsolutePath().normalize();
+        DiffResult result = new DiffResult();
+        result.base = base;
+        result.head = head;
+
+        // Step 1: changed test files, relative to the repository
+        Path repoRoot = Paths.get(git(projectRoot, "rev-parse", "--show-toplevel").trim());
+        Map<String, Path> changed = new LinkedHashMap<>(); // repo-relative path -> file at head
+        Set<String> deleted = new HashSet<>();
+        for (String line : git(projectRoot, "diff", "--name-status", "--no-renames", base, head, "--", "*.java")
+                .split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String repoPath = line.substring(tab + 1).trim();
+            Path file = repoRoot.resolve(repoPath).normalize();
+            if (file.startsWith(projectRoot) && isTestFile(repoPath)) {
+                changed.put(repoPath, file);
+                result.changedFiles.add(repoPath);
+                if (line.startsWith("D")) {
+                    deleted.add(repoPath);
+                }
+            }
+        }
+        System.out.println("[INFO] " + changed.size() + " changed test files between " + base + " and " + head);
+
+        // Step 2: the baseline's ids and the groups its changed files were in
+        Set<String> affected = new HashSet<>();
+        int[] maxId = { -1 };
+        MockInfoReader.forEach(baseline, mockInfo -> {
+            maxId[0] = Math.max(maxId[0], mockInfo.rawMockObjectId);
+            if (changedFile(mockInfo, changed) != null) {
+                affected.add(mockInfo.mockedClass + "#" + mockInfo.classContext.packageName);
+            }
+        });
+
+        // Step 3: analyze the changed files that still exist at head, as they are there
+        List<MockSequence> headSequences = new ArrayList<>();
+        List<String> existing = new ArrayList<>(changed.keySet());
+        existing.removeAll(deleted);
+        if (!existing.isEmpty()) {
+            JavaParser parser = MockInfoExporter.createParser(projectRoot, runCommand, null);
+            int mockId = maxId[0] + 1;
+            for (String repoPath : existing) {
+                Path file = changed.get(repoPath);
+                List<MockInfo> mockInfos = MockInfoExporter.analyzeCode(file, parser,
+                        git(projectRoot, "show", head + ":" + repoPath));
+                if (mockInfos == null) {
+                    throw new IOException("Could not analyze changed file " + file);
+                }
+                result.analyzedFiles++;
+                for (MockInfo mockInfo : mockInfos) {
+                    if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                        mockInfo.rawMockObjectId = mockId++;
+                        mockInfo.mockRole = "mock";
+                        headSequences.addAll(mockInfo.toMockSequences());
+                    }
+                }
+            }
+        }
+        for (MockSequence seq : headSequences) {
+            affected.add(seq.mockedClass + "#" + seq.packageName);
+        }
+        result.affectedGroups = affected.size();
+
+        // Step 4: the affected groups at base (baseline only) and at head (changed files replaced)
+        Map<String, List<MockSequence>> before = new HashMap<>();
+        Map<String, List<MockSequence>> after = new HashMap<>();
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SEQUENCES)) {
+            MockInfoReader.forEach(baseline, mockInfo -> {
+                String key = mockInfo.mockedClass + "#" + mockInfo.classContext.packageName;
+                if (!affected.contains(key) || mockInfo.isSpy() || mockInfo.isGlobalFinal()) {
+                    return;
+                }
+                Path changedFile = changedFile(mockInfo, changed);
+                if (changedFile != null) {
+                    // same path as the head analysis, so tests can be matched
+                    mockInfo.classContext.filePath = changedFile.toString();
+                }
+                for (MockSequence seq : mockInfo.toMockSequences()) {
+                    before.computeIfAbsent(key, k -> new ArrayList<>()).add(seq);
+                    if (changedFile == null) {
+                        // a copy: mining records overlap lines on the sequences
+                        after.computeIfAbsent(key, k -> new ArrayList<>()).add(copy(seq));
+                        result.contextSequences++;
+                    }
+                }
+            });
+            for (MockSequence seq : headSequences) {
+                after.computeIfAbsent(seq.mockedClass + "#" + seq.packageName, k -> new ArrayList<>()).add(seq);
+            }
+        }
+
+        // Step 5: mine both sides, compare
+        Map<String, List<MockCloneInstance>> beforeClones;
+        Map<String, List<MockCloneInstance>> afterClones;
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.MINING)) {
+            beforeClones = detector.detectGroups(before);
+            afterClones = detector.detectGroups(after);
+        }
+        compare(beforeClones, afterClones, result);
+        result.seconds = (System.nanoTime() - start) / 1e9;
+
+        Gson gson = new GsonBuilder()
+                .setPrettyPrinting()
+                .disableHtmlEscaping()
+                .create();
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SERIALIZATION);
+                OutputStreamWriter writer = new OutputStreamWriter(
+                        new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
+            gson.toJson(result, writer);
+        }
+        System.out.println("[INFO] " + result.newClones.size() + " new, " + result.changedClones.size()
+                + " changed, " + result.resolvedClones.size() + " resolved clone instances -> " + outputPath);
+        return result;
+    }
+
+    /**
+     * Instances are the same clone if they are in the same group and share the
+     * same statements; a same clone whose tests differ is changed.
+     *
+     * Several instances can have the same signature (no-stub clones share no
+     * statements, one instance per file), so each signature holds a list.
+     * Within a signature, instances with the same tests are paired first,
+     * then the rest by the most tests in common, and a last single instance
+     * on each side is the same clone; what is left is new or resolved.
+     */
+    private static void compare(Map<String, List<MockCloneInstance>> beforeClones,
+            Map<String, List<MockCloneInstance>> afterClones, DiffResult result) {
+        Map<String, List<MockCloneInstance>> beforeByKey = bySignature(beforeClones);
+        Map<String, List<MockCloneInstance>> afterByKey = bySignature(afterClones);
+        Set<String> keys = new TreeSet<>(beforeByKey.keySet());
+        keys.addAll(afterByKey.keySet());
+        for (String key : keys) {
+            List<MockCloneInstance> before = new ArrayList<>(beforeByKey.getOrDefault(key, Collections.emptyList()));
+            List<MockCloneInstance> after = new ArrayList<>(afterByKey.getOrDefault(key, Collections.emptyList()));
+
+            // unchanged
+            for (Iterator<MockCloneInstance> it = after.iterator(); it.hasNext();) {
+                Set<String> tests = tests(it.next());
+                for (int i = 0; i < before.size(); i++) {
+                    if (tests(before.get(i)).equals(tests)) {
+                        before.remove(i);
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+            // changed: paired with the remaining instance it has the most tests in common with
+            for (Iterator<MockCloneInstance> it = after.iterator(); it.hasNext();) {
+                MockCloneInstance instance = it.next();
+                Set<String> tests = tests(instance);
+                int best = -1;
+                int bestCommon = 0;
+                for (int i = 0; i < before.size(); i++) {
+                    Set<String> common = new HashSet<>(tests(before.get(i)));
+                    common.retainAll(tests);
+                    if (common.size() > bestCommon) {
+                        best = i;
+                        bestCommon = common.size();
+                    }
+                }
+                if (best >= 0) {
+                    CloneChange change = new CloneChange();
+                    change.before = before.remove(best);
+                    change.after = instance;
+                    result.changedClones.add(change);
+                    it.remove();
+                }
+            }
+            if (before.size() == 1 && after.size() == 1) {
+                CloneChange change = new CloneChange();
+                change.before = before.remove(0);
+                change.after = after.remove(0);
+                result.changedClones.add(change);
+            }
+            result.newClones.addAll(after);
+            result.resolvedClones.addAll(before);
+        }
+    }
+
+    private static Map<String, List<MockCloneInstance>> bySignature(Map<String, List<MockCloneInstance>> clones) {
+        Map<String, List<MockCloneInstance>> result = new TreeMap<>();
+        for (List<MockCloneInstance> instances : clones.values()) {
+            for (MockCloneInstance instance : instances) {
+                List<String> shared = new ArrayList<>(instance.sharedStatements);
+                Collections.sort(shared);
+                result.computeIfAbsent(instance.mockedClass + "#" + instance.packageName + "#" + shared,
+                        k -> new ArrayList<>()).add(instance);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> tests(MockCloneInstance instance) {
+        Set<String> tests = new TreeSet<>();
+        for (MockSequence seq : instance.sequences) {
+            tests.add(seq.filePath + "#" + seq.testMethodName + "#" + seq.variableName);
+        }
+        return tests;
+    }
+
+    /**
+     * The head path of the mock's file if it is one of the changed files.
+     * Baseline paths may come from another checkout (or OS), so they are
+     * matched by their repository-relative suffix.
+     */
+    private static Path changedFile(MockInfo mockInfo, Map<String, Path> changed) {
+        String path = mockInfo.classContext.filePath;
+        if (path == null) {
+            return null;
+        }
+        path = path.replace('\\', '/');
+        for (Map.Entry<String, Path> entry : changed.entrySet()) {
+            if (path.equals(entry.getKey()) || path.endsWith("/" + entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    // mocks are only in tests; main sources are not analyzed
+    private static boolean isTestFile(String repoPath) {
+        return ("/" + repoPath).contains("/test/") || repoPath.endsWith("Test.java") || repoPath.endsWith("Tests.java");
+    }
+
+    private static MockSequence copy(MockSequence seq) {
+        MockSequence copy = new MockSequence();
+        copy.mockObjectId = seq.mockObjectId;
+        copy.mockRole = seq.mockRole;
+        copy.variableName = seq.variableName;
+        copy.variableType = seq.variableType;
+        copy.mockedClass = seq.mockedClass;
+        copy.packageName = seq.packageName;
+        copy.filePath = seq.filePath;
+        copy.className = seq.className;
+        copy.testMethodName = seq.testMethodName;
+        copy.isReuseableMock = seq.isReuseableMock;
+        copy.testMethodRawCode = seq.testMethodRawCode;
+        copy.shareableMockLines.putAll(seq.shareableMockLines);
+        copy.testMockLines.putAll(seq.testMockLines);
+        copy.abstractedStatement.putAll(seq.abstractedStatement);
+        copy.rawStatementInfo.putAll(seq.rawStatementInfo);
+        return copy;
+    }
+
+    /**
+     * Runs a git command in the project and returns its output.
+     */
+    private static String git(Path projectRoot, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.add("-C");
+        command.add(projectRoot.toString());
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            in.transferTo(output);
+        }
+        String text = output.toString(StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IOException("git " + String.join(" ", args) + " failed: " + text.trim());
+        }
+        return text;
+    }
+}
@@ -0,0 +1,263 @@
+package com.mockanalyzer.exporter;
+
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Clone detection kept up to date file by file (watch mode).
+ *
+ * On top of a {@link ProjectSession} (parser, type solver and per-file
+ * results), or another {@link Source}, this keeps the mock sequences of every file and the clones of
+ * every mockedClass#packageName group. An update re-analyzes only the given
+ * files and re-mines only the groups their old or new sequences belong to;
+ * all other groups keep their clones.
+ *
+ * Mock ids are assigned per file as it is analyzed: the first analysis gives
+ * the same ids as a full run, later updates give the changed files new ids,
+ * so ids stay unique but are no longer in file order.
+ */
+public class IncrementalCloneSession {
+
+    private final Source source;
+    private final MockCloneDetector detector;
+
+    // file order of the first analysis; new files are appended
+    private final Map<Path, List<MockInfo>> mockInfosByFile = new LinkedHashMap<>();
+    private final Map<Path, List<MockSequence>> sequencesByFile = new LinkedHashMap<>();
+    // mockedClass#packageName -> its clone instances (groups without clones are absent)
+    private final Map<String, List<MockCloneInstance>> clonesByGroup = new HashMap<>();
+    private int nextMockId = 0;
+
+    /**
+     * What an update changed.
+     */
+    public static class Update {
+        public int changedFiles;
+        public int reparsedFiles;
+        public int failedFiles; // left as they were, e.g. files with syntax errors mid-edit
+        public long millis;
+        // mockedClass#packageName -> clones now; an empty list when the group lost its clones
+        public Map<String, List<MockCloneInstance>> groups = new TreeMap<>();
+    }
+
+    /**
+     * Where the per-file mock information comes from; a {@link ProjectSession}
+     * unless given otherwise (e.g. in tests).
+     */
+    public interface Source {
+        /**
+         * Every java file of the project and its mocks, in file order.
+         */
+        Map<Path, List<MockInfo>> analyzeByFile() throws IOException, InterruptedException;
+
+        /**
+         * The given files and their mocks now; an empty list for a deleted
+         * file, null for a file that could not be analyzed.
+         */
+        Map<Path, List<MockInfo>> update(Collection<Path> javaFiles) throws IOException, InterruptedException;
+
+        /**
+         * Files parsed again by the last call.
+         */
+        int reparsedFiles();
+    }
+
+    public IncrementalCloneSession(ProjectSession session, MockCloneDetector detector) {
+        this(new Source() {
+            @Override
+            public Map<Path, List<MockInfo>> analyzeByFile() throws IOException, InterruptedException {
+                return session.analyzeByFile();
+            }
+
+            @Override
+            public Map<Path, List<MockInfo>> update(Collection<Path> javaFiles)
+                    throws IOException, InterruptedException {
+                return session.update(javaFiles);
+            }
+
+            @Override
+            public int reparsedFiles() {
+                return session.reparsedFiles;
+            }
+        }, detector);
+    }
+
+    public IncrementalCloneSession(Source source, MockCloneDetector detector) {
+        if (detector.isProjectWide()) {
+            throw new IllegalArgumentException("Incremental detection groups by package; --cross-package is not supported");
+        }
+        if (detector.isNearCloneEnabled()) {
+            // near clones are compared across all groups, so they cannot be kept up to date per group
+            throw new IllegalArgumentException("Incremental detection re-mines single groups; --near is not supported");
+        }
+        this.source = source;
+        this.detector = detector;
+    }
+
+    /**
+     * Analyzes the whole project and mines every group.
+     */
+    public synchronized Update analyzeAll() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        mockInfosByFile.clear();
+        sequencesByFile.clear();
+        clonesByGroup.clear();
+        nextMockId = 0;
+
+        Map<Path, List<MockInfo>> analyzed = source.analyzeByFile();
+        Set<String> affected = new HashSet<>();
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SEQUENCES)) {
+            for (Map.Entry<Path, List<MockInfo>> entry : analyzed.entrySet()) {
+                affected.addAll(replace(entry.getKey(), entry.getValue()));
+            }
+        }
+        Update update = remine(affected);
+        update.changedFiles = analyzed.size();
+        update.reparsedFiles = source.reparsedFiles();
+        update.millis = (System.nanoTime() - start) / 1_000_000;
+        return update;
+    }
+
+    /**
+     * Re-analyzes the given files (changed, created or deleted) and re-mines
+     * the groups they touch.
+     */
+    public synchronized Update update(Collection<Path> javaFiles) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Map<Path, List<MockInfo>> analyzed = source.update(javaFiles);
+        Set<String> affected = new HashSet<>();
+        int failed = 0;
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SEQUENCES)) {
+            for (Map.Entry<Path, List<MockInfo>> entry : analyzed.entrySet()) {
+                if (entry.getValue() == null) {
+                    failed++;
+                    continue;
+                }
+                affected.addAll(replace(entry.getKey(), entry.getValue()));
+            }
+        }
+        Update update = remine(affected);
+        update.changedFiles = javaFiles.size();
+        update.reparsedFiles = source.reparsedFiles();
+        update.failedFiles = failed;
+        update.millis = (System.nanoTime() - start) / 1_000_000;
+        return update;
+    }
+
+    /**
+     * The files with mocks under the directory, e.g. one that was deleted or
+     * moved away, in file order.
+     */
+    public synchronized List<Path> filesUnder(Path dir) {
+        List<Path> files = new ArrayList<>();
+        for (Path file : mockInfosByFile.keySet()) {
+            if (file.startsWith(dir)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * The analyzed mock objects, as written to detectedMockObjects.
+     */
+    public synchronized List<MockInfo> mockInfos() {
+        List<MockInfo> mockInfos = new ArrayList<>();
+        for (List<MockInfo> fileMocks : mockInfosByFile.values()) {
+            mockInfos.addAll(fileMocks);
+        }
+        return mockInfos;
+    }
+
+    /**
+     * All current clones, grouped by mockedClass, mocked classes and packages in sorted order.
+     */
+    public synchronized Map<String, List<MockCloneInstance>> clones() {
+        Map<String, List<MockCloneInstance>> cloneMap = new TreeMap<>();
+        for (String key : new TreeSet<>(clonesByGroup.keySet())) {
+            cloneMap.computeIfAbsent(key.split("#", 2)[0], k -> new ArrayList<>()).addAll(clonesByGroup.get(key));
+        }
+        return cloneMap;
+    }
+
+    /**
+     * Replaces the mocks and sequences of a file and returns the groups its
+     * old and new sequences belong to.
+     */
+    private Set<String> replace(Path javaFile, List<MockInfo> analyzed) {
+        Set<String> affected = new HashSet<>();
+        List<MockSequence> old = sequencesByFile.get(javaFile);
+        if (old != null) {
+            for (MockSequence seq : old) {
+                affected.add(seq.mockedClass + "#" + seq.packageName);
+            }
+        }
+        if (analyzed.isEmpty()) {
+            sequencesByFile.remove(javaFile);
+            mockInfosByFile.remove(javaFile);
+            return affected;
+        }
+
+        // same filtering and id assignment as MockCloneExporter
+        List<MockInfo> fixedMockInfos = new ArrayList<>();
+        List<MockSequence> sequences = new ArrayList<>();
+        for (MockInfo mockInfo : analyzed) {
+            if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                mockInfo.rawMockObjectId = nextMockId++;
+                mockInfo.mockRole = "mock";
+                fixedMockInfos.add(mockInfo);
+                sequences.addAll(mockInfo.toMockSequences());
+            }
+        }
+        for (MockSequence seq : sequences) {
+            affected.add(seq.mockedClass + "#" + seq.packageName);
+        }
+        // a changed file keeps its position
+        mockInfosByFile.put(javaFile, fixedMockInfos);
+        sequencesByFile.put(javaFile, sequences);
+        return affected;
+    }
+
+    private Update remine(Set<String> affected) {
+        Update update = new Update();
+        if (affected.isEmpty()) {
+            return update;
+        }
+        // the affected groups, with their sequences in file order as in a full run
+        Map<String, List<MockSequence>> groups = new HashMap<>();
+        for (List<MockSequence> sequences : sequencesByFile.values()) {
+            for (MockSequence seq : sequences) {
+                String key = seq.mockedClass + "#" + seq.packageName;
+                if (affected.contains(key)) {
+                    seq.overlapLines.clear();
+                    groups.computeIfAbsent(key, k -> new ArrayList<>()).add(seq);
+                }
+            }
+        }
+
+        Map<String, List<MockCloneInstance>> mined;
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.MINING)) {
+            mined = detector.detectGroups(groups);
+        }
+        for (String key : affected) {
+            clonesByGroup.remove(key);
+            update.groups.put(key, new ArrayList<>());
+        }
+        // instances carry their group's mockedClass and packageName
+        for (List<MockCloneInstance> instances : mined.values()) {
+            for (MockCloneInstance instance : instances) {
+                String key = instance.mockedClass + "#" + instance.packageName;
+                clonesByGroup.computeIfAbsent(key, k -> new ArrayList<>()).add(instance);
+                update.groups.computeIfAbsent(key, k -> new ArrayList<>()).add(instance);
+            }
+        }
+        return update;
+    }
+}
@@ -2,15 +2,22 @@ package com.mockanalyzer.exporter;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.cloneDetector.SequenceStore;
+import com.mockanalyzer.metrics.RunMetrics;
 import com.mockanalyzer.model.MockCloneInstance;
 import com.mockanalyzer.model.MockInfo;
 import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.NearCloneInstance;
 
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class MockCloneExporter {
@@ -23,42 +30,269 @@ public class MockCloneExporter {
      * @param runCommand whether to re-run maven/gradle build
      */
     public static void exportClones(Path projectRoot, String outputPath, boolean runCommand) throws Exception {
-        // Step 1: Analyze
-        List<MockInfo> combinedResults = MockInfoExporter.analyzeProject(projectRoot, runCommand);
-        List<MockInfo> fixedMockInfos = new ArrayList<>();
+        exportClones(projectRoot, outputPath, runCommand, new MockCloneDetector());
+    }
+
+    /**
+     * Same as {@link #exportClones(Path, String, boolean)}, with a pre-configured detector.
+     */
+    public static void exportClones(Path projectRoot, String outputPath, boolean runCommand,
+            MockCloneDetector detector) throws Exception {
+        exportClones(projectRoot, outputPath, runCommand, detector, new AnalysisPipeline());
+    }
+
+    /**
+     * Same as {@link #exportClones(Path, String, boolean, MockCloneDetector)}, with a pre-configured pipeline.
+     *
+     * @return the detected clones, grouped by mockedClass
+     */
+    public static Map<String, List<MockCloneInstance>> exportClones(Path projectRoot, String outputPath, boolean runCommand,
+            MockCloneDetector detector, AnalysisPipeline pipeline) throws Exception {
+        // with journaling, completed files are journaled, so a crashed run can be resumed
+        AnalysisJournal journal = pipeline.isJournaling() ? AnalysisJournal.open(outputPath, pipeline.isResume()) : null;
+        pipeline.setJournal(journal);
+        SequenceStore store = openStore(outputPath, detector);
+        pipeline.setSequenceStore(store);
+        boolean completed = false;
+        Map<String, List<MockCloneInstance>> cloneMap;
+        try {
+            // Step 1-2: Analyze, flatten and group sequences in a staged pipeline
+            pipeline.run(projectRoot, runCommand);
+            List<MockInfo> fixedMockInfos = pipeline.mockInfos;
+            List<MockSequence> allSequences = pipeline.allSequences;
+
+            // Step 3-4: Detect Clones, write JSON
+            cloneMap = detectAndWrite(fixedMockInfos, allSequences, pipeline.groups, store, outputPath, detector);
+            completed = true;
+        } finally {
+            if (journal != null) {
+                journal.close(completed);
+            }
+            if (store != null) {
+                store.close();
+            }
+        }
 
+        System.out.println("Mock clone detection completed. Result -> " + outputPath);
+        return cloneMap;
+    }
+    /**
+     * Flattens already analyzed MockInfos (e.g. from a daemon session or a
+     * mockinfo file), detects mock clones and writes them to JSON.
+     *
+     * @param mockInfos  MockInfos as produced by the analysis, in file order
+     * @param outputPath path to the output JSON file
+     * @return the detected clones, grouped by mockedClass
+     */
+    public static Map<String, List<MockCloneInstance>> exportClones(List<MockInfo> mockInfos, String outputPath,
+            MockCloneDetector detector) throws Exception {
         // Step 2: Flatten all sequences
         int mockId = 0;
+        List<MockInfo> fixedMockInfos = new ArrayList<>();
         List<MockSequence> allSequences = new ArrayList<>();
-        for (MockInfo mockInfo : combinedResults) {
-            if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {                
-                mockInfo.rawMockObjectId = mockId++;
-                mockInfo.mockRole = "mock";
-                fixedMockInfos.add(mockInfo);
-                allSequences.addAll(mockInfo.toMockSequences());
-                continue; // Skip empty mock info
+        Map<String, List<MockCloneInstance>> cloneMap;
+        try (SequenceStore store = openStore(outputPath, detector)) {
+            try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SEQUENCES)) {
+                for (MockInfo mockInfo : mockInfos) {
+                    if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                        mockInfo.rawMockObjectId = mockId++;
+                        mockInfo.mockRole = "mock";
+                        fixedMockInfos.add(mockInfo);
+                        if (store != null) {
+                            store.addAll(mockInfo.toMockSequences());
+                        } else {
+                            allSequences.addAll(mockInfo.toMockSequences());
+                        }
+                    }
+                }
+            }
+
+            cloneMap = detectAndWrite(fixedMockInfos, allSequences, null, store, outputPath, detector);
+        }
+        System.out.println("Mock clone detection completed. Result -> " + outputPath);
+        return cloneMap;
+    }
+
+    /**
+     * Detects mock clones from a previously written mockinfo file or clone
+     * report, without a build or a type solver.
+     *
+     * The input is streamed twice: the first pass only keeps the mock
+     * sequences needed for detection, the second re-applies the same id
+     * assignment and writes each MockInfo straight to the report. The MockInfo
+     * records themselves are never all held in memory.
+     *
+     * @param input      a MockInfo array (info/sequence output) or a clone report
+     * @param outputPath path to the output JSON file
+     * @return the detected clones, grouped by mockedClass
+     */
+    public static Map<String, List<MockCloneInstance>> exportClonesFrom(Path input, String outputPath,
+            MockCloneDetector detector) throws IOException {
+        // Step 1-2: Stream and flatten all sequences
+        List<MockSequence> allSequences = new ArrayList<>();
+        int[] mockCount = new int[1];
+        Map<String, List<MockCloneInstance>> cloneMap;
+        Map<String, List<NearCloneInstance>> nearClones;
+        try (SequenceStore store = openStore(outputPath, detector)) {
+            try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SEQUENCES)) {
+                MockInfoReader.forEach(input, mockInfo -> {
+                    if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                        mockInfo.rawMockObjectId = mockCount[0]++;
+                        mockInfo.mockRole = "mock";
+                        if (store != null) {
+                            store.addAll(mockInfo.toMockSequences());
+                        } else {
+                            allSequences.addAll(mockInfo.toMockSequences());
+                        }
+                    }
+                });
+            }
+            System.out.println("[INFO] Read " + mockCount[0] + " mock objects, "
+                    + (store != null ? store.size() : allSequences.size()) + " sequences from " + input);
+
+            // Step 3: Detect Clones
+            try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.MINING)) {
+                if (store != null) {
+                    cloneMap = detector.detect(store);
+                    nearClones = detector.isNearCloneEnabled() ? detector.detectNearClones(store) : null;
+                } else {
+                    cloneMap = detector.detect(allSequences);
+                    nearClones = detector.isNearCloneEnabled() ? detector.detectNearClones(allSequences) : null;
+                }
             }
         }
 
+        // Step 4: Write JSON, same layout as MockCloneResult
+        if (detector.isNormalizedReport()) {
+            // the tables are built from a second pass, then written at once
+            try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SERIALIZATION)) {
+                NormalizedReport.Builder builder = new NormalizedReport.Builder();
+                int[] mockId = new int[1];
+                MockInfoReader.forEach(input, mockInfo -> {
+                    if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                        mockInfo.rawMockObjectId = mockId[0]++;
+                        mockInfo.mockRole = "mock";
+                        mockInfo.toMockSequences();
+                        builder.addMock(mockInfo);
+                    }
+                });
+                builder.build(cloneMap, nearClones).write(Paths.get(outputPath));
+                CloneIndex.write(CloneIndex.indexFileOf(outputPath), cloneMap, nearClones);
+            }
+            System.out.println("Mock clone detection completed. Result -> " + outputPath);
+            return cloneMap;
+        }
+        Gson gson = new GsonBuilder()
+                .setPrettyPrinting()
+                .disableHtmlEscaping()
+                .create();
+        // the second pass re-reads the input, so its reading is counted as serialization
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SERIALIZATION);
+                JsonWriter json = gson.newJsonWriter(new OutputStreamWriter(
+                        new FileOutputStream(outputPath), StandardCharsets.UTF_8))) {
+            json.beginObject();
+            json.name("detectedMockClones");
+            gson.toJson(cloneMap, new TypeToken<Map<String, List<MockCloneInstance>>>() {
+            }.getType(), json);
+
+            json.name("detectedMockObjects");
+            json.beginArray();
+            int[] mockId = new int[1];
+            MockInfoReader.forEach(input, mockInfo -> {
+                if (!mockInfo.isSpy() && !mockInfo.isGlobalFinal()) {
+                    mockInfo.rawMockObjectId = mockId[0]++;
+                    mockInfo.mockRole = "mock";
+                    // toMockSequences also updates the MockInfo (e.g. its mock pattern)
+                    mockInfo.toMockSequences();
+                    gson.toJson(mockInfo, MockInfo.class, json);
+                }
+            });
+            json.endArray();
+
+            if (nearClones != null) {
+                json.name("nearMockClones");
+                gson.toJson(nearClones, new TypeToken<Map<String, List<NearCloneInstance>>>() {
+                }.getType(), json);
+            }
+            json.endObject();
+            CloneIndex.write(CloneIndex.indexFileOf(outputPath), cloneMap, nearClones);
+        }
+
+        System.out.println("Mock clone detection completed. Result -> " + outputPath);
+        return cloneMap;
+    }
+
+    /**
+     * Opens the store sequences are spilled to, or returns null if the detector does not spill.
+     */
+    private static SequenceStore openStore(String outputPath, MockCloneDetector detector) throws IOException {
+        return detector.isSpill() ? SequenceStore.create(Paths.get(outputPath + ".sequences")) : null;
+    }
+
+    /**
+     * Step 3-4. With a store, the sequences are taken from it; otherwise groups
+     * may be null, then the detector groups allSequences itself.
+     */
+    private static Map<String, List<MockCloneInstance>> detectAndWrite(List<MockInfo> fixedMockInfos,
+            List<MockSequence> allSequences, Map<String, List<MockSequence>> groups, SequenceStore store,
+            String outputPath, MockCloneDetector detector) throws IOException {
         // Step 3: Detect Clones
-        Map<String, List<MockCloneInstance>> cloneMap = new MockCloneDetector().detect(allSequences);
-        MockCloneResult cloneResult = new MockCloneResult(fixedMockInfos, cloneMap);
+        Map<String, List<MockCloneInstance>> cloneMap;
+        Map<String, List<NearCloneInstance>> nearClones = null;
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.MINING)) {
+            if (store != null) {
+                cloneMap = detector.detect(store);
+            } else {
+                cloneMap = detector.isProjectWide() || groups == null
+                        ? detector.detect(allSequences)
+                        : detector.detectGroups(groups);
+            }
+            if (detector.isNearCloneEnabled()) {
+                nearClones = store != null
+                        ? detector.detectNearClones(store)
+                        : detector.detectNearClones(allSequences);
+            }
+        }
         // Step 4: Write JSON
+        writeReport(fixedMockInfos, cloneMap, nearClones, outputPath, detector.isNormalizedReport());
+        return cloneMap;
+    }
+
+    /**
+     * Step 4 on its own: writes a clone report (default or normalized layout)
+     * and its {@link CloneIndex} for clones that are already detected.
+     *
+     * @param nearClones the near clones, or null without --near
+     */
+    public static void writeReport(List<MockInfo> fixedMockInfos, Map<String, List<MockCloneInstance>> cloneMap,
+            Map<String, List<NearCloneInstance>> nearClones, String outputPath, boolean normalized)
+            throws IOException {
+        if (normalized) {
+            try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SERIALIZATION)) {
+                NormalizedReport.of(fixedMockInfos, cloneMap, nearClones).write(Paths.get(outputPath));
+                CloneIndex.write(CloneIndex.indexFileOf(outputPath), cloneMap, nearClones);
+            }
+            return;
+        }
+        MockCloneResult cloneResult = new MockCloneResult(fixedMockInfos, cloneMap);
+        cloneResult.nearMockClones = nearClones;
         Gson gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .disableHtmlEscaping()
                 .create();
 
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SERIALIZATION);
+                OutputStreamWriter writer = new OutputStreamWriter(
+                        new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
             gson.toJson(cloneResult, writer);
+            CloneIndex.write(CloneIndex.indexFileOf(outputPath), cloneMap, nearClones);
         }
-
-        System.out.println("Mock clone detection completed. Result -> " + outputPath);
     }
+
     private static class MockCloneResult{
         private Map<String, List<MockCloneInstance>> detectedMockClones;
         private List<MockInfo> detectedMockObjects;
+        private Map<String, List<NearCloneInstance>> nearMockClones; // only written with --near
         public MockCloneResult() {
             this.detectedMockObjects = new ArrayList<>();
             this.detectedMockClones = new HashMap<>();
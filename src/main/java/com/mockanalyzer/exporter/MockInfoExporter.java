@@ -6,11 +6,16 @@ import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.mockanalyzer.metrics.FileAnalysisEvent;
+import com.mockanalyzer.metrics.MeasuredSymbolResolver;
+import com.mockanalyzer.metrics.RunMetrics;
 import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.visitor.ConcurrentTypeSolver;
 import com.mockanalyzer.visitor.EnhancedProjectResolver;
+import com.mockanalyzer.visitor.IoExecutors;
+import com.mockanalyzer.visitor.SharedJarIndex;
 import com.mockanalyzer.visitor.MockCollectorVisitor;
 
 import java.io.FileOutputStream;
@@ -19,8 +24,15 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 /**
@@ -30,90 +42,284 @@ import java.util.stream.Stream;
  */
 public class MockInfoExporter {
 
+    // files read ahead on I/O threads with virtual I/O
+    private static final int READ_AHEAD = 64;
+
     /**
      * 分析项目并输出 MockInfo 列表到 JSON 文件。
      *
      * @param projectRoot 项目根目录
      * @param outputPath  输出 JSON 文件路径
      * @param runCommand  是否执行构建命令
+     * @return 是否成功 / whether the result was written
+     */
+
+    public static boolean export(Path projectRoot, String outputPath, boolean runCommand) {
+        return export(projectRoot, outputPath, runCommand, false);
+    }
+
+    /**
+     * 同上；resume 为 true 时跳过日志中已完成的文件。
+     * Same as above; with resume, files completed in the journal of a previous
+     * (crashed) run are not analyzed again.
      */
+    public static boolean export(Path projectRoot, String outputPath, boolean runCommand, boolean resume) {
+        return export(projectRoot, outputPath, runCommand, resume, resume);
+    }
 
-    public static void export(Path projectRoot, String outputPath, boolean runCommand) {
+    /**
+     * 同上；journaling 为 true 时记录日志，以便之后 resume。
+     * Same as above; with journaling, completed files are journaled so that
+     * a crashed run can be resumed.
+     */
+    public static boolean export(Path projectRoot, String outputPath, boolean runCommand, boolean resume,
+            boolean journaling) {
 
         if (!Files.exists(projectRoot) || !Files.isDirectory(projectRoot)) {
             System.err.println("Error: Invalid project root -> " + projectRoot);
-            System.exit(1);
+            return false;
         }
 
+        AnalysisJournal journal = null;
+        boolean completed = false;
         try {
-            List<MockInfo> combinedResults = analyzeProject(projectRoot, runCommand);
+            if (journaling || resume) {
+                journal = AnalysisJournal.open(outputPath, resume);
+            }
+            List<MockInfo> combinedResults = analyzeProject(projectRoot, runCommand, journal);
             writeMockInfoToJson(combinedResults, outputPath);
+            completed = true;
             System.out.println("Analysis completed. Result -> " + outputPath);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            if (journal != null) {
+                journal.close(completed);
+            }
         }
+        return completed;
     }
 
     public static List<MockInfo> analyzeProject(Path projectRoot, boolean runCommand)
             throws IOException, InterruptedException {
-        List<MockInfo> combinedResults = new ArrayList<>();
+        return analyzeProject(projectRoot, runCommand, null);
+    }
 
-        // 获取 CombinedTypeSolver
-        CombinedTypeSolver combinedSolver = EnhancedProjectResolver.createTypeSolver(projectRoot, runCommand);
+    /**
+     * 同上；journal 不为空时，记录每个完成的文件，并复用已记录且未修改的文件结果。
+     * Same as above; with a journal, every completed file is recorded, and files
+     * already journaled (and unchanged) are taken from it instead of being parsed.
+     */
+    public static List<MockInfo> analyzeProject(Path projectRoot, boolean runCommand, AnalysisJournal journal)
+            throws IOException, InterruptedException {
+        List<MockInfo> combinedResults = new ArrayList<>();
 
-        ParserConfiguration parserConfiguration = new ParserConfiguration();
-        parserConfiguration.setSymbolResolver(new JavaSymbolSolver(combinedSolver));
-        JavaParser parser = new JavaParser(parserConfiguration);
+        JavaParser parser = createParser(projectRoot, runCommand, null);
 
         // 收集所有 Java 文件
         List<Path> javaFiles = new ArrayList<>();
-        try (Stream<Path> paths = Files.walk(projectRoot)) {
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.WALK);
+                Stream<Path> paths = Files.walk(projectRoot)) {
             paths.filter(p -> p.toString().endsWith(".java")).forEach(javaFiles::add);
         }
 
-        for (Path javaFile : javaFiles) {
-            try {
-                ParseResult<CompilationUnit> parseResult = parser.parse(javaFile);
+        if (IoExecutors.isVirtualIo()) {
+            analyzeWithIoThreads(parser, javaFiles, combinedResults, journal);
+            return combinedResults;
+        }
 
-                if (parseResult.isSuccessful() && parseResult.getResult().isPresent()) {
-                    CompilationUnit cu = parseResult.getResult().get();
+        for (Path javaFile : javaFiles) {
+            List<MockInfo> journaled = journal == null ? null : journal.lookup(javaFile);
+            if (journaled != null) {
+                combinedResults.addAll(journaled);
+                continue;
+            }
+            List<MockInfo> mockList = analyzeMeasured(javaFile, () -> parser.parse(javaFile));
+            if (mockList == null) {
+                continue;
+            }
+            if (journal != null) {
+                journal.record(javaFile, mockList);
+            }
+            combinedResults.addAll(mockList);
+        }
 
-                    // 判断是否包含 mockito 导入
-                    boolean hasMockitoImport = cu.findAll(ImportDeclaration.class).stream()
-                            .anyMatch(imp -> imp.getNameAsString().startsWith("org.mockito"));
+        return combinedResults;
+    }
 
-                    if (hasMockitoImport) {
-                        MockCollectorVisitor visitor = new MockCollectorVisitor(javaFile.toString());
-                        visitor.visit(cu, null);
+    /**
+     * 在 I/O 线程上预读文件（最多 READ_AHEAD 个），当前线程按原顺序解析。
+     * Reads files ahead on I/O threads (at most READ_AHEAD in flight) while
+     * the current thread parses them in the original order.
+     */
+    private static void analyzeWithIoThreads(JavaParser parser, List<Path> javaFiles, List<MockInfo> combinedResults,
+            AnalysisJournal journal) throws InterruptedException {
+        ExecutorService io = IoExecutors.newIoExecutor();
+        try {
+            Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+            Map<Path, List<MockInfo>> journaledFiles = new HashMap<>();
+            List<Path> toAnalyze = new ArrayList<>();
+            for (Path javaFile : javaFiles) {
+                List<MockInfo> journaled = journal == null ? null : journal.lookup(javaFile);
+                if (journaled != null) {
+                    journaledFiles.put(javaFile, journaled);
+                } else {
+                    toAnalyze.add(javaFile);
+                }
+            }
 
-                        List<MockInfo> mockList = visitor.getFinalMockList();
-                        for (MockInfo info : mockList) {
-                            info.classContext.filePath = javaFile.toString();
-                        }
-                        combinedResults.addAll(mockList);
+            int next = 0;
+            for (Path javaFile : javaFiles) {
+                List<MockInfo> journaled = journaledFiles.get(javaFile);
+                if (journaled != null) {
+                    combinedResults.addAll(journaled);
+                    continue;
+                }
+                while (next < toAnalyze.size() && inFlight.size() < READ_AHEAD) {
+                    Path toRead = toAnalyze.get(next++);
+                    inFlight.add(io.submit(() -> Files.readAllBytes(toRead)));
+                }
+                try {
+                    String code = new String(inFlight.poll().get(), StandardCharsets.UTF_8);
+                    List<MockInfo> mockList = analyzeCode(javaFile, parser, code);
+                    if (mockList == null) {
+                        continue;
                     }
-                } else {
-                    System.err.println("[WARN] Parse failed: " + javaFile);
+                    if (journal != null) {
+                        journal.record(javaFile, mockList);
+                    }
+                    combinedResults.addAll(mockList);
+                } catch (ExecutionException e) {
+                    System.err.println("[WARN] Skipping file due to exception: " + javaFile + " - " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    System.err.println("[WARN] Skipping file due to exception: " + javaFile + " - " + e.getMessage());
                 }
-            } catch (Exception e) {
-                System.err.println("[WARN] Skipping file due to exception: " + javaFile + " - " + e.getMessage());
             }
+        } finally {
+            io.shutdownNow();
         }
+    }
 
-        return combinedResults;
+    /**
+     * 解析并访问已读入的源码，计入 parse 阶段；失败时返回 null。
+     * Parses and visits source code that was already read, as part of the
+     * parse phase; null if the file had to be skipped.
+     */
+    static List<MockInfo> analyzeCode(Path javaFile, JavaParser parser, String code) {
+        return analyzeMeasured(javaFile, () -> {
+            ParseResult<CompilationUnit> parseResult = parser.parse(code);
+            if (parseResult.getResult().isPresent()) {
+                parseResult.getResult().get().setStorage(javaFile, StandardCharsets.UTF_8);
+            }
+            return parseResult;
+        });
+    }
+
+    private interface Parse {
+        ParseResult<CompilationUnit> parse() throws IOException;
+    }
+
+    /**
+     * 解析并访问一个文件，记录运行指标和 JFR 事件；失败时返回 null。
+     * Parses and visits one file, recording the run metrics and a
+     * {@link FileAnalysisEvent}; null if the file had to be skipped.
+     */
+    private static List<MockInfo> analyzeMeasured(Path javaFile, Parse parse) {
+        FileAnalysisEvent event = new FileAnalysisEvent();
+        event.begin();
+        int callsBefore = MeasuredSymbolResolver.callsOnThread();
+        int failuresBefore = MeasuredSymbolResolver.failuresOnThread();
+        RunMetrics.Span span = RunMetrics.phase(RunMetrics.Phase.PARSE);
+        List<MockInfo> mockList = null;
+        try {
+            mockList = analyzeFile(javaFile, parse.parse());
+            return mockList;
+        } catch (Exception e) {
+            System.err.println("[WARN] Skipping file due to exception: " + javaFile + " - " + e.getMessage());
+            return null;
+        } finally {
+            span.close();
+            RunMetrics.get().fileAnalyzed(javaFile, span.elapsedNanos(), mockList == null);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = javaFile.toString();
+                event.resolveCalls = MeasuredSymbolResolver.callsOnThread() - callsBefore;
+                event.resolveFailures = MeasuredSymbolResolver.failuresOnThread() - failuresBefore;
+                event.mocksFound = mockList == null ? 0 : mockList.size();
+                event.failed = mockList == null;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 创建带符号解析的 JavaParser（会构建项目的 type solver）。
+     * Creates a JavaParser with symbol resolution (builds the project's type solver).
+     */
+    static JavaParser createParser(Path projectRoot, boolean runCommand, SharedJarIndex jarIndex)
+            throws IOException, InterruptedException {
+        return createParser(EnhancedProjectResolver.createTypeSolver(projectRoot, runCommand, jarIndex));
     }
 
-    public static void writeMockInfoToJson(List<MockInfo> mockInfos, String outputPath) {
+    /**
+     * 在共享的 type solver 上创建 JavaParser；每个线程各用一个。
+     * Creates a JavaParser on a shared type solver; use one per thread.
+     */
+    static JavaParser createParser(ConcurrentTypeSolver typeSolver) {
+        ParserConfiguration parserConfiguration = new ParserConfiguration();
+        // resolutions are timed and counted for the run metrics
+        parserConfiguration.setSymbolResolver(new MeasuredSymbolResolver(
+                new JavaSymbolSolver(typeSolver == null ? null : typeSolver.newView())));
+        return new JavaParser(parserConfiguration);
+    }
+
+    /**
+     * 收集单个已解析文件中的 MockInfo；非 mockito 文件返回空列表，解析失败时返回 null。
+     * Collects the MockInfos of one parsed file; empty if the file does not
+     * import mockito, null if it failed to parse (it was not analyzed, so
+     * callers must not take it for a file without mocks).
+     */
+    static List<MockInfo> analyzeFile(Path javaFile, ParseResult<CompilationUnit> parseResult) {
+        if (!parseResult.isSuccessful() || !parseResult.getResult().isPresent()) {
+            System.err.println("[WARN] Parse failed: " + javaFile);
+            return null;
+        }
+        CompilationUnit cu = parseResult.getResult().get();
+
+        // 判断是否包含 mockito 导入
+        boolean hasMockitoImport = cu.findAll(ImportDeclaration.class).stream()
+                .anyMatch(imp -> imp.getNameAsString().startsWith("org.mockito"));
+        if (!hasMockitoImport) {
+            return new ArrayList<>();
+        }
+
+        MockCollectorVisitor visitor = new MockCollectorVisitor(javaFile.toString());
+        visitor.visit(cu, null);
+
+        List<MockInfo> mockList = visitor.getFinalMockList();
+        for (MockInfo info : mockList) {
+            info.classContext.filePath = javaFile.toString();
+        }
+        return mockList;
+    }
+
+    /**
+     * 将 MockInfo 写入 JSON 文件；写入失败时抛出异常。
+     * Writes the MockInfos to a JSON file; throws if it could not be written,
+     * so that the run is not taken as completed.
+     */
+    public static void writeMockInfoToJson(List<MockInfo> mockInfos, String outputPath) throws IOException {
         Gson gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .disableHtmlEscaping()
                 .create();
 
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.SERIALIZATION);
+                OutputStreamWriter writer = new OutputStreamWriter(
+                        new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
             gson.toJson(mockInfos, writer);
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 }
@@ -0,0 +1,97 @@
+package com.mockanalyzer.exporter;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mockanalyzer.model.MockInfo;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams MockInfo records out of a previously written JSON file, one record
+ * at a time, so that the file never has to fit in memory as a whole.
+ *
+ * Accepted inputs:
+ * - the MockInfo array written by `info` / `sequence`;
+ * - a clone report written by `clone` (its detectedMockObjects);
+ * - a normalized clone report (its mocks table, rebuilt from the files,
+ *   methods and statements tables, which are read first).
+ */
+public class MockInfoReader {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Calls the consumer for every MockInfo in the file, in file order.
+     */
+    public static void forEach(Path input, Consumer<MockInfo> consumer) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new BufferedInputStream(Files.newInputStream(input), 1 << 16), StandardCharsets.UTF_8))) {
+            JsonToken top = reader.peek();
+            if (top == JsonToken.BEGIN_ARRAY) {
+                readArray(reader, consumer);
+            } else if (top == JsonToken.BEGIN_OBJECT) {
+                boolean found = false;
+                // only the tables mocks refer to are kept
+                NormalizedReport tables = new NormalizedReport();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "detectedMockObjects":
+                            readArray(reader, consumer);
+                            found = true;
+                            break;
+                        case "files":
+                            tables.files = GSON.fromJson(reader,
+                                    new TypeToken<List<NormalizedReport.FileRow>>() {
+                                    }.getType());
+                            break;
+                        case "methods":
+                            tables.methods = GSON.fromJson(reader,
+                                    new TypeToken<List<NormalizedReport.MethodRow>>() {
+                                    }.getType());
+                            break;
+                        case "statements":
+                            tables.statements = GSON.fromJson(reader,
+                                    new TypeToken<List<NormalizedReport.StatementRow>>() {
+                                    }.getType());
+                            break;
+                        case "mocks":
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                consumer.accept(tables.toMockInfo(
+                                        GSON.fromJson(reader, NormalizedReport.MockRow.class)));
+                            }
+                            reader.endArray();
+                            found = true;
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (!found) {
+                    throw new IOException("No detectedMockObjects or mocks in " + input);
+                }
+            } else {
+                throw new IOException("Expected a MockInfo array or a clone report: " + input);
+            }
+        }
+    }
+
+    private static void readArray(JsonReader reader, Consumer<MockInfo> consumer) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            consumer.accept(GSON.fromJson(reader, MockInfo.class));
+        }
+        reader.endArray();
+    }
+}
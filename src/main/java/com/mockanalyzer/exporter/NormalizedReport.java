@@ -0,0 +1,464 @@
+package com.mockanalyzer.exporter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.NearCloneInstance;
+import com.mockanalyzer.model.StatementInfo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Clone report in normalized form: every file, method, statement, mock and
+ * sequence is written once, in a top-level table, and everything else refers
+ * to it by its id (its index in the table; for mocks, the rawMockObjectId).
+ *
+ * The default report repeats each mock's statements, the raw code of their
+ * methods and the whole sequence inside every clone instance that contains
+ * it; here a clone instance is its stats plus a list of sequence ids.
+ *
+ * Tables are written in dependency order (files, methods, statements, mocks,
+ * sequences, clones), so a reader can stream the mocks once the tables
+ * before them are loaded (see {@link MockInfoReader}).
+ */
+public class NormalizedReport {
+
+    public static final String FORMAT = "normalized-v1";
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    // field order is the order in the file
+    public String format = FORMAT;
+    public List<FileRow> files = new ArrayList<>();
+    public List<MethodRow> methods = new ArrayList<>();
+    public List<StatementRow> statements = new ArrayList<>();
+    public List<MockRow> mocks = new ArrayList<>();
+    public List<SequenceRow> sequences = new ArrayList<>();
+    public Map<String, List<CloneRow>> detectedMockClones = new LinkedHashMap<>();
+    public Map<String, List<NearCloneRow>> nearMockClones; // only written with --near
+
+    private transient Map<Integer, MockRow> mocksById;
+    // one context per method row, shared by its statements
+    private transient Map<Integer, StatementInfo.LocationContext> contextsByMethod;
+
+    public static class FileRow {
+        public String path;
+        public String packageName;
+        public String className;
+    }
+
+    public static class MethodRow {
+        public int file;
+        public String name;
+        public List<String> annotations;
+        public String rawCode;
+    }
+
+    public static class StatementRow {
+        public int method;
+        public int line;
+        public StatementInfo.Kind type;
+        public String code;
+        public StatementInfo.Location locate;
+        public String abstractedStatement;
+        public boolean isMockRelated;
+        public boolean isShareable;
+    }
+
+    public static class MockRow {
+        public int id;
+        public int file;
+        public String variableName;
+        public String variableType;
+        public String mockedClass;
+        public boolean isReuseableMock;
+        public String mockPattern;
+        public String mockRole;
+        public List<Integer> statements = new ArrayList<>();
+    }
+
+    public static class SequenceRow {
+        public int mock;
+        public int testMethod;
+        public List<Integer> statements = new ArrayList<>(); // in rawStatementInfo order
+        public List<Integer> overlapLines = new ArrayList<>();
+    }
+
+    public static class CloneRow {
+        public String mockedClass;
+        public String packageName;
+        public int testCaseCount;
+        public int sequenceCount;
+        public int sharedStatementLineCount;
+        public int locReduced;
+        public int mockObjectCount;
+        public List<String> sharedStatements;
+        public List<Integer> sequences = new ArrayList<>();
+    }
+
+    public static class NearCloneRow {
+        public String mockedClass;
+        public String packageName;
+        public double similarity;
+        public int sequenceCount;
+        public List<String> sharedStatements;
+        public List<String> differingStatements;
+        public List<Integer> sequences = new ArrayList<>();
+    }
+
+    /**
+     * Builds the normalized form of a clone report.
+     *
+     * @param mockInfos  the detected mock objects, as in detectedMockObjects
+     * @param cloneMap   the detected clones, grouped by mockedClass
+     * @param nearClones the near clones, or null without --near
+     */
+    public static NormalizedReport of(List<MockInfo> mockInfos, Map<String, List<MockCloneInstance>> cloneMap,
+            Map<String, List<NearCloneInstance>> nearClones) {
+        Builder builder = new Builder();
+        for (MockInfo mockInfo : mockInfos) {
+            builder.addMock(mockInfo);
+        }
+        return builder.build(cloneMap, nearClones);
+    }
+
+    /**
+     * Writes the report as compact JSON.
+     */
+    public void write(Path output) throws IOException {
+        try (Writer writer = new OutputStreamWriter(
+                new BufferedOutputStream(Files.newOutputStream(output), 1 << 16), StandardCharsets.UTF_8)) {
+            GSON.toJson(this, writer);
+        }
+    }
+
+    public static NormalizedReport read(Path input) throws IOException {
+        try (Reader reader = new InputStreamReader(
+                new BufferedInputStream(Files.newInputStream(input), 1 << 16), StandardCharsets.UTF_8)) {
+            NormalizedReport report = GSON.fromJson(reader, NormalizedReport.class);
+            if (report == null || !FORMAT.equals(report.format)) {
+                throw new IOException("Not a " + FORMAT + " report: " + input);
+            }
+            return report;
+        }
+    }
+
+    /**
+     * The detected mock objects, as they were before normalization.
+     */
+    public List<MockInfo> mockInfos() {
+        List<MockInfo> mockInfos = new ArrayList<>(mocks.size());
+        for (MockRow row : mocks) {
+            mockInfos.add(toMockInfo(row));
+        }
+        return mockInfos;
+    }
+
+    /**
+     * The detected clones with their sequences, as they were before normalization.
+     */
+    public Map<String, List<MockCloneInstance>> clones() {
+        Map<String, List<MockCloneInstance>> cloneMap = new LinkedHashMap<>();
+        for (Map.Entry<String, List<CloneRow>> entry : detectedMockClones.entrySet()) {
+            List<MockCloneInstance> instances = new ArrayList<>();
+            for (CloneRow row : entry.getValue()) {
+                MockCloneInstance instance = new MockCloneInstance();
+                instance.mockedClass = row.mockedClass;
+                instance.packageName = row.packageName;
+                instance.testCaseCount = row.testCaseCount;
+                instance.sequenceCount = row.sequenceCount;
+                instance.sharedStatementLineCount = row.sharedStatementLineCount;
+                instance.locReduced = row.locReduced;
+                instance.mockObjectCount = row.mockObjectCount;
+                instance.sharedStatements = row.sharedStatements;
+                instance.sequences = toSequences(row.sequences);
+                instances.add(instance);
+            }
+            cloneMap.put(entry.getKey(), instances);
+        }
+        return cloneMap;
+    }
+
+    /**
+     * The near clones with their sequences, or null if the report has none.
+     */
+    public Map<String, List<NearCloneInstance>> nearClones() {
+        if (nearMockClones == null) {
+            return null;
+        }
+        Map<String, List<NearCloneInstance>> nearMap = new LinkedHashMap<>();
+        for (Map.Entry<String, List<NearCloneRow>> entry : nearMockClones.entrySet()) {
+            List<NearCloneInstance> instances = new ArrayList<>();
+            for (NearCloneRow row : entry.getValue()) {
+                NearCloneInstance instance = new NearCloneInstance();
+                instance.mockedClass = row.mockedClass;
+                instance.packageName = row.packageName;
+                instance.similarity = row.similarity;
+                instance.sequenceCount = row.sequenceCount;
+                instance.sharedStatements = row.sharedStatements;
+                instance.differingStatements = row.differingStatements;
+                instance.sequences = toSequences(row.sequences);
+                instances.add(instance);
+            }
+            nearMap.put(entry.getKey(), instances);
+        }
+        return nearMap;
+    }
+
+    /**
+     * Rebuilds one mock object. Needs the files, methods and statements tables.
+     */
+    public MockInfo toMockInfo(MockRow row) {
+        MockInfo mockInfo = new MockInfo();
+        mockInfo.rawMockObjectId = row.id;
+        mockInfo.variableName = row.variableName;
+        mockInfo.variableType = row.variableType;
+        mockInfo.mockedClass = row.mockedClass;
+        mockInfo.isReuseableMock = row.isReuseableMock;
+        mockInfo.mockPattern = row.mockPattern;
+        mockInfo.mockRole = row.mockRole;
+        FileRow file = files.get(row.file);
+        mockInfo.classContext.packageName = file.packageName;
+        mockInfo.classContext.filePath = file.path;
+        mockInfo.classContext.className = file.className;
+        for (int id : row.statements) {
+            mockInfo.statements.add(toStatement(id));
+        }
+        return mockInfo;
+    }
+
+    private List<MockSequence> toSequences(List<Integer> ids) {
+        List<MockSequence> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            result.add(toSequence(sequences.get(id)));
+        }
+        return result;
+    }
+
+    private MockSequence toSequence(SequenceRow row) {
+        if (mocksById == null) {
+            mocksById = new HashMap<>();
+            for (MockRow mock : mocks) {
+                mocksById.put(mock.id, mock);
+            }
+        }
+        MockRow mock = mocksById.get(row.mock);
+        FileRow file = files.get(mock.file);
+        MethodRow method = methods.get(row.testMethod);
+
+        MockSequence seq = new MockSequence();
+        seq.mockObjectId = mock.id;
+        seq.mockRole = mock.mockRole;
+        seq.variableName = mock.variableName;
+        seq.variableType = mock.variableType;
+        seq.mockedClass = mock.mockedClass;
+        seq.packageName = file.packageName;
+        seq.filePath = file.path;
+        seq.className = file.className;
+        seq.isReuseableMock = mock.isReuseableMock;
+        seq.testMethodName = method.name;
+        seq.testMethodRawCode = method.rawCode;
+        seq.overlapLines = new ArrayList<>(row.overlapLines);
+        // same maps as MockInfo.toMockSequences fills
+        for (int id : row.statements) {
+            StatementInfo stmt = toStatement(id);
+            (stmt.isShareable ? seq.shareableMockLines : seq.testMockLines).put(stmt.line, stmt.code);
+            seq.rawStatementInfo.put(stmt.line, stmt);
+            if (stmt.type == StatementInfo.Kind.STUBBING) {
+                seq.abstractedStatement.put(stmt.line, stmt.abstractedStatement);
+            }
+        }
+        return seq;
+    }
+
+    // a new object per reference, as in the default report; the method's context is shared
+    private StatementInfo toStatement(int id) {
+        StatementRow row = statements.get(id);
+        StatementInfo stmt = new StatementInfo();
+        stmt.code = row.code;
+        stmt.line = row.line;
+        stmt.type = row.type;
+        stmt.locate = row.locate;
+        stmt.abstractedStatement = row.abstractedStatement;
+        stmt.isMockRelated = row.isMockRelated;
+        stmt.isShareable = row.isShareable;
+        if (contextsByMethod == null) {
+            contextsByMethod = new HashMap<>();
+        }
+        stmt.locationContext = contextsByMethod.computeIfAbsent(row.method, m -> {
+            MethodRow method = methods.get(m);
+            StatementInfo.LocationContext context = new StatementInfo.LocationContext();
+            context.methodName = method.name;
+            context.methodAnnotations = method.annotations == null ? null : new ArrayList<>(method.annotations);
+            context.methodRawCode = method.rawCode;
+            return context;
+        });
+        return stmt;
+    }
+
+    /**
+     * Assigns ids while mocks and clones are added. Equal rows get the same
+     * id, so a statement shared by two sequences, or a method shared by two
+     * mocks, is written once.
+     */
+    static final class Builder {
+        private final NormalizedReport report = new NormalizedReport();
+        private final Map<String, Integer> fileIds = new HashMap<>();
+        private final Map<String, Integer> methodIds = new HashMap<>();
+        private final Map<String, Integer> statementIds = new HashMap<>();
+        private final Map<String, Integer> sequenceIds = new HashMap<>();
+        private final Map<Integer, MockRow> mocks = new HashMap<>();
+
+        void addMock(MockInfo mockInfo) {
+            MockRow row = new MockRow();
+            row.id = mockInfo.rawMockObjectId;
+            row.file = file(mockInfo.classContext.filePath, mockInfo.classContext.packageName,
+                    mockInfo.classContext.className);
+            row.variableName = mockInfo.variableName;
+            row.variableType = mockInfo.variableType;
+            row.mockedClass = mockInfo.mockedClass;
+            row.isReuseableMock = mockInfo.isReuseableMock;
+            row.mockPattern = mockInfo.mockPattern;
+            row.mockRole = mockInfo.mockRole;
+            for (StatementInfo stmt : mockInfo.statements) {
+                row.statements.add(statement(row.file, stmt));
+            }
+            report.mocks.add(row);
+            mocks.put(row.id, row);
+        }
+
+        NormalizedReport build(Map<String, List<MockCloneInstance>> cloneMap,
+                Map<String, List<NearCloneInstance>> nearClones) {
+            for (Map.Entry<String, List<MockCloneInstance>> entry : cloneMap.entrySet()) {
+                List<CloneRow> rows = new ArrayList<>();
+                for (MockCloneInstance instance : entry.getValue()) {
+                    CloneRow row = new CloneRow();
+                    row.mockedClass = instance.mockedClass;
+                    row.packageName = instance.packageName;
+                    row.testCaseCount = instance.testCaseCount;
+                    row.sequenceCount = instance.sequenceCount;
+                    row.sharedStatementLineCount = instance.sharedStatementLineCount;
+                    row.locReduced = instance.locReduced;
+                    row.mockObjectCount = instance.mockObjectCount;
+                    row.sharedStatements = instance.sharedStatements;
+                    for (MockSequence seq : instance.sequences) {
+                        row.sequences.add(sequence(seq));
+                    }
+                    rows.add(row);
+                }
+                report.detectedMockClones.put(entry.getKey(), rows);
+            }
+            if (nearClones != null) {
+                report.nearMockClones = new LinkedHashMap<>();
+                for (Map.Entry<String, List<NearCloneInstance>> entry : nearClones.entrySet()) {
+                    List<NearCloneRow> rows = new ArrayList<>();
+                    for (NearCloneInstance instance : entry.getValue()) {
+                        NearCloneRow row = new NearCloneRow();
+                        row.mockedClass = instance.mockedClass;
+                        row.packageName = instance.packageName;
+                        row.similarity = instance.similarity;
+                        row.sequenceCount = instance.sequenceCount;
+                        row.sharedStatements = instance.sharedStatements;
+                        row.differingStatements = instance.differingStatements;
+                        for (MockSequence seq : instance.sequences) {
+                            row.sequences.add(sequence(seq));
+                        }
+                        rows.add(row);
+                    }
+                    report.nearMockClones.put(entry.getKey(), rows);
+                }
+            }
+            return report;
+        }
+
+        private int file(String path, String packageName, String className) {
+            return fileIds.computeIfAbsent(path, k -> {
+                FileRow row = new FileRow();
+                row.path = path;
+                row.packageName = packageName;
+                row.className = className;
+                report.files.add(row);
+                return report.files.size() - 1;
+            });
+        }
+
+        private int method(int file, String name, List<String> annotations, String rawCode) {
+            return methodIds.computeIfAbsent(file + "\0" + name + "\0" + rawCode, k -> {
+                MethodRow row = new MethodRow();
+                row.file = file;
+                row.name = name;
+                row.annotations = annotations;
+                row.rawCode = rawCode;
+                report.methods.add(row);
+                return report.methods.size() - 1;
+            });
+        }
+
+        private int statement(int file, StatementInfo stmt) {
+            int method = method(file, stmt.locationContext.methodName, stmt.locationContext.methodAnnotations,
+                    stmt.locationContext.methodRawCode);
+            String key = method + "\0" + stmt.line + "\0" + stmt.type + "\0" + stmt.code + "\0" + stmt.locate
+                    + "\0" + stmt.abstractedStatement + "\0" + stmt.isMockRelated + "\0" + stmt.isShareable;
+            return statementIds.computeIfAbsent(key, k -> {
+                StatementRow row = new StatementRow();
+                row.method = method;
+                row.line = stmt.line;
+                row.type = stmt.type;
+                row.code = stmt.code;
+                row.locate = stmt.locate;
+                row.abstractedStatement = stmt.abstractedStatement;
+                row.isMockRelated = stmt.isMockRelated;
+                row.isShareable = stmt.isShareable;
+                report.statements.add(row);
+                return report.statements.size() - 1;
+            });
+        }
+
+        // one sequence per mock and test method
+        private int sequence(MockSequence seq) {
+            Integer id = sequenceIds.get(seq.mockObjectId + "#" + seq.testMethodName);
+            if (id != null) {
+                return id;
+            }
+            MockRow mock = mocks.get(seq.mockObjectId);
+            if (mock == null) {
+                // not among the detected mock objects: keep what the sequence knows of it
+                MockInfo mockInfo = new MockInfo();
+                mockInfo.rawMockObjectId = seq.mockObjectId;
+                mockInfo.variableName = seq.variableName;
+                mockInfo.variableType = seq.variableType;
+                mockInfo.mockedClass = seq.mockedClass;
+                mockInfo.isReuseableMock = seq.isReuseableMock;
+                mockInfo.mockRole = seq.mockRole;
+                mockInfo.classContext.packageName = seq.packageName;
+                mockInfo.classContext.filePath = seq.filePath;
+                mockInfo.classContext.className = seq.className;
+                addMock(mockInfo);
+                mock = mocks.get(seq.mockObjectId);
+            }
+            SequenceRow row = new SequenceRow();
+            row.mock = mock.id;
+            row.testMethod = method(mock.file, seq.testMethodName, null, seq.testMethodRawCode);
+            for (StatementInfo stmt : seq.rawStatementInfo.values()) {
+                row.statements.add(statement(mock.file, stmt));
+            }
+            row.overlapLines = seq.overlapLines;
+            report.sequences.add(row);
+            id = report.sequences.size() - 1;
+            sequenceIds.put(seq.mockObjectId + "#" + seq.testMethodName, id);
+            return id;
+        }
+    }
+}
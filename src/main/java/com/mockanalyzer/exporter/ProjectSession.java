@@ -0,0 +1,183 @@
+package com.mockanalyzer.exporter;
+
+import com.github.javaparser.JavaParser;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.visitor.SharedJarIndex;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A project kept loaded between requests (daemon mode).
+ *
+ * Holds the parser with its type solver and, for every analyzed file, its
+ * size, modification time and MockInfos. A request only re-parses files
+ * that are new or changed since the previous one. The type solver depends
+ * on the jars only (project sources are not resolved through it), so it is
+ * rebuilt, and every file re-analyzed, only when a jar is added, removed or
+ * changed; unchanged jars keep their index in the shared {@link SharedJarIndex}.
+ *
+ * The build is never run: the project's libs are expected to be in place,
+ * as with --skip.
+ */
+public class ProjectSession {
+
+    private static final Gson GSON = new Gson();
+    private static final Type MOCK_INFO_LIST = new TypeToken<List<MockInfo>>() {
+    }.getType();
+
+    public final Path projectRoot;
+    private final SharedJarIndex jarIndex;
+
+    private JavaParser parser = null;
+    // jar path -> size:mtime
+    private Map<Path, String> jarFingerprints = new HashMap<>();
+    private final Map<Path, FileResult> files = new HashMap<>();
+
+    // ------ Stats of the last request ------
+    public int fileCount;
+    public int reparsedFiles;
+    public boolean solverRebuilt;
+
+    private static class FileResult {
+        long size;
+        long modified;
+        // stored serialized: callers modify the MockInfos they get (ids, roles)
+        String mockInfos;
+    }
+
+    public ProjectSession(Path projectRoot, SharedJarIndex jarIndex) {
+        this.projectRoot = projectRoot;
+        this.jarIndex = jarIndex;
+    }
+
+    /**
+     * Brings the session up to date with the files on disk and returns fresh
+     * copies of all MockInfos, in the same order as
+     * {@link MockInfoExporter#analyzeProject(Path, boolean)}.
+     */
+    public synchronized List<MockInfo> analyze() throws IOException, InterruptedException {
+        List<MockInfo> combinedResults = new ArrayList<>();
+        for (List<MockInfo> mockInfos : analyzeByFile().values()) {
+            combinedResults.addAll(mockInfos);
+        }
+        return combinedResults;
+    }
+
+    /**
+     * Same as {@link #analyze()}, with the MockInfos of each file kept apart,
+     * in file order. Files that could not be analyzed are left out.
+     */
+    public synchronized Map<Path, List<MockInfo>> analyzeByFile() throws IOException, InterruptedException {
+        refreshSolver();
+
+        List<Path> javaFiles = new ArrayList<>();
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.WALK);
+                Stream<Path> paths = Files.walk(projectRoot)) {
+            paths.filter(p -> p.toString().endsWith(".java")).forEach(javaFiles::add);
+        }
+        files.keySet().retainAll(new HashSet<>(javaFiles));
+
+        reparsedFiles = 0;
+        Map<Path, List<MockInfo>> results = new LinkedHashMap<>();
+        for (Path javaFile : javaFiles) {
+            List<MockInfo> mockInfos = analyzeFile(javaFile);
+            if (mockInfos != null) {
+                results.put(javaFile, mockInfos);
+            }
+        }
+        fileCount = javaFiles.size();
+        return results;
+    }
+
+    /**
+     * Brings only the given files up to date, without walking the project or
+     * checking its jars (e.g. for files reported by a file watcher).
+     *
+     * @return fresh copies of the MockInfos of each given file; an empty list
+     *         for a file that no longer exists, null for a file that could not
+     *         be analyzed (e.g. a syntax error while it is being edited)
+     */
+    public synchronized Map<Path, List<MockInfo>> update(Collection<Path> javaFiles)
+            throws IOException, InterruptedException {
+        if (parser == null) {
+            refreshSolver();
+        }
+        reparsedFiles = 0;
+        Map<Path, List<MockInfo>> results = new LinkedHashMap<>();
+        for (Path javaFile : javaFiles) {
+            if (!Files.isRegularFile(javaFile)) {
+                files.remove(javaFile);
+                results.put(javaFile, new ArrayList<>());
+            } else {
+                results.put(javaFile, analyzeFile(javaFile));
+            }
+        }
+        fileCount = files.size();
+        return results;
+    }
+
+    /**
+     * Re-parses the file if it is new or changed, then returns fresh copies
+     * of its MockInfos, or null if it could not be analyzed.
+     */
+    private List<MockInfo> analyzeFile(Path javaFile) {
+        FileResult cached = files.get(javaFile);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(javaFile, BasicFileAttributes.class);
+            if (cached == null || cached.size != attributes.size()
+                    || cached.modified != attributes.lastModifiedTime().toMillis()) {
+                files.remove(javaFile);
+                List<MockInfo> mockList = MockInfoExporter.analyzeCode(javaFile, parser,
+                        new String(Files.readAllBytes(javaFile), StandardCharsets.UTF_8));
+                if (mockList == null) {
+                    // not cached, so the file is retried by the next request
+                    return null;
+                }
+                reparsedFiles++;
+                cached = new FileResult();
+                cached.size = attributes.size();
+                cached.modified = attributes.lastModifiedTime().toMillis();
+                cached.mockInfos = GSON.toJson(mockList, MOCK_INFO_LIST);
+                files.put(javaFile, cached);
+            }
+            return GSON.fromJson(cached.mockInfos, MOCK_INFO_LIST);
+        } catch (Exception e) {
+            // not cached, so the file is retried by the next request
+            System.err.println("[WARN] Skipping file due to exception: " + javaFile + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void refreshSolver() throws IOException, InterruptedException {
+        Map<Path, String> current = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(projectRoot)) {
+            Iterator<Path> it = paths
+                    .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".jar")).iterator();
+            while (it.hasNext()) {
+                Path jar = it.next();
+                BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+                current.put(jar, attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+            }
+        }
+
+        solverRebuilt = parser == null || !current.equals(jarFingerprints);
+        if (solverRebuilt) {
+            if (parser != null) {
+                System.out.println("[INFO] Jars changed, rebuilding type solver: " + projectRoot);
+            }
+            parser = MockInfoExporter.createParser(projectRoot, false, jarIndex);
+            jarFingerprints = current;
+            files.clear();
+        }
+    }
+}
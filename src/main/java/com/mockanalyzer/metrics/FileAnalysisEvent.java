@@ -0,0 +1,36 @@
+package com.mockanalyzer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one parsed and visited file. The event duration is the
+ * parse/visit time, including symbol resolution.
+ */
+@Name("com.mockanalyzer.FileAnalysis")
+@Label("File Analysis")
+@Description("A source file parsed and visited for mocks")
+@Category({ "Mock Analyzer", "Analysis" })
+@StackTrace(false)
+public class FileAnalysisEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Resolve Calls")
+    public int resolveCalls;
+
+    @Label("Resolve Failures")
+    public int resolveFailures;
+
+    @Label("Mocks Found")
+    public int mocksFound;
+
+    @Label("Failed")
+    @Description("The file did not parse, or parsing or visiting threw; the file was skipped")
+    public boolean failed;
+}
@@ -0,0 +1,40 @@
+package com.mockanalyzer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for clone detection in one group. The event duration is the
+ * mining time of the group (near zero when it came from the memo).
+ */
+@Name("com.mockanalyzer.GroupDetection")
+@Label("Group Detection")
+@Description("Clone detection in one mockedClass#packageName group")
+@Category({ "Mock Analyzer", "Detection" })
+@StackTrace(false)
+public class GroupDetectionEvent extends Event {
+
+    @Label("Mocked Class")
+    public String mockedClass;
+
+    @Label("Package")
+    @Description("Null for cross-package groups")
+    public String packageName;
+
+    @Label("Sequences")
+    public int sequenceCount;
+
+    @Label("Frequent Itemsets")
+    @Description("Patterns mined; with top-k, the patterns emitted before the group was covered")
+    public int frequentItemsets;
+
+    @Label("Clone Instances")
+    public int cloneInstances;
+
+    @Label("Memo Hit")
+    public boolean memoHit;
+}
@@ -0,0 +1,87 @@
+package com.mockanalyzer.metrics;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import java.util.function.Supplier;
+
+/**
+ * Symbol resolver that times every resolution and counts its outcome in
+ * {@link RunMetrics}, then delegates. All resolve() and
+ * calculateResolvedType() calls of the analyzers go through the parser's
+ * symbol resolver, so this sees them without touching the call sites.
+ *
+ * Only the outermost call on a thread is recorded, in case the delegate
+ * resolves through the node API again. Each thread also keeps running
+ * totals, so a caller can tell how many resolutions one file needed.
+ */
+public class MeasuredSymbolResolver implements SymbolResolver {
+
+    // per thread: nesting depth, calls, failures
+    private static final ThreadLocal<int[]> COUNTERS = ThreadLocal.withInitial(() -> new int[3]);
+
+    private final SymbolResolver delegate;
+
+    public MeasuredSymbolResolver(SymbolResolver delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
+        return measure(() -> delegate.resolveDeclaration(node, resultClass));
+    }
+
+    @Override
+    public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
+        return measure(() -> delegate.toResolvedType(javaparserType, resultClass));
+    }
+
+    @Override
+    public ResolvedType calculateType(Expression expression) {
+        return measure(() -> delegate.calculateType(expression));
+    }
+
+    @Override
+    public ResolvedReferenceTypeDeclaration toTypeDeclaration(Node node) {
+        return measure(() -> delegate.toTypeDeclaration(node));
+    }
+
+    /**
+     * Resolutions made on the current thread so far.
+     */
+    public static int callsOnThread() {
+        return COUNTERS.get()[1];
+    }
+
+    /**
+     * Failed resolutions on the current thread so far.
+     */
+    public static int failuresOnThread() {
+        return COUNTERS.get()[2];
+    }
+
+    private static <T> T measure(Supplier<T> resolution) {
+        int[] counters = COUNTERS.get();
+        if (counters[0] > 0) {
+            return resolution.get();
+        }
+        counters[0]++;
+        boolean success = false;
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.RESOLUTION)) {
+            T resolved = resolution.get();
+            success = true;
+            return resolved;
+        } finally {
+            counters[0]--;
+            counters[1]++;
+            if (!success) {
+                counters[2]++;
+            }
+            RunMetrics.get().resolution(success);
+        }
+    }
+}
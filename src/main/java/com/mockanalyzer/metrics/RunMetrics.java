@@ -0,0 +1,382 @@
+package com.mockanalyzer.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wall time, CPU time and allocation per phase of one run, plus file and
+ * symbol resolution counters, written as `<output>.metrics.json` and
+ * `<output>.metrics.prom` (Prometheus text format) when the run ends.
+ *
+ * Phases are measured on the thread doing the work and summed over threads,
+ * so a phase run on several threads can report more wall time than the run
+ * took. Phases may nest: symbol resolution happens while files are parsed
+ * and visited, so it is also part of the parse time. CPU time and allocation
+ * of work a phase hands to other threads (e.g. parallel mining) or to the
+ * build's child process are not included.
+ *
+ * There is one instance per process ({@link #get()}); the CLI starts a fresh
+ * one per command with {@link #start()}.
+ */
+public class RunMetrics {
+
+    public enum Phase {
+        BUILD("build"),
+        JAR_LOADING("jar_loading"),
+        WALK("walk"),
+        PARSE("parse"),
+        RESOLUTION("symbol_resolution"),
+        SEQUENCES("sequence_building"),
+        MINING("mining"),
+        SERIALIZATION("serialization");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int SLOWEST_FILES = 20;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATION_SUPPORTED = THREADS instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+
+    private static volatile RunMetrics current = new RunMetrics();
+
+    private final long startNanos = System.nanoTime();
+    private final PhaseTotals[] phases = new PhaseTotals[Phase.values().length];
+    private final LongAdder filesAnalyzed = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LongAdder resolutionSuccesses = new LongAdder();
+    private final LongAdder resolutionFailures = new LongAdder();
+    private final LongAdder typeLookups = new LongAdder();
+    private final LongAdder typeCacheHits = new LongAdder();
+    private final LongAdder typeLockContentions = new LongAdder();
+    private final LongAdder typeLockWaitNanos = new LongAdder();
+    // the slowest files so far, fastest first
+    private final PriorityQueue<FileTime> slowestFiles = new PriorityQueue<>(
+            Comparator.comparingLong((FileTime f) -> f.nanos));
+
+    private static final class PhaseTotals {
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final AtomicLong count = new AtomicLong();
+    }
+
+    private static final class FileTime {
+        final String path;
+        final long nanos;
+
+        FileTime(String path, long nanos) {
+            this.path = path;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Measures one execution of a phase on the current thread, until closed.
+     */
+    public final class Span implements AutoCloseable {
+        private final PhaseTotals totals;
+        private final long wallStart = System.nanoTime();
+        private final long cpuStart = cpuNanos();
+        private final long allocatedStart = allocatedBytes();
+
+        private Span(Phase phase) {
+            this.totals = phases[phase.ordinal()];
+        }
+
+        /**
+         * Wall time since the span was opened.
+         */
+        public long elapsedNanos() {
+            return System.nanoTime() - wallStart;
+        }
+
+        @Override
+        public void close() {
+            totals.wallNanos.add(elapsedNanos());
+            totals.cpuNanos.add(cpuNanos() - cpuStart);
+            totals.allocatedBytes.add(allocatedBytes() - allocatedStart);
+            totals.count.incrementAndGet();
+        }
+    }
+
+    private RunMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new PhaseTotals();
+        }
+    }
+
+    /**
+     * Starts a new run; everything recorded before is dropped.
+     */
+    public static RunMetrics start() {
+        current = new RunMetrics();
+        return current;
+    }
+
+    public static RunMetrics get() {
+        return current;
+    }
+
+    /**
+     * Opens a span of the given phase in the current run; use with try-with-resources.
+     */
+    public static Span phase(Phase phase) {
+        RunMetrics metrics = current;
+        return metrics.new Span(phase);
+    }
+
+    /**
+     * Records a file that was parsed and visited, and how long it took;
+     * failed if it did not parse or its analysis threw.
+     */
+    public void fileAnalyzed(Path file, long nanos, boolean failed) {
+        filesAnalyzed.increment();
+        if (failed) {
+            filesFailed.increment();
+        }
+        synchronized (slowestFiles) {
+            if (slowestFiles.size() < SLOWEST_FILES) {
+                slowestFiles.add(new FileTime(file.toString(), nanos));
+            } else if (slowestFiles.peek().nanos < nanos) {
+                slowestFiles.poll();
+                slowestFiles.add(new FileTime(file.toString(), nanos));
+            }
+        }
+    }
+
+    public void resolution(boolean success) {
+        if (success) {
+            resolutionSuccesses.increment();
+        } else {
+            resolutionFailures.increment();
+        }
+    }
+
+    /**
+     * Records a lookup in a shared type solver's cache.
+     */
+    public void typeLookup(boolean cached) {
+        typeLookups.increment();
+        if (cached) {
+            typeCacheHits.increment();
+        }
+    }
+
+    /**
+     * Records a thread that had to wait for a type cache lock, and for how long.
+     */
+    public void typeLockContended(long waitNanos) {
+        typeLockContentions.increment();
+        typeLockWaitNanos.add(waitNanos);
+    }
+
+    private static long cpuNanos() {
+        return CPU_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION_SUPPORTED
+                ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    // ------ Report ------
+
+    public static class PhaseReport {
+        public String phase;
+        public long count;
+        public double wallSeconds;
+        public double cpuSeconds;
+        public long allocatedBytes;
+    }
+
+    public static class SlowFile {
+        public String path;
+        public double seconds;
+    }
+
+    public static class Report {
+        public String command;
+        public double wallSeconds;
+        public long filesAnalyzed;
+        public long filesFailed;
+        public double filesPerSecond;
+        public long resolutionSuccesses;
+        public long resolutionFailures;
+        public long typeLookups;
+        public long typeCacheHits;
+        public long typeLockContentions;
+        public double typeLockWaitSeconds;
+        public boolean cpuTimeSupported = CPU_SUPPORTED;
+        public boolean allocationSupported = ALLOCATION_SUPPORTED;
+        public List<PhaseReport> phases = new ArrayList<>();
+        public List<SlowFile> slowestFiles = new ArrayList<>();
+    }
+
+    /**
+     * A snapshot of the run so far.
+     */
+    public Report report(String command) {
+        Report report = new Report();
+        report.command = command;
+        report.wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+        report.filesAnalyzed = filesAnalyzed.sum();
+        report.filesFailed = filesFailed.sum();
+        report.filesPerSecond = report.wallSeconds > 0 ? report.filesAnalyzed / report.wallSeconds : 0;
+        report.resolutionSuccesses = resolutionSuccesses.sum();
+        report.resolutionFailures = resolutionFailures.sum();
+        report.typeLookups = typeLookups.sum();
+        report.typeCacheHits = typeCacheHits.sum();
+        report.typeLockContentions = typeLockContentions.sum();
+        report.typeLockWaitSeconds = typeLockWaitNanos.sum() / 1e9;
+        for (Phase phase : Phase.values()) {
+            PhaseTotals totals = phases[phase.ordinal()];
+            PhaseReport phaseReport = new PhaseReport();
+            phaseReport.phase = phase.label;
+            phaseReport.count = totals.count.get();
+            phaseReport.wallSeconds = totals.wallNanos.sum() / 1e9;
+            phaseReport.cpuSeconds = totals.cpuNanos.sum() / 1e9;
+            phaseReport.allocatedBytes = totals.allocatedBytes.sum();
+            report.phases.add(phaseReport);
+        }
+        List<FileTime> slowest;
+        synchronized (slowestFiles) {
+            slowest = new ArrayList<>(slowestFiles);
+        }
+        slowest.sort(Comparator.comparingLong((FileTime f) -> f.nanos).reversed());
+        for (FileTime file : slowest) {
+            SlowFile slowFile = new SlowFile();
+            slowFile.path = file.path;
+            slowFile.seconds = file.nanos / 1e9;
+            report.slowestFiles.add(slowFile);
+        }
+        return report;
+    }
+
+    /**
+     * Writes `<outputPath>.metrics.json` and `<outputPath>.metrics.prom`.
+     */
+    public void write(String command, String outputPath) {
+        Report report = report(command);
+        Gson gson = new GsonBuilder()
+                .setPrettyPrinting()
+                .disableHtmlEscaping()
+                .create();
+        try (OutputStreamWriter writer = new OutputStreamWriter(
+                new FileOutputStream(outputPath + ".metrics.json"), StandardCharsets.UTF_8)) {
+            gson.toJson(report, writer);
+        } catch (IOException e) {
+            System.err.println("[WARN] Could not write metrics: " + e.getMessage());
+            return;
+        }
+        try (OutputStreamWriter writer = new OutputStreamWriter(
+                new FileOutputStream(outputPath + ".metrics.prom"), StandardCharsets.UTF_8)) {
+            writer.write(toPrometheus(report));
+        } catch (IOException e) {
+            System.err.println("[WARN] Could not write metrics: " + e.getMessage());
+            return;
+        }
+        System.out.println(String.format("[Metrics] %d files in %.1fs (%.1f files/s), %d/%d resolutions failed -> %s",
+                report.filesAnalyzed, report.wallSeconds, report.filesPerSecond, report.resolutionFailures,
+                report.resolutionSuccesses + report.resolutionFailures, outputPath + ".metrics.json"));
+    }
+
+    /**
+     * The report in Prometheus text exposition format.
+     */
+    public static String toPrometheus(Report report) {
+        StringBuilder sb = new StringBuilder();
+        String command = "command=\"" + escape(report.command) + "\"";
+
+        gauge(sb, "mockanalyzer_run_wall_seconds", "Wall time of the run.");
+        sample(sb, "mockanalyzer_run_wall_seconds", command, report.wallSeconds);
+        counter(sb, "mockanalyzer_files_analyzed_total", "Files parsed and visited.");
+        sample(sb, "mockanalyzer_files_analyzed_total", command, report.filesAnalyzed);
+        counter(sb, "mockanalyzer_files_failed_total", "Files skipped because they did not parse or visiting failed.");
+        sample(sb, "mockanalyzer_files_failed_total", command, report.filesFailed);
+        gauge(sb, "mockanalyzer_files_per_second", "Files analyzed per second of run wall time.");
+        sample(sb, "mockanalyzer_files_per_second", command, report.filesPerSecond);
+        counter(sb, "mockanalyzer_symbol_resolutions_total", "Symbol resolutions by outcome.");
+        sample(sb, "mockanalyzer_symbol_resolutions_total", command + ",outcome=\"success\"",
+                report.resolutionSuccesses);
+        sample(sb, "mockanalyzer_symbol_resolutions_total", command + ",outcome=\"failure\"",
+                report.resolutionFailures);
+        counter(sb, "mockanalyzer_type_lookups_total", "Type solver cache lookups by outcome.");
+        sample(sb, "mockanalyzer_type_lookups_total", command + ",outcome=\"hit\"", report.typeCacheHits);
+        sample(sb, "mockanalyzer_type_lookups_total", command + ",outcome=\"miss\"",
+                report.typeLookups - report.typeCacheHits);
+        counter(sb, "mockanalyzer_type_lock_contentions_total", "Type cache lock acquisitions that had to wait.");
+        sample(sb, "mockanalyzer_type_lock_contentions_total", command, report.typeLockContentions);
+        counter(sb, "mockanalyzer_type_lock_wait_seconds_total", "Time spent waiting for type cache locks.");
+        sample(sb, "mockanalyzer_type_lock_wait_seconds_total", command, report.typeLockWaitSeconds);
+
+        counter(sb, "mockanalyzer_phase_wall_seconds_total", "Wall time per phase, summed over threads.");
+        for (PhaseReport phase : report.phases) {
+            sample(sb, "mockanalyzer_phase_wall_seconds_total", phaseLabels(command, phase), phase.wallSeconds);
+        }
+        counter(sb, "mockanalyzer_phase_cpu_seconds_total", "CPU time per phase, summed over threads.");
+        for (PhaseReport phase : report.phases) {
+            sample(sb, "mockanalyzer_phase_cpu_seconds_total", phaseLabels(command, phase), phase.cpuSeconds);
+        }
+        counter(sb, "mockanalyzer_phase_allocated_bytes_total", "Heap allocated per phase, summed over threads.");
+        for (PhaseReport phase : report.phases) {
+            sample(sb, "mockanalyzer_phase_allocated_bytes_total", phaseLabels(command, phase), phase.allocatedBytes);
+        }
+        counter(sb, "mockanalyzer_phase_executions_total", "Measured executions per phase.");
+        for (PhaseReport phase : report.phases) {
+            sample(sb, "mockanalyzer_phase_executions_total", phaseLabels(command, phase), phase.count);
+        }
+
+        gauge(sb, "mockanalyzer_slow_file_seconds", "Parse and visit time of the slowest files.");
+        for (SlowFile file : report.slowestFiles) {
+            sample(sb, "mockanalyzer_slow_file_seconds", command + ",file=\"" + escape(file.path) + "\"",
+                    file.seconds);
+        }
+        return sb.toString();
+    }
+
+    private static String phaseLabels(String command, PhaseReport phase) {
+        return command + ",phase=\"" + phase.phase + "\"";
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+    }
+
+    private static void counter(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name).append('{').append(labels).append("} ");
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -47,40 +47,45 @@ public class MockInfo {
             try {
                 stmt.checkLocate();
             } catch (Exception e) {
-                stmt.locate = "Other Methods";
+                stmt.locate = StatementInfo.Location.OTHER_METHODS;
             }
-            final String type = stmt.type.toUpperCase();
-            final String locate = stmt.locate;
+            final StatementInfo.Kind type = stmt.type;
+            final String locate = stmt.locate.label;
             final String methodName = stmt.locationContext.methodName;
+            if (type == null) {
+                continue;
+            }
 
             // ===== 属性识别逻辑 =====
-            final boolean isFieldOperation = type.equals("FIELD_MOCK_CREATION")
-                    || type.equals("FIELD_SPY_CREATION")
-                    || type.equals("FIELD_MOCK_CREATION");
+            final boolean isFieldOperation = type == StatementInfo.Kind.FIELD_MOCK_CREATION
+                    || type == StatementInfo.Kind.FIELD_SPY_CREATION;
             if (isFieldOperation)
                 this.isReuseableMock = true;
 
             // ===== 分类处理逻辑 =====
             switch (type) {
-                case "FIELD_DECLARATION":
-                case "FIELD_MOCK_CREATION":
-                case "FIELD_SPY_CREATION":
-                case "DECLARATION":
-                case "ASSIGNMENT":
-                case "ASSIGNMENT_MOCK":
-                case "ASSIGNMENT_SPY":
-                case "METHOD_MOCK_CREATION":
-                case "METHOD_SPY_CREATION":
+                case FIELD_DECLARATION:
+                case FIELD_MOCK_CREATION:
+                case FIELD_SPY_CREATION:
+                case DECLARATION:
+                case ASSIGNMENT:
+                case ASSIGNMENT_MOCK:
+                case ASSIGNMENT_SPY:
+                case METHOD_MOCK_CREATION:
+                case METHOD_SPY_CREATION:
                     handleCreation(categoryMap.get("creation"), stmt, this.isReuseableMock);
                     break;
 
-                case "STUBBING":
+                case STUBBING:
                     updateLocationCount(categoryMap.get("stubbing"), locate, methodName);
                     break;
 
-                case "VERIFICATION":
+                case VERIFICATION:
                     updateLocationCount(categoryMap.get("verification"), locate, methodName);
                     break;
+
+                default:
+                    break;
             }
         }
 
@@ -89,7 +94,7 @@ public class MockInfo {
     }
     public boolean isSpy() {
         for (StatementInfo stmt : statements) {
-            if (stmt.type != null && stmt.type.toLowerCase().contains("mock")) {
+            if (stmt.type != null && stmt.type.isMockCreation()) {
             return false;
             }
         }
@@ -102,33 +107,36 @@ public class MockInfo {
             boolean isGlobalField) {
         String key = null;
 
-        switch (stmt.type.toUpperCase()) {
-            case "FIELD_DECLARATION":
+        switch (stmt.type) {
+            case FIELD_DECLARATION:
                 key = "Declaration Attribute";
                 break;
 
-            case "FIELD_MOCK_CREATION":
-            case "FIELD_SPY_CREATION":
+            case FIELD_MOCK_CREATION:
+            case FIELD_SPY_CREATION:
                 key = "Attribute Mock Creation";
                 break;
 
-            case "METHOD_MOCK_CREATION":
-            case "METHOD_SPY_CREATION":
-            case "ASSIGNMENT_MOCK":
-            case "ASSIGNMENT_SPY":
-                if (stmt.locate.equals("@Before")) {
+            case METHOD_MOCK_CREATION:
+            case METHOD_SPY_CREATION:
+            case ASSIGNMENT_MOCK:
+            case ASSIGNMENT_SPY:
+                if (stmt.locate == StatementInfo.Location.BEFORE) {
                     key = "Global Init in @Before";
                     this.isReuseableMock = true;
                 } else {
-                    key = isGlobalField ? String.format("Lazy-init via %s", stmt.locate)
-                            : String.format("Local Assignment in %s", stmt.locate);
+                    key = isGlobalField ? String.format("Lazy-init via %s", stmt.locate.label)
+                            : String.format("Local Assignment in %s", stmt.locate.label);
                 }
                 break;
 
-            case "DECLARATION":
+            case DECLARATION:
                 // 明确区分本地声明场景
                 key = String.format("Local Mock Creation in %s",
-                        stmt.locate.equals("Helper Method") ? "Helper" : stmt.locate);
+                        stmt.locate == StatementInfo.Location.HELPER_METHOD ? "Helper" : stmt.locate.label);
+                break;
+
+            default:
                 break;
         }
 
@@ -188,10 +196,9 @@ public class MockInfo {
         for (int i = 0; i < statements.size(); i++) {
             StatementInfo stmt = statements.get(i);
             stmt.checkLocate();
-            String upperType = stmt.type.toUpperCase();
 
             // 如果是 STUBBING 或 VERIFICATION，则加上它自己及它的邻居
-            if (!"REFERENCE".equals(upperType)) {
+            if (stmt.type != StatementInfo.Kind.REFERENCE) {
                 linesToKeep.add(stmt.line);
                 linesToKeep.add(stmt.line - 1); // 前一行
                 linesToKeep.add(stmt.line + 1); // 后一行
@@ -207,9 +214,9 @@ public class MockInfo {
         Map<String, List<StatementInfo>> testCaseMap = new LinkedHashMap<>();
 
         for (StatementInfo stmt : statements) {
-            if (isShareableLocate(stmt.locate)) {
+            if (stmt.locate.isShareable()) {
                 shareableList.add(stmt);
-            } else if ("Test Case".equals(stmt.locate) && linesToKeep.contains(stmt.line)) {
+            } else if (stmt.locate == StatementInfo.Location.TEST_CASE && linesToKeep.contains(stmt.line)) {
                 String methodName = stmt.locationContext.methodName;
                 testCaseMap.computeIfAbsent(methodName, k -> new ArrayList<>()).add(stmt);
             }
@@ -255,19 +262,11 @@ public class MockInfo {
         return result;
     }
 
-    /**
-     * 判断 locate 是否是共享类型
-     */
-    private boolean isShareableLocate(String locate) {
-        // 你可按需扩展
-        return Arrays.asList("Attribute", "@Before", "@After", "Helper Method").contains(locate);
-    }
-
     /**
      * 将某条语句放入MockSequences的 map。
      */
     private void addToMockSequences(MockSequence seq, StatementInfo stmt) {
-        boolean isShareable = isShareableLocate(stmt.locate);
+        boolean isShareable = stmt.locate.isShareable();
         stmt.isShareable = isShareable;
         Map<Integer, String> linesMap = isShareable ? seq.shareableMockLines : seq.testMockLines;
 
@@ -275,7 +274,7 @@ public class MockInfo {
         seq.rawStatementInfo.put(stmt.line, stmt);
 
         // 如果是 stubbing，放 abstracted
-        if ("STUBBING".equalsIgnoreCase(stmt.type)) {
+        if (stmt.type == StatementInfo.Kind.STUBBING) {
             seq.abstractedStatement.put(stmt.line, stmt.abstractedStatement);
         }
     }
@@ -0,0 +1,21 @@
+package com.mockanalyzer.model;
+
+import java.util.List;
+
+/**
+ * A group of mock sequences whose stubbing sets are almost, but not exactly,
+ * the same (e.g. they differ in one or two stubbings).
+ */
+public class NearCloneInstance {
+    public String mockedClass;
+    public String packageName;
+
+    // ------ Stats ------
+    public double similarity; // lowest Jaccard similarity of a member to the group's representative
+    public int sequenceCount;
+
+    public List<String> sharedStatements; // abstractedStatements present in every sequence
+    public List<String> differingStatements; // abstractedStatements present in only some sequences
+
+    public List<MockSequence> sequences;
+}
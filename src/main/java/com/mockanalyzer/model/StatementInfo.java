@@ -1,5 +1,7 @@
 package com.mockanalyzer.model;
 
+import com.google.gson.annotations.SerializedName;
+
 import java.util.*;
 
 /**
@@ -18,20 +20,161 @@ import java.util.*;
 public class StatementInfo {
     public String code;
     public int line;
-    public String type;
-    public String locate = "";
+    public Kind type;
+    public Location locate = Location.NONE;
     public String abstractedStatement = "";
     public boolean isMockRelated = false;
     public boolean isShareable = false; // 是否可共享的语句
 
-    // 其他字段如 locationContext
+    // 同一方法的所有语句共享一个 locationContext
+    // all statements of a method share one locationContext
     public LocationContext locationContext = new LocationContext();
 
+    /**
+     * 语句类型；JSON 中写作常量名。
+     * Statement kinds; written to JSON by constant name, as the strings were before.
+     */
+    public enum Kind {
+        FIELD_DECLARATION,
+        FIELD_MOCK_CREATION,
+        FIELD_SPY_CREATION,
+        FIELD_INITIALIZATION,
+        DECLARATION,
+        METHOD_MOCK_CREATION,
+        METHOD_SPY_CREATION,
+        METHOD_VARIABLE_INITIALIZATION,
+        METHOD_VARIABLE_DECLARATION,
+        ASSIGNMENT,
+        ASSIGNMENT_MOCK,
+        ASSIGNMENT_SPY,
+        STUBBING,
+        VERIFICATION,
+        REFERENCE;
+
+        /**
+         * A mock (not spy) creation; a mock object with none of these is a spy.
+         */
+        public boolean isMockCreation() {
+            return this == FIELD_MOCK_CREATION || this == METHOD_MOCK_CREATION || this == ASSIGNMENT_MOCK;
+        }
+    }
+
+    /**
+     * 语句所在位置的分类；JSON 中写作原来的文字。
+     * Where a statement is; written to JSON with the labels used before.
+     */
+    public enum Location {
+        @SerializedName("")
+        NONE(""),
+        @SerializedName("Test Case")
+        TEST_CASE("Test Case"),
+        @SerializedName("@Before")
+        BEFORE("@Before"),
+        @SerializedName("@After")
+        AFTER("@After"),
+        @SerializedName("Helper Method")
+        HELPER_METHOD("Helper Method"),
+        @SerializedName("Attribute")
+        ATTRIBUTE("Attribute"),
+        @SerializedName("@Override")
+        OVERRIDE("@Override"),
+        @SerializedName("Other Methods")
+        OTHER_METHODS("Other Methods");
+
+        public final String label;
+
+        Location(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Setup and teardown code that several tests run.
+         */
+        public boolean isShareable() {
+            return this == ATTRIBUTE || this == BEFORE || this == AFTER || this == HELPER_METHOD;
+        }
+    }
+
     public static class LocationContext {
+        private static final String[] HELPER_KEYWORDS = { "mock", "init", "create", "setup", "prepare", "build",
+                "initialize", "reset", "configure" };
+
         public String methodName;
         public List<String> methodAnnotations;
         public String methodRawCode;
-        // Getter & Setter
+        // 首次使用时计算，不写入 JSON
+        // classified on first use, not written to JSON
+        private transient Location location;
+
+        /**
+         * The location of the method, classified once from its name and annotations.
+         */
+        public Location location() {
+            Location result = location;
+            if (result == null) {
+                result = classify();
+                location = result;
+            }
+            return result;
+        }
+
+        private Location classify() {
+            String lowerMethodName = methodName != null ? methodName.toLowerCase() : "";
+            List<String> annotations = methodAnnotations != null ? methodAnnotations : Collections.emptyList();
+
+            // 条件 1：方法名包含"test" (不区分大小写)
+            if (lowerMethodName.contains("test")) {
+                return Location.TEST_CASE;
+            }
+
+            List<String> lowerAnnotations = new ArrayList<>(annotations.size());
+            for (String ann : annotations) {
+                lowerAnnotations.add(ann.toLowerCase());
+            }
+
+            // 条件 2：注解包含 test（兼容有无 @ 的情况）
+            for (String ann : lowerAnnotations) {
+                if (ann.contains("test")) {
+                    return Location.TEST_CASE;
+                }
+            }
+
+            // 条件 3：包含 Before 关键词注解 (例如 @BeforeEach)
+            for (String ann : lowerAnnotations) {
+                if (ann.contains("before")) {
+                    return Location.BEFORE;
+                }
+            }
+
+            // 条件 4：包含 After 关键词注解 (例如 @After)
+            for (String ann : lowerAnnotations) {
+                if (ann.contains("after")) {
+                    return Location.AFTER;
+                }
+            }
+
+            // 条件 5：方法名包含 helper 关键词
+            for (String kw : HELPER_KEYWORDS) {
+                if (lowerMethodName.contains(kw)) {
+                    return Location.HELPER_METHOD;
+                }
+            }
+
+            // 条件 6：字段声明
+            if ("FieldDeclaration".equals(methodName)) {
+                return Location.ATTRIBUTE;
+            }
+
+            // 条件 7：包含 Override 关键词注解 (例如 @Override)
+            for (String ann : lowerAnnotations) {
+                if (ann.contains("override")) {
+                    return Location.OVERRIDE;
+                }
+            }
+
+            // 默认分类
+            return Location.OTHER_METHODS;
+        }
     }
     public boolean isEqual(StatementInfo other) {
         if (other == null) {
@@ -39,8 +182,8 @@ public class StatementInfo {
         }
         return Objects.equals(this.code, other.code)
             && this.line == other.line
-            && Objects.equals(this.type, other.type)
-            && Objects.equals(this.locate, other.locate)
+            && this.type == other.type
+            && this.locate == other.locate
             && Objects.equals(this.abstractedStatement, other.abstractedStatement)
             && this.isMockRelated == other.isMockRelated
             && this.isShareable == other.isShareable
@@ -55,82 +198,13 @@ public class StatementInfo {
         copy.type = this.type;
         copy.isMockRelated = this.isMockRelated;
         copy.abstractedStatement = this.abstractedStatement;
-
-        copy.locationContext.methodName = this.locationContext.methodName;
-        copy.locationContext.methodAnnotations = new ArrayList<>(this.locationContext.methodAnnotations);
-        copy.locationContext.methodRawCode = this.locationContext.methodRawCode;
+        copy.locationContext = this.locationContext;
 
         return copy;
     }
 
     public void checkLocate() {
-        String methodName = locationContext.methodName != null ? locationContext.methodName : "";
-        List<String> annotations = locationContext.methodAnnotations != null ? locationContext.methodAnnotations
-                : Collections.emptyList();
-
-        // 条件 1：方法名包含"test" (不区分大小写)
-        if (methodName.toLowerCase().contains("test")) {
-            this.locate = "Test Case";
-            return;
-        }
-
-        // 条件 2：注解包含 @test (不区分大小写)
-        Set<String> forbiddenAnnotations = new HashSet<>(Arrays.asList(
-                "@test", "test"// 兼容有无 @ 的情况
-        ));
-        for (String ann : annotations) {
-            String lowerAnn = ann.toLowerCase().replaceAll("@", "");
-            for (String eachAnn : forbiddenAnnotations) {
-                if (lowerAnn.toLowerCase().contains(eachAnn)) {
-                    this.locate = "Test Case";
-                    return;
-                }
-            }
-        }
-
-        // 条件 3：包含 Before 关键词注解 (例如 @BeforeEach)
-        for (String ann : annotations) {
-            if (ann.toLowerCase().contains("before")) {
-                this.locate = "@Before";
-                return;
-            }
-        }
-
-        // 条件 4：包含 After 关键词注解 (例如 @After)
-        for (String ann : annotations) {
-            if (ann.toLowerCase().contains("after")) {
-                this.locate = "@After";
-                return;
-            }
-        }
-
-        // 条件 5：方法名包含 helper 关键词
-        String lowerMethodName = methodName.toLowerCase();
-        String[] helperKeywords = { "mock", "init", "create", "setup", "prepare", "build", "initialize", "reset",
-                "configure" };
-        for (String kw : helperKeywords) {
-            if (lowerMethodName.contains(kw)) {
-                this.locate = "Helper Method";
-                return;
-            }
-        }
-
-        // 条件 6：字段声明
-        if ("FieldDeclaration".equals(methodName)) {
-            this.locate = "Attribute";
-            return;
-        }
-
-        // 条件 7：包含 Override 关键词注解 (例如 @Override)
-        for (String ann : annotations) {
-            if (ann.toLowerCase().contains("override")) {
-                this.locate = "@Override";
-                return;
-            }
-        }
-
-        // 默认分类
-        this.locate = "Other Methods";
+        this.locate = locationContext.location();
     }
 
 }
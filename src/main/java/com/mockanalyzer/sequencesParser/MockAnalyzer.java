@@ -79,16 +79,16 @@ public class MockAnalyzer {
                 statementInfo.line = field.getBegin().map(pos -> pos.line).orElse(-1);
                 statementInfo.locationContext.methodName = field.getMetaModel().getTypeName();
                 statementInfo.locationContext.methodAnnotations = new ArrayList<>();
-                statementInfo.type = "FIELD_DECLARATION"; // 默认类型
+                statementInfo.type = StatementInfo.Kind.FIELD_DECLARATION; // 默认类型
 
                 // 1. Check annotations
                 field.getAnnotations().forEach(annotation -> {
                     String annotationName = annotation.getNameAsString().toLowerCase();
                     if (annotationName.equals("mock")) {
-                        statementInfo.type = "FIELD_MOCK_CREATION";
+                        statementInfo.type = StatementInfo.Kind.FIELD_MOCK_CREATION;
                         statementInfo.isMockRelated = true;
                     } else if (annotationName.equals("spy")) {
-                        statementInfo.type = "FIELD_SPY_CREATION";
+                        statementInfo.type = StatementInfo.Kind.FIELD_SPY_CREATION;
                         statementInfo.isMockRelated = true;
                     }
                     statementInfo.locationContext.methodAnnotations.add(annotation.getNameAsString());
@@ -98,13 +98,13 @@ public class MockAnalyzer {
                 if (variable.getInitializer().isPresent()) {
                     Expression initializer = variable.getInitializer().get();
                     if (CreationAnalyzer.isMockCreation(initializer)) {
-                        statementInfo.type = "FIELD_MOCK_CREATION";
+                        statementInfo.type = StatementInfo.Kind.FIELD_MOCK_CREATION;
                         statementInfo.isMockRelated = true;
                     } else if (CreationAnalyzer.isSpyCreation(initializer)) {
-                        statementInfo.type = "FIELD_SPY_CREATION";
+                        statementInfo.type = StatementInfo.Kind.FIELD_SPY_CREATION;
                         statementInfo.isMockRelated = true;
                     } else if (!statementInfo.isMockRelated) {
-                        statementInfo.type = "FIELD_INITIALIZATION"; // 普通赋值（无 @Mock/@Spy 注解）
+                        statementInfo.type = StatementInfo.Kind.FIELD_INITIALIZATION; // 普通赋值（无 @Mock/@Spy 注解）
                     }
                 }
 
@@ -116,10 +116,14 @@ public class MockAnalyzer {
 
     private void scanMethods(ClassOrInterfaceDeclaration clazz) {
         clazz.getMethods().forEach(method -> {
-            String methodName = method.getNameAsString();
-            List<String> methodAnnotations = new ArrayList<>();
-            String methodRawCode = method.toString();
-            method.getAnnotations().forEach(annotation -> methodAnnotations.add(annotation.getNameAsString()));
+            // 同一方法的语句共享上下文，位置只计算一次
+            // the method's statements share one context, so its location is classified once
+            StatementInfo.LocationContext locationContext = new StatementInfo.LocationContext();
+            locationContext.methodName = method.getNameAsString();
+            locationContext.methodAnnotations = new ArrayList<>();
+            locationContext.methodRawCode = method.toString();
+            method.getAnnotations()
+                    .forEach(annotation -> locationContext.methodAnnotations.add(annotation.getNameAsString()));
 
             List<MockInfo> methodVariables = new ArrayList<>();
 
@@ -128,9 +132,7 @@ public class MockAnalyzer {
                     StatementInfo statementInfo = new StatementInfo();
                     statementInfo.code = statement.toString();
                     statementInfo.line = statement.getBegin().map(pos -> pos.line).orElse(-1);
-                    statementInfo.locationContext.methodName = methodName;
-                    statementInfo.locationContext.methodAnnotations = methodAnnotations;
-                    statementInfo.locationContext.methodRawCode = methodRawCode;
+                    statementInfo.locationContext = locationContext;
 
                     // Analyze the statement
                     if (statement.isExpressionStmt()) {
@@ -156,16 +158,16 @@ public class MockAnalyzer {
                                 if (variable.getInitializer().isPresent()) {
                                     var initializer = variable.getInitializer().get();
                                     if (CreationAnalyzer.isMockCreation(initializer)) {
-                                        statementInfo.type = "METHOD_MOCK_CREATION";
+                                        statementInfo.type = StatementInfo.Kind.METHOD_MOCK_CREATION;
                                         statementInfo.isMockRelated = true;
                                     } else if (CreationAnalyzer.isSpyCreation(initializer)) {
-                                        statementInfo.type = "METHOD_SPY_CREATION";
+                                        statementInfo.type = StatementInfo.Kind.METHOD_SPY_CREATION;
                                         statementInfo.isMockRelated = true;
                                     } else {
-                                        statementInfo.type = "METHOD_VARIABLE_INITIALIZATION";
+                                        statementInfo.type = StatementInfo.Kind.METHOD_VARIABLE_INITIALIZATION;
                                     }
                                 } else {
-                                    statementInfo.type = "METHOD_VARIABLE_DECLARATION";
+                                    statementInfo.type = StatementInfo.Kind.METHOD_VARIABLE_DECLARATION;
                                 }
 
                                 mockInfo.statements.add(statementInfo);
@@ -179,13 +181,13 @@ public class MockAnalyzer {
                             String targetName = assignExpr.getTarget().toString();
 
                             if (CreationAnalyzer.isMockCreation(assignExpr.getValue())) {
-                                statementInfo.type = "ASSIGNMENT_MOCK";
+                                statementInfo.type = StatementInfo.Kind.ASSIGNMENT_MOCK;
                                 statementInfo.isMockRelated = true;
                             } else if (CreationAnalyzer.isSpyCreation(assignExpr.getValue())) {
-                                statementInfo.type = "ASSIGNMENT_SPY";
+                                statementInfo.type = StatementInfo.Kind.ASSIGNMENT_SPY;
                                 statementInfo.isMockRelated = true;
                             } else {
-                                statementInfo.type = "ASSIGNMENT";
+                                statementInfo.type = StatementInfo.Kind.ASSIGNMENT;
                             }
 
                             // Check if the target is in methodVariables or globalVariables
@@ -197,7 +199,7 @@ public class MockAnalyzer {
                         // Optional<String> verifyTargetOpt = getVerificationTargetVariable(expression);
                         else if (getVerificationTargetVariable(expression).isPresent()) {
                             String mockTarget = getVerificationTargetVariable(expression).get();
-                            statementInfo.type = "VERIFICATION";
+                            statementInfo.type = StatementInfo.Kind.VERIFICATION;
                             statementInfo.isMockRelated = true;
 
                             addStatementToMockInfo(mockTarget, statementInfo, methodVariables, globalVariables,
@@ -209,7 +211,7 @@ public class MockAnalyzer {
 
                             if (mockTargetOpt.isPresent()) {
                                 String mockTarget = mockTargetOpt.get();
-                                statementInfo.type = "STUBBING";
+                                statementInfo.type = StatementInfo.Kind.STUBBING;
                                 statementInfo.isMockRelated = true;
 
                                 // 添加 statementInfo 到对应的 MockInfo（先查 methodVariables，再查 globalVariables）
@@ -220,7 +222,7 @@ public class MockAnalyzer {
                             // 非 stubbing、非 verify 的普通表达式
                             Set<String> allVars = extractAllVariableNames(expression);
                             if (!allVars.isEmpty()) {
-                                statementInfo.type = "REFERENCE";
+                                statementInfo.type = StatementInfo.Kind.REFERENCE;
 
                                 statementInfo.isMockRelated = false;
                                 addStatementToMatchingMockInfos(allVars, statementInfo, methodVariables,
@@ -267,7 +269,7 @@ public class MockAnalyzer {
             MockInfo mock = localMockOpt.get();
 
             // 如果是 STUBBING 类型，进行抽象化
-            if ("STUBBING".equals(statementInfo.type)) {
+            if (statementInfo.type == StatementInfo.Kind.STUBBING) {
                 statementInfo.abstractedStatement = StubbingAnalyzer.abstractStubbingStatement(expressionForAbstract,
                         mock);
             }
@@ -287,7 +289,7 @@ public class MockAnalyzer {
             MockInfo mock = globalMockOpt.get();
 
             // 如果是 STUBBING 类型，进行抽象化
-            if ("STUBBING".equals(statementInfo.type)) {
+            if (statementInfo.type == StatementInfo.Kind.STUBBING) {
                 statementInfo.abstractedStatement = StubbingAnalyzer.abstractStubbingStatement(expressionForAbstract,
                         mock);
             }
@@ -0,0 +1,171 @@
+package com.mockanalyzer.visitor;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.mockanalyzer.metrics.RunMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 项目级、可跨线程共享的 type solver。
+ * Project type solver that any number of parsing threads can share.
+ *
+ * It replaces the CombinedTypeSolver of a project: the same elements
+ * (reflection first, then the jars) are tried in the same order, and the
+ * first solved type wins. Unlike CombinedTypeSolver, the element list is
+ * fixed at construction and the type cache is split into lock stripes, so
+ * threads only wait for each other when they look up names of the same
+ * stripe at the same moment. A name is resolved outside the lock; if two
+ * threads resolve it at once, the first result is kept for both.
+ *
+ * The jar elements read immutable class indexes, and javassist synchronizes
+ * its class pools itself. What cannot be shared is the JavaParserFacade of
+ * JavaSymbolSolver, whose caches are plain maps keyed by the solver it was
+ * created for; each thread therefore resolves through its own {@link #newView()}.
+ */
+public class ConcurrentTypeSolver implements TypeSolver {
+
+    private static final int STRIPES = 32; // a power of two
+
+    private final List<TypeSolver> elements;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final List<Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>>> caches = new ArrayList<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder raced = new LongAdder(); // resolved by two threads at once
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * @param elements the solvers to try in order; they must not have a parent yet
+     */
+    public ConcurrentTypeSolver(List<TypeSolver> elements) {
+        this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+        for (TypeSolver element : this.elements) {
+            element.setParent(this);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+            caches.add(new HashMap<>());
+        }
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return null;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        throw new UnsupportedOperationException("A shared type solver is always the root");
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        int stripe = stripe(name);
+        lookups.increment();
+        SymbolReference<ResolvedReferenceTypeDeclaration> cached;
+        lock(stripe);
+        try {
+            cached = caches.get(stripe).get(name);
+        } finally {
+            locks[stripe].unlock();
+        }
+        if (cached != null) {
+            hits.increment();
+            RunMetrics.get().typeLookup(true);
+            return cached;
+        }
+        RunMetrics.get().typeLookup(false);
+
+        // resolving may look up other names (supertypes), so no lock is held
+        SymbolReference<ResolvedReferenceTypeDeclaration> resolved = SymbolReference.unsolved();
+        for (TypeSolver element : elements) {
+            SymbolReference<ResolvedReferenceTypeDeclaration> ref = element.tryToSolveType(name);
+            if (ref.isSolved()) {
+                resolved = ref;
+                break;
+            }
+        }
+
+        lock(stripe);
+        try {
+            SymbolReference<ResolvedReferenceTypeDeclaration> first = caches.get(stripe).putIfAbsent(name, resolved);
+            if (first != null) {
+                raced.increment();
+                return first;
+            }
+            return resolved;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * A type solver for one thread: types come from (and are cached in)
+     * this solver, but a JavaSymbolSolver on top of the view gets its own
+     * JavaParserFacade.
+     */
+    public TypeSolver newView() {
+        return new View(this);
+    }
+
+    /**
+     * One-line summary of the cache and its lock contention.
+     */
+    public String summary() {
+        long total = lookups.sum();
+        return String.format("%d type lookups, %.1f%% cached, %d resolved twice, %d contended (%d ms waiting)",
+                total, total == 0 ? 0.0 : 100.0 * hits.sum() / total, raced.sum(), contended.sum(),
+                waitNanos.sum() / 1_000_000);
+    }
+
+    private void lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        contended.increment();
+        waitNanos.add(waited);
+        RunMetrics.get().typeLockContended(waited);
+    }
+
+    private static int stripe(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static final class View implements TypeSolver {
+        private final ConcurrentTypeSolver shared;
+
+        View(ConcurrentTypeSolver shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return null;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            throw new UnsupportedOperationException("A type solver view is always the root");
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            return shared.tryToSolveType(name);
+        }
+    }
+}
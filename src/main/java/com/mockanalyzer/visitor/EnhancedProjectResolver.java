@@ -1,8 +1,9 @@
 package com.mockanalyzer.visitor;
 
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.mockanalyzer.metrics.RunMetrics;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -11,9 +12,22 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 public class EnhancedProjectResolver {
-    public static CombinedTypeSolver createTypeSolver(Path projectRoot, boolean runCommand)
+    public static ConcurrentTypeSolver createTypeSolver(Path projectRoot, boolean runCommand)
+            throws IOException, InterruptedException {
+        return createTypeSolver(projectRoot, runCommand, null);
+    }
+
+    /**
+     * 同上；jarIndex 不为空时，jar 通过共享索引加载（批量模式）。
+     * Same as above; with a non-null jarIndex, jars come from the shared index (batch mode).
+     */
+    public static ConcurrentTypeSolver createTypeSolver(Path projectRoot, boolean runCommand, SharedJarIndex jarIndex)
             throws IOException, InterruptedException {
         // 检测项目类型
         boolean isMaven = Files.exists(projectRoot.resolve("pom.xml"));
@@ -30,11 +44,11 @@ public class EnhancedProjectResolver {
                         projectRoot);
             }
 
-            CombinedTypeSolver combinedSolver = new CombinedTypeSolver();
-            combinedSolver.add(new ReflectionTypeSolver());
+            List<TypeSolver> elements = new ArrayList<>();
+            elements.add(new ReflectionTypeSolver());
 
-            addAllModuleLibs(projectRoot, combinedSolver);
-            return combinedSolver; 
+            addAllModuleLibs(projectRoot, elements, jarIndex);
+            return new ConcurrentTypeSolver(elements);
 
         }
         if (isGradle) {
@@ -46,10 +60,10 @@ public class EnhancedProjectResolver {
                 // ensureGradleCopyLibsTask(projectRoot);
                 runCommand("gradlew.bat copyTestLibs", projectRoot);
             }
-            CombinedTypeSolver combinedSolver = new CombinedTypeSolver();
-            combinedSolver.add(new ReflectionTypeSolver());
-            addAllModuleLibs(projectRoot, combinedSolver);
-            return combinedSolver;
+            List<TypeSolver> elements = new ArrayList<>();
+            elements.add(new ReflectionTypeSolver());
+            addAllModuleLibs(projectRoot, elements, jarIndex);
+            return new ConcurrentTypeSolver(elements);
 
         }
 
@@ -105,21 +119,79 @@ public class EnhancedProjectResolver {
         throw new IOException("无法读取文件，所有编码尝试失败: " + file);
     }
 
-    private static void addAllModuleLibs(Path projectRoot, CombinedTypeSolver solver) {
-        try {
-            Files.walk(projectRoot)
-                    .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".jar"))
-                    .forEach(jarPath -> {
-                        try {
-                            System.out.println("[INFO] 加载依赖 Jar: " + jarPath);
-                            solver.add(new JarTypeSolver(jarPath.toFile()));
-                        } catch (IOException e) {
-                            System.err.println("[WARN] 无法加载 Jar: " + jarPath + " - " + e.getMessage());
-                        }
-                    });
+    /**
+     * 加载项目中所有 jar；每个 jar 的耗时计入运行指标，只输出一行汇总。
+     * Loads every jar of the project; the time goes to the run metrics and
+     * only a one-line summary is printed.
+     */
+    private static void addAllModuleLibs(Path projectRoot, List<TypeSolver> elements, SharedJarIndex jarIndex) {
+        int[] loaded = new int[1];
+        try (RunMetrics.Span span = RunMetrics.phase(RunMetrics.Phase.JAR_LOADING)) {
+            if (IoExecutors.isVirtualIo()) {
+                loaded[0] = addAllModuleLibsConcurrently(projectRoot, elements, jarIndex);
+            } else {
+                try (Stream<Path> paths = Files.walk(projectRoot)) {
+                    paths.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".jar"))
+                            .forEach(jarPath -> {
+                                try {
+                                    elements.add(openJar(jarPath, jarIndex));
+                                    loaded[0]++;
+                                } catch (IOException e) {
+                                    System.err.println("[WARN] 无法加载 Jar: " + jarPath + " - " + e.getMessage());
+                                }
+                            });
+                } catch (IOException e) {
+                    System.err.println("[WARN] 遍历项目 jar 文件失败: " + e.getMessage());
+                }
+            }
+            System.out.println("[INFO] 已加载依赖 Jar: " + loaded[0] + " (" + span.elapsedNanos() / 1_000_000 + " ms)");
+        }
+    }
+
+    /**
+     * 并发打开所有 jar（I/O 线程），再按遍历顺序加入 elements，保证解析顺序不变。
+     * Opens all jars concurrently on I/O threads, then adds them in walk order
+     * so that type lookup order stays the same as the sequential path.
+     *
+     * @return the number of jars added
+     */
+    private static int addAllModuleLibsConcurrently(Path projectRoot, List<TypeSolver> elements,
+            SharedJarIndex jarIndex) {
+        List<Path> jarPaths = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(projectRoot)) {
+            paths.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".jar"))
+                    .forEach(jarPaths::add);
         } catch (IOException e) {
             System.err.println("[WARN] 遍历项目 jar 文件失败: " + e.getMessage());
         }
+
+        int loaded = 0;
+        ExecutorService io = IoExecutors.newIoExecutor();
+        try {
+            List<Future<TypeSolver>> opened = new ArrayList<>();
+            for (Path jarPath : jarPaths) {
+                opened.add(io.submit(() -> openJar(jarPath, jarIndex)));
+            }
+            for (int i = 0; i < jarPaths.size(); i++) {
+                Path jarPath = jarPaths.get(i);
+                try {
+                    elements.add(opened.get(i).get());
+                    loaded++;
+                } catch (ExecutionException e) {
+                    System.err.println("[WARN] 无法加载 Jar: " + jarPath + " - " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return loaded;
+                }
+            }
+        } finally {
+            io.shutdownNow();
+        }
+        return loaded;
+    }
+
+    private static TypeSolver openJar(Path jarPath, SharedJarIndex jarIndex) throws IOException {
+        return jarIndex == null ? new JarTypeSolver(jarPath.toFile()) : jarIndex.solverFor(jarPath);
     }
 
     private static void runCommand(String command, Path workingDir) throws IOException, InterruptedException {
@@ -137,8 +209,11 @@ public class EnhancedProjectResolver {
         ProcessBuilder pb = new ProcessBuilder(cmdList);
         pb.directory(workingDir.toFile());
         pb.inheritIO();
-        Process p = pb.start();
-        int exitCode = p.waitFor();
+        int exitCode;
+        try (RunMetrics.Span ignored = RunMetrics.phase(RunMetrics.Phase.BUILD)) {
+            Process p = pb.start();
+            exitCode = p.waitFor();
+        }
         if (exitCode != 0) {
             System.err.println("[WARN] 命令返回非零退出码: " + exitCode);
         }
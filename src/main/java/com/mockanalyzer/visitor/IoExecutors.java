@@ -0,0 +1,51 @@
+package com.mockanalyzer.visitor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking file and jar I/O.
+ *
+ * With virtual I/O enabled, each read runs on its own virtual thread on JDK
+ * 21+, so slow (e.g. network-mounted) storage can have many reads in flight
+ * without tying up platform threads. Virtual threads are looked up
+ * reflectively because the project still compiles for Java 17; there, a
+ * small fixed pool of daemon threads is used instead.
+ */
+public class IoExecutors {
+
+    // platform threads used when virtual threads are not available
+    private static final int FALLBACK_IO_THREADS = 4;
+
+    private static volatile boolean virtualIo = false;
+
+    public static void setVirtualIo(boolean enabled) {
+        virtualIo = enabled;
+    }
+
+    public static boolean isVirtualIo() {
+        return virtualIo;
+    }
+
+    /**
+     * A new executor for I/O tasks; the caller shuts it down.
+     */
+    public static ExecutorService newIoExecutor() {
+        if (Runtime.version().feature() >= 21) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("[WARN] Virtual threads unavailable, using a platform I/O pool: " + e.getMessage());
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(FALLBACK_IO_THREADS, r -> {
+            Thread t = new Thread(r, "io-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
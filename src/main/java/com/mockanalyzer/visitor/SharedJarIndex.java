@@ -0,0 +1,218 @@
+package com.mockanalyzer.visitor;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import javassist.ClassPool;
+import javassist.NotFoundException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 跨项目共享的 jar 索引。
+ * Jar class indexes shared across projects (e.g. in batch mode).
+ *
+ * Indexing a jar (opening it and listing its classes) is what makes a
+ * JarTypeSolver expensive, and most projects of a corpus depend on the same
+ * jars, each under its own libs/ folder. Jars are therefore keyed by file
+ * name, size and a hash of their central directory (the zip's table of
+ * entries, with each entry's CRC-32 and sizes), and indexed once. Only the
+ * central directory is read, a small part of the jar, and only once per file
+ * (real path, size and modification time). A JarTypeSolver cannot be shared
+ * directly: it has a single parent, and the types it returns resolve their
+ * supertypes through that parent's root. So every project gets a thin
+ * {@link JarView} with its own parent on top of the shared index. Indexes
+ * are not changed once built, so views may be used from several threads.
+ */
+public class SharedJarIndex {
+
+    private static final int END_RECORD_SIGNATURE = 0x06054b50;
+    private static final int END_RECORD_SIZE = 22;
+
+    private final Map<String, JarIndex> indexes = new ConcurrentHashMap<>();
+    // real path, size and modification time -> key in indexes
+    private final Map<String, String> keysByFile = new ConcurrentHashMap<>();
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger indexed = new AtomicInteger();
+
+    private static final class JarIndex {
+        final ClassPool classPool = new ClassPool();
+        // class name (inner classes with '.') -> class pool name (inner classes with '$'); read-only once built
+        final Map<String, String> knownClasses;
+
+        JarIndex(Path jarPath) throws IOException {
+            try {
+                classPool.appendClassPath(jarPath.toString());
+            } catch (NotFoundException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            Map<String, String> classes = new HashMap<>();
+            try (JarFile jarFile = new JarFile(jarPath.toFile())) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    String entryName = entries.nextElement().getName();
+                    if (entryName.endsWith(".class")) {
+                        String poolName = entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.');
+                        classes.put(poolName.replace('$', '.'), poolName);
+                    }
+                }
+            }
+            knownClasses = Collections.unmodifiableMap(classes);
+        }
+    }
+
+    /**
+     * Per-project type solver over a shared jar index.
+     */
+    public static final class JarView implements TypeSolver {
+        private final JarIndex index;
+        private TypeSolver parent;
+
+        private JarView(JarIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            if (parent == null)
+                throw new NullPointerException("The parent must not be null.");
+            if (this.parent != null)
+                throw new IllegalStateException("This TypeSolver already has a parent.");
+            if (parent == this)
+                throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            String poolName = index.knownClasses.get(name);
+            if (poolName == null) {
+                return SymbolReference.unsolved();
+            }
+            try {
+                return SymbolReference.solved(JavassistFactory.toTypeDeclaration(index.classPool.get(poolName), getRoot()));
+            } catch (NotFoundException e) {
+                throw new IllegalStateException("Unable to get class with name " + poolName, e);
+            }
+        }
+    }
+
+    /**
+     * A type solver for the jar, indexing it only if no identical jar was indexed before.
+     */
+    public TypeSolver solverFor(Path jarPath) throws IOException {
+        String key = key(jarPath);
+        boolean[] created = new boolean[1];
+        try {
+            JarIndex index = indexes.computeIfAbsent(key, k -> {
+                try {
+                    created[0] = true;
+                    return new JarIndex(jarPath);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            (created[0] ? indexed : reused).incrementAndGet();
+            return new JarView(index);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public int reusedCount() {
+        return reused.get();
+    }
+
+    public int indexedCount() {
+        return indexed.get();
+    }
+
+    /**
+     * The jar's key in indexes; a file is hashed again only once it changed.
+     */
+    private String key(Path jarPath) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(jarPath, BasicFileAttributes.class);
+        String file = jarPath.toRealPath() + "@" + attrs.size() + "@" + attrs.lastModifiedTime().toMillis();
+        String key = keysByFile.get(file);
+        if (key == null) {
+            key = jarPath.getFileName() + "@" + attrs.size() + "@" + centralDirectoryHash(jarPath);
+            keysByFile.put(file, key);
+        }
+        return key;
+    }
+
+    /**
+     * SHA-256 of the jar's central directory; of the whole jar if it has none
+     * that can be found (not a zip, or a zip64 one).
+     */
+    private static String centralDirectoryHash(Path jarPath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(jarPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // the end of central directory record: 22 bytes and a comment of at most 65535
+            ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size, END_RECORD_SIZE + 0xFFFF))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            while (tail.hasRemaining() && channel.read(tail, size - tail.capacity() + tail.position()) > 0) {
+                // read until the tail is full
+            }
+            long offset = -1;
+            long length = -1;
+            for (int i = tail.capacity() - END_RECORD_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == END_RECORD_SIGNATURE) {
+                    length = Integer.toUnsignedLong(tail.getInt(i + 12));
+                    offset = Integer.toUnsignedLong(tail.getInt(i + 16));
+                    break;
+                }
+            }
+            if (offset < 0 || length == 0xFFFFFFFFL || offset == 0xFFFFFFFFL || offset + length > size) {
+                offset = 0;
+                length = size;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for (long position = offset; position < offset + length;) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), offset + length - position));
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    break;
+                }
+                buffer.flip();
+                digest.update(buffer);
+                position += n;
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
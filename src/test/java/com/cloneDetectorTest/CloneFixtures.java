@@ -0,0 +1,69 @@
+package com.cloneDetectorTest;
+
+import java.util.*;
+import java.util.function.Function;
+
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.StatementInfo;
+
+/**
+ * Sequences and clone summaries shared by the detector and exporter tests.
+ */
+final class CloneFixtures {
+
+    private CloneFixtures() {
+    }
+
+    /**
+     * A sequence of one test without statements.
+     */
+    static MockSequence sequence(int id, String mockedClass, String packageName, String filePath) {
+        MockSequence seq = new MockSequence();
+        seq.mockObjectId = id;
+        seq.mockedClass = mockedClass;
+        seq.packageName = packageName;
+        seq.filePath = filePath;
+        seq.testMethodName = "test" + id;
+        return seq;
+    }
+
+    /**
+     * Adds the stubbing when(service.call<line>()).thenReturn(<line>) at the line.
+     */
+    static void stub(MockSequence seq, int line, String abstractedStatement) {
+        StatementInfo stmt = new StatementInfo();
+        stmt.line = line;
+        stmt.type = StatementInfo.Kind.STUBBING;
+        stmt.isMockRelated = true;
+        stmt.code = "when(service.call" + line + "()).thenReturn(" + line + ");";
+        stmt.abstractedStatement = abstractedStatement;
+        seq.rawStatementInfo.put(line, stmt);
+        seq.testMockLines.put(line, stmt.code);
+        seq.abstractedStatement.put(line, stmt.abstractedStatement);
+    }
+
+    /**
+     * Clones in a comparable form: per mocked class, each instance as its
+     * package, lines reduced, shared statements and its sequences as
+     * described, all sorted.
+     */
+    static Map<String, List<String>> summary(Map<String, List<MockCloneInstance>> clones,
+            Function<MockSequence, String> describe) {
+        Map<String, List<String>> summary = new TreeMap<>();
+        for (Map.Entry<String, List<MockCloneInstance>> entry : clones.entrySet()) {
+            List<String> instances = new ArrayList<>();
+            for (MockCloneInstance clone : entry.getValue()) {
+                List<String> sequences = new ArrayList<>();
+                for (MockSequence seq : clone.sequences) {
+                    sequences.add(describe.apply(seq));
+                }
+                instances.add(clone.packageName + " " + clone.locReduced + " " + clone.sharedStatements + " "
+                        + sequences);
+            }
+            Collections.sort(instances);
+            summary.put(entry.getKey(), instances);
+        }
+        return summary;
+    }
+}
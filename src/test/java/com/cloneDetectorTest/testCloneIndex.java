@@ -0,0 +1,77 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.CloneIndex;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+
+public class testCloneIndex {
+
+    private static List<MockSequence> sequences() {
+        List<MockSequence> sequences = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            MockSequence seq = CloneFixtures.sequence(i, "com.example.Service" + (i % 3) + "<T>",
+                    "com.example.p" + (i % 2), "src/test/java/com/example/ServiceTest" + (i % 4) + ".java");
+            seq.className = "ServiceTest" + (i % 4);
+            for (int line = 1; line <= 3; line++) {
+                CloneFixtures.stub(seq, line, "Service" + (i % 3) + ".call" + line + "()");
+            }
+            sequences.add(seq);
+        }
+        return sequences;
+    }
+
+    @Test
+    public void looksUpInstancesByEveryKey() throws Exception {
+        Map<String, List<MockCloneInstance>> clones = new MockCloneDetector().detect(sequences());
+        Path file = Files.createTempFile("clone", ".json.idx");
+        try {
+            CloneIndex.write(file, clones, null);
+            CloneIndex index = CloneIndex.open(file);
+
+            int total = 0;
+            for (List<MockCloneInstance> instances : clones.values()) {
+                total += instances.size();
+            }
+            assertEquals(total, index.size());
+            assertEquals(total, index.lookup(new HashMap<>()).size());
+
+            for (MockCloneInstance instance : clones.get("com.example.Service1<T>")) {
+                assertTrue(index.lookup(CloneIndex.Key.CLASS, "Service1").stream()
+                        .anyMatch(hit -> hit.sharedStatements.equals(instance.sharedStatements)
+                                && hit.packageName.equals(instance.packageName)));
+            }
+            assertEquals(index.count(CloneIndex.Key.CLASS, "com.example.Service1<T>"),
+                    index.count(CloneIndex.Key.CLASS, "Service1"));
+
+            List<CloneIndex.Hit> byFile = index.lookup(CloneIndex.Key.FILE, "ServiceTest2.java");
+            assertTrue(!byFile.isEmpty());
+            for (CloneIndex.Hit hit : byFile) {
+                assertTrue(hit.tests.stream().anyMatch(test -> test.contains("ServiceTest2.java#")));
+            }
+
+            Map<CloneIndex.Key, String> criteria = new LinkedHashMap<>();
+            criteria.put(CloneIndex.Key.STATEMENT, "Service0.call1()");
+            criteria.put(CloneIndex.Key.TEST, "ServiceTest0.test0");
+            List<CloneIndex.Hit> both = index.lookup(criteria);
+            assertTrue(!both.isEmpty());
+            for (CloneIndex.Hit hit : both) {
+                assertTrue(hit.sharedStatements.contains("Service0.call1()"));
+                assertTrue(hit.tests.contains("src/test/java/com/example/ServiceTest0.java#test0"));
+            }
+
+            assertEquals(0, index.count(CloneIndex.Key.PACKAGE, "com.example.none"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
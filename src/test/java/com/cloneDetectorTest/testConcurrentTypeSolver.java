@@ -0,0 +1,116 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.mockanalyzer.visitor.ConcurrentTypeSolver;
+
+public class testConcurrentTypeSolver {
+
+    /**
+     * Solves names with the given prefix and counts its lookups.
+     */
+    private static class PrefixSolver implements TypeSolver {
+        final String prefix;
+        final AtomicInteger lookups = new AtomicInteger();
+        TypeSolver parent;
+
+        PrefixSolver(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            lookups.incrementAndGet();
+            if (!name.startsWith(prefix)) {
+                return SymbolReference.unsolved();
+            }
+            ResolvedReferenceTypeDeclaration declaration = (ResolvedReferenceTypeDeclaration) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[] { ResolvedReferenceTypeDeclaration.class },
+                    (proxy, method, args) -> method.getName().equals("getQualifiedName") ? name : null);
+            return SymbolReference.solved(declaration);
+        }
+    }
+
+    @Test
+    public void triesElementsInOrderAndCaches() {
+        PrefixSolver first = new PrefixSolver("java.");
+        PrefixSolver second = new PrefixSolver("com.");
+        ConcurrentTypeSolver solver = new ConcurrentTypeSolver(Arrays.asList(first, second));
+        assertSame(solver, first.getRoot());
+
+        assertTrue(solver.tryToSolveType("com.example.Service").isSolved());
+        assertFalse(solver.tryToSolveType("org.example.Missing").isSolved());
+        assertEquals(2, first.lookups.get());
+        assertEquals(2, second.lookups.get());
+
+        // solved and unsolved results are both cached
+        solver.tryToSolveType("com.example.Service");
+        solver.tryToSolveType("org.example.Missing");
+        assertEquals(2, first.lookups.get());
+
+        TypeSolver view = solver.newView();
+        assertSame(view, view.getRoot());
+        assertSame(solver.tryToSolveType("com.example.Service").getCorrespondingDeclaration(),
+                view.tryToSolveType("com.example.Service").getCorrespondingDeclaration());
+    }
+
+    @Test
+    public void threadsShareOneResultPerName() throws Exception {
+        PrefixSolver element = new PrefixSolver("com.");
+        ConcurrentTypeSolver solver = new ConcurrentTypeSolver(Collections.singletonList(element));
+        int threads = 8;
+        int names = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<ResolvedReferenceTypeDeclaration>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                TypeSolver view = solver.newView();
+                results.add(pool.submit(() -> {
+                    start.await();
+                    List<ResolvedReferenceTypeDeclaration> declarations = new ArrayList<>();
+                    for (int i = 0; i < names; i++) {
+                        declarations.add(view.tryToSolveType("com.example.Type" + i).getCorrespondingDeclaration());
+                    }
+                    return declarations;
+                }));
+            }
+            start.countDown();
+            List<ResolvedReferenceTypeDeclaration> expected = results.get(0).get();
+            for (Future<List<ResolvedReferenceTypeDeclaration>> result : results) {
+                List<ResolvedReferenceTypeDeclaration> declarations = result.get();
+                for (int i = 0; i < names; i++) {
+                    assertSame(expected.get(i), declarations.get(i));
+                }
+            }
+            assertTrue(element.lookups.get() >= names);
+            assertTrue(element.lookups.get() <= names * threads);
+            assertTrue(solver.summary().startsWith(names * threads + " type lookups"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
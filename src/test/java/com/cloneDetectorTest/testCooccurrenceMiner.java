@@ -0,0 +1,116 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.AprioriMiner;
+import com.mockanalyzer.cloneDetector.CooccurrenceMiner;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.cloneDetector.MockCloneMiner;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+
+public class testCooccurrenceMiner {
+
+    /**
+     * The patterns of Apriori that no larger pattern with the same sequences contains.
+     */
+    private static Map<Set<String>, Set<Integer>> closed(Map<Set<String>, Set<Integer>> patterns) {
+        Map<Set<String>, Set<Integer>> closed = new HashMap<>();
+        for (Map.Entry<Set<String>, Set<Integer>> pattern : patterns.entrySet()) {
+            boolean isClosed = true;
+            for (Map.Entry<Set<String>, Set<Integer>> other : patterns.entrySet()) {
+                if (other.getKey().size() > pattern.getKey().size()
+                        && other.getKey().containsAll(pattern.getKey())
+                        && other.getValue().equals(pattern.getValue())) {
+                    isClosed = false;
+                    break;
+                }
+            }
+            if (isClosed) {
+                closed.put(pattern.getKey(), pattern.getValue());
+            }
+        }
+        return closed;
+    }
+
+    private static MockSequence sequence(String packageName, String test, int... stubbings) {
+        MockSequence seq = new MockSequence();
+        seq.mockObjectId = test.hashCode();
+        seq.variableName = "service";
+        seq.mockedClass = "com.example.Service";
+        seq.packageName = packageName;
+        seq.filePath = packageName.replace('.', '/') + "/ServiceTest.java";
+        seq.testMethodName = test;
+        int line = 1;
+        for (int stubbing : stubbings) {
+            seq.abstractedStatement.put(line, "when(service.call" + stubbing + "()).thenReturn(VALUE);");
+            seq.testMockLines.put(line, "when(service.call" + stubbing + "()).thenReturn(\"x\");");
+            line++;
+        }
+        return seq;
+    }
+
+    private static Set<String> canonical(List<MockCloneInstance> instances) {
+        Set<String> canonical = new TreeSet<>();
+        for (MockCloneInstance instance : instances) {
+            Set<String> tests = new TreeSet<>();
+            for (MockSequence seq : instance.sequences) {
+                tests.add(seq.packageName + "#" + seq.testMethodName);
+            }
+            canonical.add(new TreeSet<>(instance.sharedStatements) + " " + tests);
+        }
+        return canonical;
+    }
+
+    @Test
+    public void findsTheClosedPatternsOfApriori() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            List<List<String>> transactions = new ArrayList<>();
+            for (int t = 0; t < 30; t++) {
+                List<String> transaction = new ArrayList<>();
+                int size = random.nextInt(6);
+                for (int i = 0; i < size; i++) {
+                    transaction.add("when(Service.call" + random.nextInt(8) + "()).thenReturn(String)");
+                }
+                transactions.add(transaction);
+            }
+
+            Map<Set<String>, Set<Integer>> apriori = new AprioriMiner().mine(transactions, 2);
+            Map<Set<String>, Set<Integer>> cooccurrence = new CooccurrenceMiner().mine(transactions, 2);
+            assertEquals(closed(apriori), new HashMap<>(cooccurrence));
+        }
+    }
+
+    @Test
+    public void crossPackageClonesMatchAprioriOnTheWholeClass() {
+        List<MockSequence> sequences = List.of(
+                sequence("com.a", "testA1", 1, 2, 3),
+                sequence("com.a", "testA2", 1, 2, 3, 4),
+                sequence("com.b", "testB1", 1, 2, 3),
+                sequence("com.b", "testB2", 4, 5),
+                sequence("com.c", "testC1", 4, 5, 6),
+                sequence("com.c", "testC2", 7));
+
+        MockCloneDetector detector = new MockCloneDetector();
+        detector.setProjectWide(true);
+        List<MockCloneInstance> crossPackage = detector.detect(sequences).get("com.example.Service");
+
+        List<List<String>> abstractedSequences = new ArrayList<>();
+        for (MockSequence seq : sequences) {
+            abstractedSequences.add(new ArrayList<>(seq.abstractedStatement.values()));
+        }
+        List<MockCloneInstance> apriori = new MockCloneMiner()
+                .runMutipStubbing("com.example.Service", null, sequences, abstractedSequences);
+
+        assertFalse(crossPackage.isEmpty());
+        assertTrue(crossPackage.stream().anyMatch(clone -> clone.packageName.equals("com.a, com.b")));
+        assertEquals(canonical(apriori), canonical(crossPackage));
+    }
+}
@@ -0,0 +1,167 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.DiffExporter;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.StatementInfo;
+
+public class testDiffExporter {
+
+    private static void git(Path repo, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList("git", "-C", repo.toString(),
+                "-c", "user.name=test", "-c", "user.email=test@example.com"));
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        process.getInputStream().readAllBytes();
+        assertEquals(0, process.waitFor(), "git " + String.join(" ", args));
+    }
+
+    /**
+     * A mock created in a test and never stubbed.
+     */
+    private static MockInfo unstubbedMock(int id, Path file, String test) {
+        MockInfo mockInfo = new MockInfo();
+        mockInfo.rawMockObjectId = id;
+        mockInfo.mockRole = "mock";
+        mockInfo.variableName = "service";
+        mockInfo.variableType = "Service";
+        mockInfo.mockedClass = "com.example.Service";
+        mockInfo.classContext.packageName = "com.example";
+        mockInfo.classContext.filePath = file.toString();
+        mockInfo.classContext.className = file.getFileName().toString().replace(".java", "");
+        StatementInfo stmt = new StatementInfo();
+        stmt.line = 10 + id;
+        stmt.type = StatementInfo.Kind.METHOD_MOCK_CREATION;
+        stmt.code = "Service service = mock(Service.class);";
+        stmt.isMockRelated = true;
+        stmt.locationContext.methodName = test;
+        stmt.locationContext.methodAnnotations = new ArrayList<>(List.of("Test"));
+        stmt.locationContext.methodRawCode = "void " + test + "() {}";
+        mockInfo.statements.add(stmt);
+        return mockInfo;
+    }
+
+    private static Set<String> files(List<MockCloneInstance> instances) {
+        Set<String> files = new TreeSet<>();
+        for (MockCloneInstance instance : instances) {
+            for (MockSequence seq : instance.sequences) {
+                files.add(Path.of(seq.filePath).getFileName().toString());
+            }
+        }
+        return files;
+    }
+
+    @Test
+    public void keepsEveryNoStubCloneOfAGroupApart() throws Exception {
+        Path repo = Files.createTempDirectory("diff-repo").toRealPath();
+        Path tests = Files.createDirectories(repo.resolve("src/test/java/com/example"));
+        Files.write(repo.resolve("pom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+        List<MockInfo> baseline = new ArrayList<>();
+        int id = 0;
+        for (String name : List.of("ATest", "BTest", "CTest")) {
+            Path file = tests.resolve(name + ".java");
+            Files.write(file, ("package com.example;\nclass " + name + " {}\n").getBytes(StandardCharsets.UTF_8));
+            for (int test = 0; test < 3; test++) {
+                baseline.add(unstubbedMock(id++, file, "test" + test));
+            }
+        }
+        git(repo, "init", "-q");
+        git(repo, "add", ".");
+        git(repo, "commit", "-q", "-m", "base");
+        git(repo, "tag", "base");
+        Files.delete(tests.resolve("BTest.java"));
+        git(repo, "commit", "-q", "-a", "-m", "head");
+
+        Path baselineFile = Files.createTempFile("baseline", ".json");
+        Path output = Files.createTempFile("diff", ".json");
+        Files.write(baselineFile, new Gson().toJson(baseline).getBytes(StandardCharsets.UTF_8));
+
+        // one no-stub clone per file, all with the same (empty) shared statements
+        DiffExporter.DiffResult result = DiffExporter.exportDiff(repo, "base", "HEAD", baselineFile,
+                output.toString(), false, new MockCloneDetector());
+        assertEquals(List.of("src/test/java/com/example/BTest.java"), result.changedFiles);
+        assertEquals(0, result.analyzedFiles);
+        assertTrue(result.newClones.isEmpty());
+        assertTrue(result.changedClones.isEmpty());
+        assertEquals(Set.of("BTest.java"), files(result.resolvedClones));
+        assertEquals(1, result.resolvedClones.size());
+    }
+
+    @Test
+    public void failsWhenAChangedFileDoesNotParse() throws Exception {
+        Path repo = Files.createTempDirectory("diff-repo").toRealPath();
+        Path tests = Files.createDirectories(repo.resolve("src/test/java/com/example"));
+        Files.write(repo.resolve("pom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+        Path file = tests.resolve("ATest.java");
+        Files.write(file, "package com.example;\nclass ATest {}\n".getBytes(StandardCharsets.UTF_8));
+        List<MockInfo> baseline = List.of(unstubbedMock(0, file, "test0"), unstubbedMock(1, file, "test1"));
+        git(repo, "init", "-q");
+        git(repo, "add", ".");
+        git(repo, "commit", "-q", "-m", "base");
+        git(repo, "tag", "base");
+        Files.write(file, "package com.example;\nclass ATest {\n    void test0( {\n".getBytes(StandardCharsets.UTF_8));
+        git(repo, "commit", "-q", "-a", "-m", "head");
+
+        Path baselineFile = Files.createTempFile("baseline", ".json");
+        Path output = Files.createTempFile("diff", ".json");
+        Files.write(baselineFile, new Gson().toJson(baseline).getBytes(StandardCharsets.UTF_8));
+
+        // its clones must not be reported as resolved
+        try {
+            DiffExporter.exportDiff(repo, "base", "HEAD", baselineFile, output.toString(), false,
+                    new MockCloneDetector());
+            throw new AssertionError("diffed a file that does not parse");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("ATest.java"));
+        }
+    }
+
+    @Test
+    public void analyzesTheChangedFilesAsTheyAreAtHead() throws Exception {
+        Path repo = Files.createTempDirectory("diff-repo").toRealPath();
+        Path tests = Files.createDirectories(repo.resolve("src/test/java/com/example"));
+        Files.write(repo.resolve("pom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+        Path a = tests.resolve("ATest.java");
+        Path b = tests.resolve("BTest.java");
+        Files.write(a, "package com.example;\nclass ATest {}\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(b, "package com.example;\nclass BTest {}\n".getBytes(StandardCharsets.UTF_8));
+        List<MockInfo> baseline = List.of(unstubbedMock(0, b, "test0"), unstubbedMock(1, b, "test1"),
+                unstubbedMock(2, b, "test2"));
+        git(repo, "init", "-q");
+        git(repo, "add", ".");
+        git(repo, "commit", "-q", "-m", "base");
+        git(repo, "tag", "base");
+        Files.write(a, "package com.example;\nclass ATest {\n}\n".getBytes(StandardCharsets.UTF_8));
+        Files.delete(b);
+        git(repo, "commit", "-q", "-a", "-m", "head");
+
+        // uncommitted edits after head: neither is part of the diff
+        Files.write(a, "package com.example;\nclass ATest {\n    void test0( {\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(b, "package com.example;\nclass BTest {}\n".getBytes(StandardCharsets.UTF_8));
+
+        Path baselineFile = Files.createTempFile("baseline", ".json");
+        Path output = Files.createTempFile("diff", ".json");
+        Files.write(baselineFile, new Gson().toJson(baseline).getBytes(StandardCharsets.UTF_8));
+
+        DiffExporter.DiffResult result = DiffExporter.exportDiff(repo, "base", "HEAD", baselineFile,
+                output.toString(), false, new MockCloneDetector());
+        assertEquals(List.of("src/test/java/com/example/ATest.java", "src/test/java/com/example/BTest.java"),
+                result.changedFiles);
+        assertEquals(1, result.analyzedFiles);
+        assertEquals(Set.of("BTest.java"), files(result.resolvedClones));
+    }
+}
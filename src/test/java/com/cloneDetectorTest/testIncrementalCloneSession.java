@@ -0,0 +1,301 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.IncrementalCloneSession;
+import com.mockanalyzer.exporter.ProjectSession;
+import com.mockanalyzer.metrics.RunMetrics;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.StatementInfo;
+import com.mockanalyzer.visitor.SharedJarIndex;
+
+public class testIncrementalCloneSession {
+
+    /**
+     * A project held in memory: per file, the stubbings of each test method.
+     */
+    private static class FakeProject implements IncrementalCloneSession.Source {
+        final Map<Path, Map<String, List<String>>> files = new LinkedHashMap<>();
+        final Map<Path, String> mockedClasses = new HashMap<>();
+        int reparsed;
+
+        void put(String file, String mockedClass, Map<String, List<String>> stubbingsByTest) {
+            files.put(Path.of(file), stubbingsByTest);
+            mockedClasses.put(Path.of(file), mockedClass);
+        }
+
+        @Override
+        public Map<Path, List<MockInfo>> analyzeByFile() {
+            Map<Path, List<MockInfo>> analyzed = new LinkedHashMap<>();
+            for (Path file : files.keySet()) {
+                analyzed.put(file, analyze(file));
+            }
+            reparsed = analyzed.size();
+            return analyzed;
+        }
+
+        @Override
+        public Map<Path, List<MockInfo>> update(Collection<Path> javaFiles) {
+            Map<Path, List<MockInfo>> analyzed = new LinkedHashMap<>();
+            for (Path file : javaFiles) {
+                analyzed.put(file, files.containsKey(file) ? analyze(file) : new ArrayList<>());
+            }
+            reparsed = javaFiles.size();
+            return analyzed;
+        }
+
+        @Override
+        public int reparsedFiles() {
+            return reparsed;
+        }
+
+        /**
+         * One mock per test method: created, then stubbed line by line.
+         */
+        private List<MockInfo> analyze(Path file) {
+            List<MockInfo> mockInfos = new ArrayList<>();
+            String mockedClass = mockedClasses.get(file);
+            int line = 10;
+            for (Map.Entry<String, List<String>> test : files.get(file).entrySet()) {
+                MockInfo mockInfo = new MockInfo();
+                mockInfo.variableName = "service";
+                mockInfo.variableType = mockedClass.substring(mockedClass.lastIndexOf('.') + 1);
+                mockInfo.mockedClass = mockedClass;
+                mockInfo.classContext.packageName = mockedClass.substring(0, mockedClass.lastIndexOf('.'));
+                mockInfo.classContext.filePath = file.toString();
+                mockInfo.classContext.className = file.getFileName().toString().replace(".java", "");
+                mockInfo.statements.add(statement(line++, StatementInfo.Kind.METHOD_MOCK_CREATION,
+                        "service = mock(" + mockInfo.variableType + ".class);", test.getKey()));
+                for (String stubbing : test.getValue()) {
+                    mockInfo.statements.add(statement(line++, StatementInfo.Kind.STUBBING, stubbing, test.getKey()));
+                }
+                line += 5;
+                mockInfos.add(mockInfo);
+            }
+            return mockInfos;
+        }
+
+        private static StatementInfo statement(int line, StatementInfo.Kind kind, String code, String test) {
+            StatementInfo stmt = new StatementInfo();
+            stmt.line = line;
+            stmt.type = kind;
+            stmt.code = code;
+            stmt.abstractedStatement = code;
+            stmt.isMockRelated = true;
+            stmt.locationContext.methodName = test;
+            stmt.locationContext.methodAnnotations = new ArrayList<>(List.of("Test"));
+            stmt.locationContext.methodRawCode = "void " + test + "() {}";
+            return stmt;
+        }
+    }
+
+    private static Map<String, List<String>> tests(String... testsAndStubbings) {
+        Map<String, List<String>> tests = new LinkedHashMap<>();
+        for (String test : testsAndStubbings) {
+            String[] parts = test.split(":");
+            tests.put(parts[0], Arrays.asList(parts).subList(1, parts.length));
+        }
+        return tests;
+    }
+
+    /**
+     * Clones without their mock ids: per mocked class, each instance as its
+     * package, shared statements and tests, all sorted.
+     */
+    private static Map<String, List<String>> canonical(Map<String, List<MockCloneInstance>> cloneMap) {
+        Map<String, List<String>> canonical = new TreeMap<>();
+        for (Map.Entry<String, List<MockCloneInstance>> entry : cloneMap.entrySet()) {
+            List<String> instances = new ArrayList<>();
+            for (MockCloneInstance instance : entry.getValue()) {
+                Set<String> tests = new TreeSet<>();
+                for (MockSequence seq : instance.sequences) {
+                    tests.add(seq.filePath + "#" + seq.testMethodName + "#" + seq.variableName);
+                }
+                instances.add(instance.packageName + " " + new TreeSet<>(instance.sharedStatements) + " " + tests);
+            }
+            if (!instances.isEmpty()) {
+                Collections.sort(instances);
+                canonical.put(entry.getKey(), instances);
+            }
+        }
+        return canonical;
+    }
+
+    private static Map<String, List<String>> fullRun(IncrementalCloneSession session) {
+        List<MockSequence> sequences = new ArrayList<>();
+        for (MockInfo mockInfo : session.mockInfos()) {
+            sequences.addAll(mockInfo.toMockSequences());
+        }
+        return canonical(new MockCloneDetector().detect(sequences));
+    }
+
+    @Test
+    public void updateMatchesAFullRunAfterChangeCreateAndDelete() throws Exception {
+        String find = "when(service.find(ANY)).thenReturn(VALUE);";
+        String save = "when(service.save(ANY)).thenReturn(VALUE);";
+        String count = "when(service.count()).thenReturn(VALUE);";
+        FakeProject project = new FakeProject();
+        project.put("src/test/java/com/example/ATest.java", "com.example.Service",
+                tests("testA1:" + find + ":" + save, "testA2:" + find + ":" + save + ":" + count));
+        project.put("src/test/java/com/example/BTest.java", "com.example.Service",
+                tests("testB1:" + find + ":" + save, "testB2:" + find));
+        project.put("src/test/java/com/example/CTest.java", "com.example.Service",
+                tests("testC1:" + find + ":" + save + ":" + count));
+        project.put("src/test/java/com/other/ETest.java", "com.other.Repository",
+                tests("testE1:" + find + ":" + save, "testE2:" + find + ":" + save));
+
+        IncrementalCloneSession session = new IncrementalCloneSession(project, new MockCloneDetector());
+        session.analyzeAll();
+        assertFalse(session.clones().isEmpty());
+        assertEquals(fullRun(session), canonical(session.clones()));
+
+        // B changed, D created, C deleted
+        Path changed = Path.of("src/test/java/com/example/BTest.java");
+        Path created = Path.of("src/test/java/com/example/DTest.java");
+        Path deleted = Path.of("src/test/java/com/example/CTest.java");
+        project.put(changed.toString(), "com.example.Service",
+                tests("testB1:" + find + ":" + save + ":" + count, "testB2:" + find + ":" + count));
+        project.put(created.toString(), "com.example.Service",
+                tests("testD1:" + find + ":" + save + ":" + count, "testD2:" + save));
+        project.files.remove(deleted);
+        project.mockedClasses.remove(deleted);
+
+        IncrementalCloneSession.Update update = session.update(List.of(changed, created, deleted));
+        assertEquals(3, update.changedFiles);
+        assertEquals(0, update.failedFiles);
+        assertTrue(update.groups.containsKey("com.example.Service#com.example"));
+        assertFalse(update.groups.containsKey("com.other.Repository#com.other"));
+        assertEquals(fullRun(session), canonical(session.clones()));
+        assertTrue(canonical(session.clones()).toString().contains("DTest.java"));
+        assertFalse(canonical(session.clones()).toString().contains("CTest.java"));
+
+        // the other package's directory deleted: its files are updated by what was under it
+        Path otherDir = Path.of("src/test/java/com/other");
+        assertEquals(List.of(Path.of("src/test/java/com/other/ETest.java")), session.filesUnder(otherDir));
+        project.files.remove(Path.of("src/test/java/com/other/ETest.java"));
+        project.mockedClasses.remove(Path.of("src/test/java/com/other/ETest.java"));
+        update = session.update(session.filesUnder(otherDir));
+        assertEquals(List.of(), update.groups.get("com.other.Repository#com.other"));
+        assertEquals(List.of(), session.filesUnder(otherDir));
+        assertEquals(fullRun(session), canonical(session.clones()));
+    }
+
+    /**
+     * Puts a jar with the Mockito methods the tests call into the project's
+     * libs, so that mock(...) resolves as in a built project.
+     */
+    private static void writeMockitoJar(Path root) throws IOException {
+        Path sources = Files.createTempDirectory("mockito-src");
+        Path classes = Files.createTempDirectory("mockito-classes");
+        Path mockito = sources.resolve("Mockito.java");
+        Path stubbing = sources.resolve("OngoingStubbing.java");
+        Files.writeString(mockito, "package org.mockito;\n"
+                + "public class Mockito {\n"
+                + "    public static <T> T mock(Class<T> classToMock) { return null; }\n"
+                + "    public static <T> org.mockito.stubbing.OngoingStubbing<T> when(T methodCall) { return null; }\n"
+                + "}\n");
+        Files.writeString(stubbing, "package org.mockito.stubbing;\n"
+                + "public interface OngoingStubbing<T> { OngoingStubbing<T> thenReturn(T value); }\n");
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "-d", classes.toString(), mockito.toString(), stubbing.toString()));
+
+        Path jar = Files.createDirectories(root.resolve("libs")).resolve("mockito-core.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+                Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new ZipEntry(classes.relativize(file).toString().replace('\\', '/')));
+                out.write(Files.readAllBytes(file));
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static void writeTest(Path file, String name, String extra) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(("package com.example;\n\n"
+                    + "import static org.mockito.Mockito.mock;\n"
+                    + "import static org.mockito.Mockito.when;\n\n"
+                    + "import java.util.List;\n\n"
+                    + "class " + name + " {\n"
+                    + "    @Test\n"
+                    + "    void first() {\n"
+                    + "        List<String> list = mock(List.class);\n"
+                    + "        when(list.size()).thenReturn(1);\n"
+                    + "        when(list.isEmpty()).thenReturn(false);\n"
+                    + "    }\n\n"
+                    + "    @Test\n"
+                    + "    void second() {\n"
+                    + "        List<String> list = mock(List.class);\n"
+                    + "        when(list.size()).thenReturn(1);\n"
+                    + "        when(list.isEmpty()).thenReturn(false);\n"
+                    + "    }\n"
+                    + extra
+                    + "}\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void fileWithASyntaxErrorKeepsItsClones() throws Exception {
+        Path root = Files.createTempDirectory("watch-project");
+        Files.writeString(root.resolve("pom.xml"), "<project/>");
+        writeMockitoJar(root);
+        Path tests = Files.createDirectories(root.resolve("src/test/java/com/example"));
+        Path a = tests.resolve("ATest.java");
+        Path b = tests.resolve("BTest.java");
+        writeTest(a, "ATest", "");
+        writeTest(b, "BTest", "");
+
+        IncrementalCloneSession session = new IncrementalCloneSession(
+                new ProjectSession(root, new SharedJarIndex()), new MockCloneDetector());
+        session.analyzeAll();
+        Map<String, List<String>> before = canonical(session.clones());
+        assertTrue(before.toString().contains("BTest.java"));
+
+        // saved mid-edit
+        writeTest(b, "BTest", "    void unfinished( {\n");
+        RunMetrics metrics = RunMetrics.start();
+        IncrementalCloneSession.Update update = session.update(List.of(b));
+        assertEquals(1, update.failedFiles);
+        assertEquals(1L, metrics.report("watch").filesFailed);
+        assertTrue(update.groups.isEmpty());
+        assertEquals(before, canonical(session.clones()));
+
+        // the broken version was not cached: fixing the file brings it back as it was
+        writeTest(b, "BTest", "    void finished() {\n    }\n");
+        update = session.update(List.of(b));
+        assertEquals(0, update.failedFiles);
+        assertEquals(1, update.reparsedFiles);
+        assertEquals(before, canonical(session.clones()));
+    }
+
+    @Test
+    public void rejectsDetectionAcrossGroups() {
+        MockCloneDetector detector = new MockCloneDetector();
+        detector.setNearCloneThreshold(0.8);
+        try {
+            new IncrementalCloneSession(new FakeProject(), detector);
+            throw new AssertionError("--near accepted");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("--near"));
+        }
+    }
+}
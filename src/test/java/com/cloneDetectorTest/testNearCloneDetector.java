@@ -0,0 +1,111 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.NearCloneDetector;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.NearCloneInstance;
+
+public class testNearCloneDetector {
+
+    private static MockSequence sequence(String test, int... stubbings) {
+        MockSequence seq = new MockSequence();
+        seq.mockedClass = "com.example.Service";
+        seq.packageName = "com.example";
+        seq.filePath = "ServiceTest.java";
+        seq.testMethodName = test;
+        int line = 1;
+        for (int stubbing : stubbings) {
+            seq.abstractedStatement.put(line++, "when(service.call" + stubbing + "()).thenReturn(VALUE);");
+        }
+        return seq;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] range = new int[to - from + 1];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = from + i;
+        }
+        return range;
+    }
+
+    private static int[] replace(int[] set, int removed, int added) {
+        int[] replaced = set.clone();
+        for (int i = 0; i < replaced.length; i++) {
+            if (replaced[i] == removed) {
+                replaced[i] = added;
+            }
+        }
+        return replaced;
+    }
+
+    private static List<Set<String>> tests(Map<String, List<NearCloneInstance>> nearClones) {
+        List<Set<String>> groups = new ArrayList<>();
+        for (List<NearCloneInstance> instances : nearClones.values()) {
+            for (NearCloneInstance instance : instances) {
+                Set<String> tests = new TreeSet<>();
+                for (MockSequence seq : instance.sequences) {
+                    tests.add(seq.testMethodName);
+                }
+                groups.add(tests);
+            }
+        }
+        return groups;
+    }
+
+    @Test
+    public void groupsNearPairsOnly() {
+        int[] base = range(1, 10);
+        List<MockSequence> sequences = List.of(
+                sequence("near1", base),
+                sequence("near2", replace(base, 10, 11)), // 9/11 = 0.82
+                sequence("far", range(20, 29)),
+                sequence("half", replace(replace(replace(base, 8, 30), 9, 31), 10, 32))); // 7/13 = 0.54
+
+        Map<String, List<NearCloneInstance>> nearClones = new NearCloneDetector(0.8).detect(sequences);
+        assertEquals(List.of(Set.of("near1", "near2")), tests(nearClones));
+        NearCloneInstance instance = nearClones.get("com.example.Service").get(0);
+        assertEquals(9.0 / 11, instance.similarity, 1e-9);
+        assertEquals(9, instance.sharedStatements.size());
+        assertEquals(2, instance.differingStatements.size());
+    }
+
+    @Test
+    public void doesNotChainThroughIntermediateSets() {
+        int[] a = range(1, 10);
+        int[] b = replace(a, 10, 11); // a~b: 9/11 = 0.82
+        int[] c = replace(b, 9, 12); // b~c: 0.82, a~c: 8/12 = 0.67
+        List<MockSequence> sequences = List.of(
+                sequence("a1", a),
+                sequence("a2", a),
+                sequence("b", b),
+                sequence("c", c));
+
+        // a is the most frequent set, so it represents the group; c is too far from it
+        Map<String, List<NearCloneInstance>> nearClones = new NearCloneDetector(0.8).detect(sequences);
+        assertEquals(List.of(Set.of("a1", "a2", "b")), tests(nearClones));
+        for (List<NearCloneInstance> instances : nearClones.values()) {
+            for (NearCloneInstance instance : instances) {
+                assertTrue(instance.similarity >= 0.8);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsThresholdsOutsideUnitInterval() {
+        for (double threshold : new double[] { 0, -0.5, 1.5, Double.NaN }) {
+            try {
+                new NearCloneDetector(threshold);
+                throw new AssertionError("accepted " + threshold);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage().contains("(0, 1]"));
+            }
+        }
+        new NearCloneDetector(1.0);
+    }
+}
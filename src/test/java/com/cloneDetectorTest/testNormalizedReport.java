@@ -0,0 +1,104 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.exporter.MockInfoReader;
+import com.mockanalyzer.exporter.NormalizedReport;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockInfo;
+import com.mockanalyzer.model.MockSequence;
+import com.mockanalyzer.model.StatementInfo;
+
+public class testNormalizedReport {
+
+    private static StatementInfo statement(int line, StatementInfo.Kind type, String code, String method, String annotation) {
+        StatementInfo stmt = new StatementInfo();
+        stmt.line = line;
+        stmt.type = type;
+        stmt.code = code;
+        stmt.isMockRelated = true;
+        stmt.abstractedStatement = type == StatementInfo.Kind.STUBBING ? code.replaceAll("\\d", "") : "";
+        stmt.locationContext.methodName = method;
+        stmt.locationContext.methodAnnotations = new ArrayList<>(List.of(annotation));
+        stmt.locationContext.methodRawCode = "void " + method + "() { /* raw code of " + method + " */ }";
+        return stmt;
+    }
+
+    private static List<MockInfo> mockInfos() {
+        List<MockInfo> mockInfos = new ArrayList<>();
+        int id = 0;
+        for (int file = 0; file < 3; file++) {
+            for (int mock = 0; mock < 2; mock++) {
+                MockInfo mockInfo = new MockInfo();
+                mockInfo.rawMockObjectId = id++;
+                mockInfo.mockRole = "mock";
+                mockInfo.variableName = "service" + mock;
+                mockInfo.variableType = "Service";
+                mockInfo.mockedClass = "com.example.Service";
+                mockInfo.classContext.packageName = "com.example";
+                mockInfo.classContext.filePath = "ServiceTest" + file + ".java";
+                mockInfo.classContext.className = "ServiceTest" + file;
+                mockInfo.statements.add(statement(10 + mock, StatementInfo.Kind.METHOD_MOCK_CREATION,
+                        "service" + mock + " = mock(Service.class);", "setUp", "@BeforeEach"));
+                for (int test = 0; test < 3; test++) {
+                    int line = 100 * (test + 1);
+                    mockInfo.statements.add(statement(line, StatementInfo.Kind.STUBBING,
+                            "when(service.find()).thenReturn(" + test + ");", "testFind" + test, "@Test"));
+                    mockInfo.statements.add(statement(line + 1, StatementInfo.Kind.STUBBING,
+                            "when(service.count()).thenReturn(" + test + ");", "testFind" + test, "@Test"));
+                }
+                mockInfos.add(mockInfo);
+            }
+        }
+        return mockInfos;
+    }
+
+    private static String describe(MockSequence seq) {
+        return seq.mockObjectId + " " + seq.testMethodName + " " + seq.filePath + " " + seq.shareableMockLines + " "
+                + seq.testMockLines + " " + seq.abstractedStatement + " " + seq.overlapLines + " "
+                + seq.testMethodRawCode;
+    }
+
+    @Test
+    public void roundTripsMockInfosAndClones() throws Exception {
+        List<MockInfo> mockInfos = mockInfos();
+        List<MockSequence> sequences = new ArrayList<>();
+        for (MockInfo mockInfo : mockInfos) {
+            sequences.addAll(mockInfo.toMockSequences());
+        }
+        Map<String, List<MockCloneInstance>> clones = new MockCloneDetector().detect(sequences);
+        assertTrue(!clones.isEmpty());
+
+        Path file = Files.createTempFile("clone", ".json");
+        try {
+            NormalizedReport.of(mockInfos, clones, null).write(file);
+            NormalizedReport report = NormalizedReport.read(file);
+
+            assertEquals(3, report.files.size());
+            List<MockInfo> read = report.mockInfos();
+            assertEquals(mockInfos.size(), read.size());
+            for (int i = 0; i < mockInfos.size(); i++) {
+                assertTrue(mockInfos.get(i).isEqual(read.get(i)));
+            }
+            assertEquals(CloneFixtures.summary(clones, testNormalizedReport::describe),
+                    CloneFixtures.summary(report.clones(), testNormalizedReport::describe));
+
+            List<MockInfo> streamed = new ArrayList<>();
+            MockInfoReader.forEach(file, streamed::add);
+            assertEquals(mockInfos.size(), streamed.size());
+            for (int i = 0; i < mockInfos.size(); i++) {
+                assertTrue(mockInfos.get(i).isEqual(streamed.get(i)));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
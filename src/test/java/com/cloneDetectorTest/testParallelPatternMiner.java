@@ -0,0 +1,36 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.AprioriMiner;
+import com.mockanalyzer.cloneDetector.ParallelPatternMiner;
+
+public class testParallelPatternMiner {
+
+    @Test
+    public void producesAprioriResultInAprioriOrder() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            List<List<String>> transactions = new ArrayList<>();
+            for (int t = 0; t < 30; t++) {
+                List<String> transaction = new ArrayList<>();
+                int size = random.nextInt(6);
+                for (int i = 0; i < size; i++) {
+                    transaction.add("when(Service.call" + random.nextInt(8) + "()).thenReturn(String)");
+                }
+                transactions.add(transaction);
+            }
+
+            Map<Set<String>, Set<Integer>> apriori = new AprioriMiner().mine(transactions, 2);
+            Map<Set<String>, Set<Integer>> parallel = new ParallelPatternMiner().mine(transactions, 2);
+
+            assertEquals(apriori, parallel);
+            assertEquals(new ArrayList<>(apriori.keySet()), new ArrayList<>(parallel.keySet()),
+                    "pattern order should match so greedy tie-breaking is unchanged");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.MockCloneDetector;
+import com.mockanalyzer.cloneDetector.SequenceStore;
+import com.mockanalyzer.model.MockCloneInstance;
+import com.mockanalyzer.model.MockSequence;
+
+public class testSequenceStore {
+
+    private static List<MockSequence> sequences() {
+        Random random = new Random(7);
+        List<MockSequence> sequences = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            MockSequence seq = CloneFixtures.sequence(i, "com.example.Service" + (i % 3), "com.example.p" + (i % 2),
+                    "Test" + (i % 5) + ".java");
+            for (int line = 1; line <= 4; line++) {
+                if (random.nextInt(3) != 0) {
+                    CloneFixtures.stub(seq, line, "Service.call" + line + "()");
+                }
+            }
+            sequences.add(seq);
+        }
+        return sequences;
+    }
+
+    @Test
+    public void loadsEachGroupInInsertionOrder() throws Exception {
+        Path file = Files.createTempFile("sequences", ".store");
+        try (SequenceStore store = SequenceStore.create(file)) {
+            List<MockSequence> sequences = sequences();
+            store.addAll(sequences);
+
+            assertEquals(sequences.size(), store.size());
+            for (String key : store.groupKeys()) {
+                List<Integer> expected = new ArrayList<>();
+                for (MockSequence seq : sequences) {
+                    if (key.equals(seq.mockedClass + "#" + seq.packageName)) {
+                        expected.add(seq.mockObjectId);
+                    }
+                }
+                List<Integer> loaded = new ArrayList<>();
+                for (MockSequence seq : store.load(key)) {
+                    loaded.add(seq.mockObjectId);
+                }
+                assertEquals(expected, loaded);
+            }
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void detectsSameClonesAsInMemoryDetection() throws Exception {
+        Map<String, List<MockCloneInstance>> inMemory = new MockCloneDetector().detect(sequences());
+
+        Path file = Files.createTempFile("sequences", ".store");
+        Map<String, List<MockCloneInstance>> spilled;
+        try (SequenceStore store = SequenceStore.create(file)) {
+            store.addAll(sequences());
+            spilled = new MockCloneDetector().detect(store);
+        }
+
+        assertEquals(CloneFixtures.summary(inMemory, seq -> String.valueOf(seq.mockObjectId)),
+                CloneFixtures.summary(spilled, seq -> String.valueOf(seq.mockObjectId)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.visitor.SharedJarIndex;
+
+public class testSharedJarIndex {
+
+    private static Path jar(Path dir, String content) throws IOException {
+        Path jar = Files.createDirectories(dir.resolve("libs")).resolve("service.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("com/example/Service.class"));
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    @Test
+    public void indexesIdenticalJarsOnce() throws Exception {
+        Path root = Files.createTempDirectory("jars");
+        Path a = jar(root.resolve("a"), "version 1");
+        Path b = Files.createDirectories(root.resolve("b/libs")).resolve("service.jar");
+        Files.copy(a, b, StandardCopyOption.COPY_ATTRIBUTES);
+        // same name and size, other content
+        Path c = jar(root.resolve("c"), "version 2");
+        assertEquals(Files.size(a), Files.size(c));
+
+        SharedJarIndex index = new SharedJarIndex();
+        index.solverFor(a);
+        index.solverFor(b);
+        index.solverFor(c);
+        index.solverFor(a);
+        assertEquals(2, index.indexedCount());
+        assertEquals(2, index.reusedCount());
+    }
+}
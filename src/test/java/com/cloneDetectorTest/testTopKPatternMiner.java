@@ -0,0 +1,48 @@
+package com.cloneDetectorTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.mockanalyzer.cloneDetector.AprioriMiner;
+import com.mockanalyzer.cloneDetector.TopKPatternMiner;
+
+public class testTopKPatternMiner {
+
+    private final List<List<String>> transactions = List.of(
+            List.of("s1", "s2", "s3"),
+            List.of("s2", "s3", "s4"),
+            List.of("s2", "s4", "s5"),
+            List.of("s1", "s4"),
+            List.of("s1", "s6"),
+            List.of("s1", "s2", "s3", "s4"));
+
+    @Test
+    public void unboundedMiningFindsSamePatternsAsApriori() {
+        Map<Set<String>, Set<Integer>> apriori = new AprioriMiner().mine(transactions, 2);
+        Map<Set<String>, Set<Integer>> topK = new TopKPatternMiner().mine(transactions, 2, Integer.MAX_VALUE);
+
+        assertEquals(apriori, topK);
+    }
+
+    @Test
+    public void patternsComeOutInScoreOrder() {
+        Map<Set<String>, Set<Integer>> apriori = new AprioriMiner().mine(transactions, 2);
+        List<Integer> expectedScores = new ArrayList<>();
+        for (Map.Entry<Set<String>, Set<Integer>> e : apriori.entrySet()) {
+            expectedScores.add(TopKPatternMiner.score(e.getKey().size(), e.getValue().size()));
+        }
+        expectedScores.sort(Comparator.reverseOrder());
+
+        Map<Set<String>, Set<Integer>> top3 = new TopKPatternMiner().mine(transactions, 2, 3);
+        List<Integer> scores = new ArrayList<>();
+        for (Map.Entry<Set<String>, Set<Integer>> e : top3.entrySet()) {
+            assertEquals(apriori.get(e.getKey()), e.getValue(), "TID set should match Apriori");
+            scores.add(TopKPatternMiner.score(e.getKey().size(), e.getValue().size()));
+        }
+
+        assertEquals(expectedScores.subList(0, 3), scores);
+    }
+}
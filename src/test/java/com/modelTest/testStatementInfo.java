@@ -0,0 +1,77 @@
+package com.modelTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.mockanalyzer.model.StatementInfo;
+
+public class testStatementInfo {
+
+    private static StatementInfo.Location locate(String methodName, String... annotations) {
+        StatementInfo stmt = new StatementInfo();
+        stmt.locationContext.methodName = methodName;
+        stmt.locationContext.methodAnnotations = new ArrayList<>(Arrays.asList(annotations));
+        stmt.checkLocate();
+        return stmt.locate;
+    }
+
+    @Test
+    public void classifiesLocationsInRuleOrder() {
+        assertEquals(StatementInfo.Location.TEST_CASE, locate("findsUser", "Test"));
+        assertEquals(StatementInfo.Location.TEST_CASE, locate("testSetup", "BeforeEach"));
+        assertEquals(StatementInfo.Location.TEST_CASE, locate("shouldFind", "ParameterizedTest"));
+        assertEquals(StatementInfo.Location.BEFORE, locate("setUp", "BeforeEach"));
+        assertEquals(StatementInfo.Location.AFTER, locate("cleanup", "AfterAll"));
+        assertEquals(StatementInfo.Location.HELPER_METHOD, locate("createService"));
+        assertEquals(StatementInfo.Location.ATTRIBUTE, locate("FieldDeclaration", "Mock"));
+        assertEquals(StatementInfo.Location.OVERRIDE, locate("run", "Override"));
+        assertEquals(StatementInfo.Location.OTHER_METHODS, locate("run"));
+        assertEquals(StatementInfo.Location.OTHER_METHODS, locate(null));
+    }
+
+    @Test
+    public void statementsOfAMethodShareItsContext() {
+        StatementInfo.LocationContext context = new StatementInfo.LocationContext();
+        context.methodName = "setUp";
+        context.methodAnnotations = new ArrayList<>(List.of("Before"));
+        StatementInfo first = new StatementInfo();
+        first.locationContext = context;
+        StatementInfo second = first.copy();
+        assertSame(context, second.locationContext);
+        first.checkLocate();
+        second.checkLocate();
+        assertSame(StatementInfo.Location.BEFORE, second.locate);
+    }
+
+    @Test
+    public void jsonKeepsTheStringForm() {
+        StatementInfo stmt = new StatementInfo();
+        stmt.code = "when(service.find()).thenReturn(1);";
+        stmt.line = 12;
+        stmt.type = StatementInfo.Kind.STUBBING;
+        stmt.locationContext.methodName = "testFind";
+        stmt.locationContext.methodAnnotations = new ArrayList<>(List.of("Test"));
+        Gson gson = new Gson();
+        assertTrue(gson.toJson(stmt).contains("\"type\":\"STUBBING\",\"locate\":\"\""));
+        stmt.checkLocate();
+        String json = gson.toJson(stmt);
+        assertTrue(json.contains("\"type\":\"STUBBING\",\"locate\":\"Test Case\""));
+        assertTrue(!json.contains("location\""));
+
+        String old = "{\"code\":\"x = mock(Service.class);\",\"line\":3,\"type\":\"METHOD_MOCK_CREATION\","
+                + "\"locate\":\"Helper Method\",\"abstractedStatement\":\"\",\"isMockRelated\":true,"
+                + "\"isShareable\":true,\"locationContext\":{\"methodName\":\"createService\","
+                + "\"methodAnnotations\":[],\"methodRawCode\":\"\"}}";
+        StatementInfo read = gson.fromJson(old, StatementInfo.class);
+        assertEquals(StatementInfo.Kind.METHOD_MOCK_CREATION, read.type);
+        assertEquals(StatementInfo.Location.HELPER_METHOD, read.locate);
+        assertTrue(read.type.isMockCreation());
+        assertTrue(read.locate.isShareable());
+    }
+}